@@ -0,0 +1,48 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.InMemoryUserMapper;
+import com.example.jwt.security.UserDetailsImpl;
+import com.example.jwt.service.JwtService;
+import com.example.jwt.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问令牌完整验证基准测试
+ * <p>
+ * 对应过滤器中的 JwtService.validateAccessToken：验签、类型和过期检查、黑名单查询。
+ * 令牌存储使用嵌入式堆外实现，结果只反映应用自身的开销；tokenCache 对比已验证令牌缓存开启和关闭。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTokenValidationBenchmark {
+
+    @Param({"false", "true"})
+    private boolean tokenCache;
+
+    private JwtService jwtService;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        jwtService = BenchmarkFixtures.jwtService(jwtUtil, BenchmarkFixtures.tokenStore(),
+                BenchmarkFixtures.userDetailsService(InMemoryUserMapper.create("")), tokenCache);
+        token = jwtUtil.generateAccessTokenWithUserId(new UserDetailsImpl(InMemoryUserMapper.user(""),
+                InMemoryUserMapper.roles(), InMemoryUserMapper.permissions()), InMemoryUserMapper.USER_ID);
+    }
+
+    @Benchmark
+    public boolean validateAccessToken() {
+        return jwtService.validateAccessToken(token);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.InMemoryUserMapper;
+import com.example.jwt.security.AuthorityExpressionRoot;
+import com.example.jwt.security.AuthorityPermissionEvaluator;
+import com.example.jwt.security.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 授权判断基准测试
+ * <p>
+ * 对应 UserController 上的 {@code hasRole('USER') or hasRole('ADMIN')}，每次调用创建一个表达式根对象，
+ * 与 @PreAuthorize 每次方法调用的行为一致。spring* 为 Spring Security 默认的 SecurityExpressionRoot
+ * （改动前），bitset* 为 AuthorityExpressionRoot 的权限位图判断（改动后）。
+ * 每次判断的分配字节数用 {@code -prof gc} 查看 gc.alloc.rate.norm。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationBenchmark {
+
+    private Authentication authentication;
+
+    private AuthorityPermissionEvaluator permissionEvaluator;
+
+    @Setup
+    public void setup() {
+        UserDetailsImpl userDetails = new UserDetailsImpl(InMemoryUserMapper.user(""),
+                InMemoryUserMapper.roles(), InMemoryUserMapper.permissions());
+        authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        permissionEvaluator = new AuthorityPermissionEvaluator();
+    }
+
+    @Benchmark
+    public boolean springHasRole() {
+        SecurityExpressionRoot root = new SecurityExpressionRoot(authentication) {
+        };
+        return root.hasRole("USER") || root.hasRole("ADMIN");
+    }
+
+    @Benchmark
+    public boolean bitsetHasRole() {
+        AuthorityExpressionRoot root = new AuthorityExpressionRoot(authentication, permissionEvaluator, null);
+        return root.hasRole("USER") || root.hasRole("ADMIN");
+    }
+
+    @Benchmark
+    public boolean springHasAuthority() {
+        SecurityExpressionRoot root = new SecurityExpressionRoot(authentication) {
+        };
+        return root.hasAuthority("admin:user:list");
+    }
+
+    @Benchmark
+    public boolean bitsetHasPermission() {
+        AuthorityExpressionRoot root = new AuthorityExpressionRoot(authentication, permissionEvaluator, null);
+        return root.hasPermission(null, "admin:user:list");
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.InMemoryRbacMappers;
+import com.example.jwt.mapper.PermissionMapper;
+import com.example.jwt.mapper.RoleMapper;
+import com.example.jwt.mapper.RolePermissionMapper;
+import com.example.jwt.mapper.UserMapper;
+import com.example.jwt.security.CompactHs256TokenVerifier;
+import com.example.jwt.security.JwtKeyRing;
+import com.example.jwt.security.OffHeapTokenStore;
+import com.example.jwt.security.RbacSnapshot;
+import com.example.jwt.security.RevocationBloomFilter;
+import com.example.jwt.security.RevocationEpochs;
+import com.example.jwt.security.TokenStore;
+import com.example.jwt.security.TokenVerifier;
+import com.example.jwt.security.UserDetailsCache;
+import com.example.jwt.security.UserDetailsServiceImpl;
+import com.example.jwt.security.VerifiedTokenCache;
+import com.example.jwt.service.JwtService;
+import com.example.jwt.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 基准测试公共装配
+ * <p>
+ * 不启动Spring容器，按 application.yml 中的默认配置手工装配被测组件。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public final class BenchmarkFixtures {
+
+    public static final String SECRET = "mySecretKey12345678901234567890123456789012345678901234567890";
+
+    public static final long ACCESS_TOKEN_EXPIRATION = 900000L;
+
+    public static final long REFRESH_TOKEN_EXPIRATION = 604800000L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 创建HS256密钥环
+     */
+    public static JwtKeyRing keyRing() {
+        return keyRing("HS256");
+    }
+
+    /**
+     * 创建密钥环
+     *
+     * @param algorithm 签名算法：HS256 / ES256（ES256使用临时密钥对）
+     */
+    public static JwtKeyRing keyRing(String algorithm) {
+        JwtKeyRing keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "secret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "keyId", "k1");
+        ReflectionTestUtils.setField(keyRing, "algorithm", algorithm);
+        ReflectionTestUtils.setField(keyRing, "ecPrivateKey", "");
+        ReflectionTestUtils.setField(keyRing, "ecPublicKey", "");
+        ReflectionTestUtils.setField(keyRing, "retiredKeys", "");
+        ReflectionTestUtils.setField(keyRing, "refreshTokenExpiration", REFRESH_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(keyRing, "tokenStore", tokenStore());
+        keyRing.init();
+        return keyRing;
+    }
+
+    /**
+     * 创建紧凑型HS256验证引擎
+     */
+    public static CompactHs256TokenVerifier compactVerifier(JwtKeyRing keyRing) {
+        CompactHs256TokenVerifier verifier = new CompactHs256TokenVerifier();
+        ReflectionTestUtils.setField(verifier, "keyRing", keyRing);
+        return verifier;
+    }
+
+    /**
+     * 创建JwtUtil（jjwt引擎）
+     */
+    public static JwtUtil jwtUtil() {
+        return jwtUtil(keyRing(), null);
+    }
+
+    /**
+     * 创建JwtUtil
+     *
+     * @param keyRing 密钥环
+     * @param tokenVerifier 验证引擎，为空时使用jjwt
+     */
+    public static JwtUtil jwtUtil(JwtKeyRing keyRing, TokenVerifier tokenVerifier) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "keyRing", keyRing);
+        ReflectionTestUtils.setField(jwtUtil, "tokenVerifier", tokenVerifier);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", ACCESS_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(jwtUtil, "refreshTokenExpiration", REFRESH_TOKEN_EXPIRATION);
+        return jwtUtil;
+    }
+
+    /**
+     * 创建已验证令牌缓存
+     *
+     * @param enabled 是否启用缓存
+     */
+    public static VerifiedTokenCache verifiedTokenCache(boolean enabled) {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "enabled", enabled);
+        ReflectionTestUtils.setField(cache, "maximumSize", 10000L);
+        ReflectionTestUtils.setField(cache, "maxTtl", 60000L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+        return cache;
+    }
+
+    /**
+     * 创建嵌入式堆外令牌存储
+     */
+    public static OffHeapTokenStore tokenStore() {
+        OffHeapTokenStore tokenStore = new OffHeapTokenStore();
+        ReflectionTestUtils.setField(tokenStore, "initialCapacity", 65536);
+        ReflectionTestUtils.setField(tokenStore, "meterRegistry", new SimpleMeterRegistry());
+        tokenStore.init();
+        return tokenStore;
+    }
+
+    /**
+     * 创建令牌吊销布隆过滤器，并从黑名单完成首次重建（令牌存储在本进程内时过滤器不启用）
+     *
+     * @param tokenStore 令牌存储
+     * @param verifiedTokenCache 已验证令牌缓存
+     */
+    public static RevocationBloomFilter revocationFilter(TokenStore tokenStore, VerifiedTokenCache verifiedTokenCache) {
+        RevocationBloomFilter filter = new RevocationBloomFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "expectedInsertions", 100000);
+        ReflectionTestUtils.setField(filter, "fpp", 0.01);
+        ReflectionTestUtils.setField(filter, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.setField(filter, "listenerContainer", new RedisMessageListenerContainer());
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        filter.init();
+        filter.rebuild();
+        return filter;
+    }
+
+    /**
+     * 创建用户级吊销纪元
+     *
+     * @param tokenStore 令牌存储
+     */
+    public static RevocationEpochs revocationEpochs(TokenStore tokenStore) {
+        RevocationEpochs epochs = new RevocationEpochs();
+        ReflectionTestUtils.setField(epochs, "localTtl", 30000L);
+        ReflectionTestUtils.setField(epochs, "maximumSize", 100000L);
+        ReflectionTestUtils.setField(epochs, "refreshTokenExpiration", REFRESH_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(epochs, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(epochs, "listenerContainer", new RedisMessageListenerContainer());
+        epochs.init();
+        return epochs;
+    }
+
+    /**
+     * 创建用户详情缓存
+     *
+     * @param tokenStore 令牌存储（决定是否订阅失效通知，未启用缓存时可为null）
+     * @param enabled 是否启用缓存
+     */
+    public static UserDetailsCache userDetailsCache(TokenStore tokenStore, boolean enabled) {
+        UserDetailsCache cache = new UserDetailsCache();
+        ReflectionTestUtils.setField(cache, "enabled", enabled);
+        ReflectionTestUtils.setField(cache, "maximumSize", 10000L);
+        ReflectionTestUtils.setField(cache, "ttl", 300000L);
+        ReflectionTestUtils.setField(cache, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(cache, "listenerContainer", new RedisMessageListenerContainer());
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+        return cache;
+    }
+
+    /**
+     * 创建角色权限快照并完成首次加载
+     *
+     * @param roleMapper 角色数据访问层
+     * @param permissionMapper 权限数据访问层
+     * @param rolePermissionMapper 角色权限关联数据访问层
+     * @param tokenStore 令牌存储（决定是否订阅变更通知）
+     * @param userDetailsCache 用户详情缓存
+     */
+    public static RbacSnapshot rbacSnapshot(RoleMapper roleMapper, PermissionMapper permissionMapper,
+                                            RolePermissionMapper rolePermissionMapper, TokenStore tokenStore,
+                                            UserDetailsCache userDetailsCache) {
+        RbacSnapshot snapshot = new RbacSnapshot();
+        ReflectionTestUtils.setField(snapshot, "roleMapper", roleMapper);
+        ReflectionTestUtils.setField(snapshot, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(snapshot, "rolePermissionMapper", rolePermissionMapper);
+        ReflectionTestUtils.setField(snapshot, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(snapshot, "userDetailsCache", userDetailsCache);
+        ReflectionTestUtils.setField(snapshot, "listenerContainer", new RedisMessageListenerContainer());
+        snapshot.init();
+        return snapshot;
+    }
+
+    /**
+     * 创建不带缓存的用户详情服务，每次调用都访问 userMapper，角色权限快照使用进程内替身
+     *
+     * @param userMapper 用户数据访问层（通常为进程内替身）
+     */
+    public static UserDetailsService userDetailsService(UserMapper userMapper) {
+        return userDetailsService(userMapper, userDetailsCache(null, false));
+    }
+
+    /**
+     * 创建用户详情服务，角色权限快照使用进程内替身
+     *
+     * @param userMapper 用户数据访问层（通常为进程内替身）
+     * @param userDetailsCache 用户详情缓存
+     */
+    public static UserDetailsService userDetailsService(UserMapper userMapper, UserDetailsCache userDetailsCache) {
+        return userDetailsService(userMapper, userDetailsCache, rbacSnapshot(InMemoryRbacMappers.roleMapper(),
+                InMemoryRbacMappers.permissionMapper(), InMemoryRbacMappers.rolePermissionMapper(),
+                tokenStore(), userDetailsCache));
+    }
+
+    /**
+     * 创建用户详情服务
+     *
+     * @param userMapper 用户数据访问层
+     * @param userDetailsCache 用户详情缓存
+     * @param rbacSnapshot 角色权限快照
+     */
+    public static UserDetailsService userDetailsService(UserMapper userMapper, UserDetailsCache userDetailsCache,
+                                                        RbacSnapshot rbacSnapshot) {
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl();
+        ReflectionTestUtils.setField(userDetailsService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userDetailsService, "userDetailsCache", userDetailsCache);
+        ReflectionTestUtils.setField(userDetailsService, "rbacSnapshot", rbacSnapshot);
+        return userDetailsService;
+    }
+
+    /**
+     * 创建JwtService
+     *
+     * @param jwtUtil JWT工具类
+     * @param tokenStore 令牌存储
+     * @param userDetailsService 用户详情服务
+     * @param tokenCache 是否启用已验证令牌缓存
+     */
+    public static JwtService jwtService(JwtUtil jwtUtil, TokenStore tokenStore,
+                                        UserDetailsService userDetailsService, boolean tokenCache) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(jwtService, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(jwtService, "userDetailsService", userDetailsService);
+        VerifiedTokenCache verifiedTokenCache = verifiedTokenCache(tokenCache);
+        ReflectionTestUtils.setField(jwtService, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.setField(jwtService, "revocationFilter", revocationFilter(tokenStore, verifiedTokenCache));
+        ReflectionTestUtils.setField(jwtService, "revocationEpochs", revocationEpochs(tokenStore));
+        ReflectionTestUtils.setField(jwtService, "introspectionExecutor", (Executor) Runnable::run);
+        return jwtService;
+    }
+}
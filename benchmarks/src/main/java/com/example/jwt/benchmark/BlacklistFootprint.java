@@ -0,0 +1,118 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.InMemoryUserMapper;
+import com.example.jwt.config.RedisConfig;
+import com.example.jwt.security.UserDetailsImpl;
+import com.example.jwt.security.ValidatedToken;
+import com.example.jwt.util.JwtUtil;
+import com.example.jwt.util.LocalTokenStore;
+import com.example.jwt.util.RedisCircuitBreaker;
+import com.example.jwt.util.RedisShard;
+import com.example.jwt.util.RedisShardRouter;
+import com.example.jwt.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 黑名单内存占用测量
+ * <p>
+ * 分别以旧格式（完整令牌为键）和新格式（jti为键）写入N个刷新令牌的黑名单条目，
+ * 通过 INFO memory 的 used_memory 差值计算每个吊销令牌占用的Redis内存。
+ * 会写入并清理测试键，请使用独立的Redis库运行：
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.jwt.benchmark.BlacklistFootprint [host] [port] [database] [count]
+ * </pre>
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public final class BlacklistFootprint {
+
+    private static final String LEGACY_PREFIX = "blacklist:token:";
+
+    private BlacklistFootprint() {
+    }
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 6379;
+        int database = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+        int count = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(host, port);
+        configuration.setDatabase(database);
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        try {
+            RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+            RedisUtil redisUtil = new RedisUtil();
+            ReflectionTestUtils.setField(redisUtil, "redisTemplate", redisTemplate);
+            StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+            ReflectionTestUtils.setField(redisUtil, "stringRedisTemplate", stringRedisTemplate);
+            ReflectionTestUtils.setField(redisUtil, "shardRouter", new RedisShardRouter(Collections.singletonList(
+                    new RedisShard("default", stringRedisTemplate, null, null)), 1));
+            // 未注入配置的熔断器处于关闭状态，所有调用直接访问Redis
+            ReflectionTestUtils.setField(redisUtil, "circuitBreaker", new RedisCircuitBreaker());
+            ReflectionTestUtils.setField(redisUtil, "localStore", new LocalTokenStore());
+            ReflectionTestUtils.setField(redisUtil, "meterRegistry", new SimpleMeterRegistry());
+
+            List<ValidatedToken> tokens = refreshTokens(count);
+
+            // 旧格式：完整令牌作为键
+            long before = usedMemory(redisTemplate);
+            List<String> keys = new ArrayList<>(count);
+            for (ValidatedToken token : tokens) {
+                String key = LEGACY_PREFIX + token.getToken();
+                redisTemplate.opsForValue().set(key, "blacklisted",
+                        token.getExpiration() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                keys.add(key);
+            }
+            long legacy = usedMemory(redisTemplate) - before;
+            redisTemplate.delete(keys);
+
+            // 新格式：RedisUtil 以 jti 作为键
+            before = usedMemory(redisTemplate);
+            for (ValidatedToken token : tokens) {
+                redisUtil.addTokenToBlacklist(token.getRevocationId(), token.getExpiration());
+            }
+            long compact = usedMemory(redisTemplate) - before;
+            keys.clear();
+            for (ValidatedToken token : tokens) {
+                keys.add("blacklist:jti:" + token.getRevocationId());
+            }
+            redisTemplate.delete(keys);
+
+            System.out.printf("吊销令牌数: %d，令牌长度: %d%n", count, tokens.get(0).getToken().length());
+            System.out.printf("旧格式（完整令牌）: %d 字节/令牌%n", legacy / count);
+            System.out.printf("新格式（jti）:      %d 字节/令牌%n", compact / count);
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private static List<ValidatedToken> refreshTokens(int count) {
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        UserDetailsImpl userDetails = new UserDetailsImpl(InMemoryUserMapper.user(""),
+                InMemoryUserMapper.roles(), InMemoryUserMapper.permissions());
+        List<ValidatedToken> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tokens.add(jwtUtil.parseToken(jwtUtil.generateRefreshToken(userDetails)));
+        }
+        return tokens;
+    }
+
+    private static long usedMemory(RedisTemplate<String, Object> redisTemplate) {
+        Properties info = redisTemplate.execute(connection -> connection.serverCommands().info("memory"), true);
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.InMemoryUserMapper;
+import com.example.jwt.config.RedisConfig;
+import com.example.jwt.security.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis值序列化基准测试
+ * <p>
+ * 对比通用模板（Jackson + 默认类型信息）与令牌存储专用模板（原始字符串 / 十进制数值）
+ * 对一次写入加一次读取的序列化开销。运行 main 方法可输出各类值序列化后的字节数。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisSerializationBenchmark {
+
+    @Param({"blacklistMarker", "refreshToken", "failCount"})
+    private String valueType;
+
+    private RedisSerializer<Object> jackson;
+
+    private RedisSerializer<Object> compact;
+
+    private Object value;
+
+    @Setup
+    public void setup() {
+        jackson = jacksonSerializer();
+        compact = compactSerializer(valueType);
+        value = sampleValue(valueType);
+    }
+
+    @Benchmark
+    public Object jackson() {
+        return jackson.deserialize(jackson.serialize(value));
+    }
+
+    @Benchmark
+    public Object compact() {
+        return compact.deserialize(compact.serialize(value));
+    }
+
+    /**
+     * 输出各类值在两种序列化方式下的字节数
+     */
+    public static void main(String[] args) {
+        RedisSerializer<Object> jackson = jacksonSerializer();
+        for (String valueType : new String[]{"blacklistMarker", "refreshToken", "failCount"}) {
+            Object value = sampleValue(valueType);
+            System.out.printf("%-16s Jackson: %4d 字节，专用模板: %4d 字节%n", valueType,
+                    jackson.serialize(value).length, compactSerializer(valueType).serialize(value).length);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisSerializer<Object> jacksonSerializer() {
+        return (RedisSerializer<Object>) new RedisConfig()
+                .redisTemplate(new LettuceConnectionFactory())
+                .getValueSerializer();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RedisSerializer<Object> compactSerializer(String valueType) {
+        if ("failCount".equals(valueType)) {
+            return (RedisSerializer) new GenericToStringSerializer<>(Long.class);
+        }
+        return (RedisSerializer) new StringRedisSerializer();
+    }
+
+    private static Object sampleValue(String valueType) {
+        switch (valueType) {
+            case "blacklistMarker":
+                return "1";
+            case "refreshToken":
+                return BenchmarkFixtures.jwtUtil().generateRefreshToken(new UserDetailsImpl(
+                        InMemoryUserMapper.user(""), InMemoryUserMapper.roles(), InMemoryUserMapper.permissions()));
+            default:
+                return 3L;
+        }
+    }
+}
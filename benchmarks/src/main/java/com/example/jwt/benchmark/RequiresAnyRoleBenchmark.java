@@ -0,0 +1,149 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.InMemoryUserMapper;
+import com.example.jwt.security.AuthorityMethodSecurityExpressionHandler;
+import com.example.jwt.security.AuthorityPermissionEvaluator;
+import com.example.jwt.security.RequiresAnyRole;
+import com.example.jwt.security.RequiresAnyRoleInterceptor;
+import com.example.jwt.security.UserDetailsImpl;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.ExpressionBasedAnnotationAttributeFactory;
+import org.springframework.security.access.expression.method.ExpressionBasedPreInvocationAdvice;
+import org.springframework.security.access.method.DelegatingMethodSecurityMetadataSource;
+import org.springframework.security.access.method.MethodSecurityMetadataSource;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.prepost.PreInvocationAttribute;
+import org.springframework.security.access.prepost.PrePostAnnotationSecurityMetadataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方法授权每次调用开销基准测试
+ * <p>
+ * 按 PreInvocationAuthorizationAdviceVoter 的流程模拟一次 {@code @PreAuthorize} 判断：从元数据源取已解析的表达式，
+ * 创建求值上下文和表达式根对象，再求值 {@code hasRole('USER') or hasRole('ADMIN')}。
+ * spelDefault* 使用 Spring Security 默认的表达式处理器，spelAuthority* 使用 SecurityConfig 中配置的
+ * AuthorityMethodSecurityExpressionHandler，requiresAnyRole* 调用 RequiresAnyRoleInterceptor.preHandle
+ * 执行启动时编译好的检查。每次判断的分配字节数用 {@code -prof gc} 查看 gc.alloc.rate.norm。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequiresAnyRoleBenchmark {
+
+    private Authentication authentication;
+
+    private MethodInvocation invocation;
+
+    private MethodSecurityMetadataSource defaultMetadataSource;
+
+    private ExpressionBasedPreInvocationAdvice defaultAdvice;
+
+    private MethodSecurityMetadataSource authorityMetadataSource;
+
+    private ExpressionBasedPreInvocationAdvice authorityAdvice;
+
+    private RequiresAnyRoleInterceptor interceptor;
+
+    private HandlerMethod handlerMethod;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        UserDetailsImpl userDetails = new UserDetailsImpl(InMemoryUserMapper.user(""),
+                InMemoryUserMapper.roles(), InMemoryUserMapper.permissions());
+        authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        Endpoints endpoints = new Endpoints();
+        invocation = new SimpleMethodInvocation(endpoints, Endpoints.class.getMethod("spel"));
+
+        DefaultMethodSecurityExpressionHandler defaultHandler = new DefaultMethodSecurityExpressionHandler();
+        defaultMetadataSource = metadataSource(defaultHandler);
+        defaultAdvice = new ExpressionBasedPreInvocationAdvice();
+        defaultAdvice.setExpressionHandler(defaultHandler);
+
+        AuthorityMethodSecurityExpressionHandler authorityHandler = new AuthorityMethodSecurityExpressionHandler();
+        authorityHandler.setPermissionEvaluator(new AuthorityPermissionEvaluator());
+        authorityMetadataSource = metadataSource(authorityHandler);
+        authorityAdvice = new ExpressionBasedPreInvocationAdvice();
+        authorityAdvice.setExpressionHandler(authorityHandler);
+
+        interceptor = new RequiresAnyRoleInterceptor();
+        handlerMethod = new HandlerMethod(endpoints, Endpoints.class.getMethod("requiresAnyRole"));
+        request = new MockHttpServletRequest("GET", "/user/profile");
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public boolean spelDefault() {
+        return authorize(defaultMetadataSource, defaultAdvice);
+    }
+
+    @Benchmark
+    public boolean spelAuthority() {
+        return authorize(authorityMetadataSource, authorityAdvice);
+    }
+
+    @Benchmark
+    public boolean requiresAnyRole() {
+        return interceptor.preHandle(request, response, handlerMethod);
+    }
+
+    private boolean authorize(MethodSecurityMetadataSource metadataSource, ExpressionBasedPreInvocationAdvice advice) {
+        for (ConfigAttribute attribute : metadataSource.getAttributes(invocation)) {
+            if (attribute instanceof PreInvocationAttribute) {
+                return advice.before(SecurityContextHolder.getContext().getAuthentication(), invocation,
+                        (PreInvocationAttribute) attribute);
+            }
+        }
+        return true;
+    }
+
+    private static MethodSecurityMetadataSource metadataSource(DefaultMethodSecurityExpressionHandler handler) {
+        // 与 GlobalMethodSecurityConfiguration 一样套一层带缓存的 DelegatingMethodSecurityMetadataSource
+        return new DelegatingMethodSecurityMetadataSource(Collections.singletonList(
+                new PrePostAnnotationSecurityMetadataSource(new ExpressionBasedAnnotationAttributeFactory(handler))));
+    }
+
+    /**
+     * 与 UserController.getProfile 授权规则相同的两个端点
+     */
+    public static class Endpoints {
+
+        @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+        public String spel() {
+            return "ok";
+        }
+
+        @RequiresAnyRole({"USER", "ADMIN"})
+        public String requiresAnyRole() {
+            return "ok";
+        }
+    }
+}
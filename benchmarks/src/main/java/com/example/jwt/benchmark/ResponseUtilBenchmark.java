@@ -0,0 +1,41 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.dto.ApiResponse;
+import com.example.jwt.util.ResponseUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON错误响应写出基准测试
+ * <p>
+ * 对应认证入口点和访问拒绝处理器中的 ResponseUtil.writeJsonResponse，
+ * 响应对象使用 spring-test 的 MockHttpServletResponse。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseUtilBenchmark {
+
+    private ApiResponse<Object> apiResponse;
+
+    @Setup
+    public void setup() {
+        apiResponse = ApiResponse.error(401, "未授权访问，请先登录");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse writeJsonResponse() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseUtil.writeJsonResponse(response, HttpStatus.UNAUTHORIZED, apiResponse);
+        return response;
+    }
+}
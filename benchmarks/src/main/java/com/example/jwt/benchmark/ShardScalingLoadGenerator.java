@@ -0,0 +1,148 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.StandInRedis;
+import com.example.jwt.util.ConsistentHashRing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 令牌存储分片的吞吐扩展测试
+ * <p>
+ * 以进程内的单线程 Redis 替身代替真实实例，分别用 1、2、4… 个分片运行相同的混合负载
+ * （黑名单检查、刷新token读取、登录写入、失败计数），键经与应用相同的 ConsistentHashRing 路由，
+ * 输出吞吐、相对单分片的加速比和各分片的负载偏差；最后输出分片数从 N 增加到 N+1 时迁移的键比例。
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.jwt.benchmark.ShardScalingLoadGenerator [maxShards] [clients] [seconds] [serviceMicros]
+ * </pre>
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public final class ShardScalingLoadGenerator {
+
+    private static final int VIRTUAL_NODES = 160;
+
+    private static final int USERS = 10000;
+
+    private static final int SAMPLE_KEYS = 100000;
+
+    private ShardScalingLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxShards = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        long serviceMicros = args.length > 3 ? Long.parseLong(args[3]) : 50;
+
+        System.out.printf("客户端线程: %d, 每轮时长: %ds, 单条命令服务时间: %dµs%n", clients, seconds, serviceMicros);
+        System.out.printf("%-8s%14s%10s%12s%n", "分片数", "ops/s", "加速比", "负载偏差");
+        double baseline = 0;
+        for (int shardCount = 1; shardCount <= maxShards; shardCount *= 2) {
+            List<StandInRedis> shards = new ArrayList<>();
+            Map<String, StandInRedis> nodes = new LinkedHashMap<>();
+            for (int i = 0; i < shardCount; i++) {
+                StandInRedis shard = new StandInRedis("127.0.0.1:" + (6379 + i) + "/0", serviceMicros);
+                shards.add(shard);
+                nodes.put(shard.getName(), shard);
+            }
+            ConsistentHashRing<StandInRedis> ring = new ConsistentHashRing<>(nodes, VIRTUAL_NODES);
+            try {
+                // 预热一秒，不计入结果
+                run(ring, clients, 1);
+                long before = totalCommands(shards);
+                long[] perShardBefore = shards.stream().mapToLong(StandInRedis::getCommands).toArray();
+                long ops = run(ring, clients, seconds);
+                double throughput = (double) ops / seconds;
+                if (shardCount == 1) {
+                    baseline = throughput;
+                }
+                long executed = totalCommands(shards) - before;
+                long max = 0;
+                for (int i = 0; i < shards.size(); i++) {
+                    max = Math.max(max, shards.get(i).getCommands() - perShardBefore[i]);
+                }
+                double skew = executed > 0 ? (double) max * shardCount / executed - 1 : 0;
+                System.out.printf("%-8d%14.0f%10.2f%11.1f%%%n", shardCount, throughput, throughput / baseline, skew * 100);
+            } finally {
+                shards.forEach(StandInRedis::close);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-12s%12s%12s%n", "分片变化", "迁移比例", "理论值");
+        for (int shardCount = 1; shardCount < maxShards; shardCount++) {
+            ConsistentHashRing<String> from = namesRing(shardCount);
+            ConsistentHashRing<String> to = namesRing(shardCount + 1);
+            int moved = 0;
+            for (int i = 0; i < SAMPLE_KEYS; i++) {
+                String key = "user-" + i;
+                if (!from.get(key).equals(to.get(key))) {
+                    moved++;
+                }
+            }
+            System.out.printf("%-12s%11.1f%%%11.1f%%%n", shardCount + " -> " + (shardCount + 1),
+                    moved * 100.0 / SAMPLE_KEYS, 100.0 / (shardCount + 1));
+        }
+    }
+
+    /**
+     * 运行混合负载，返回完成的操作数
+     */
+    private static long run(ConsistentHashRing<StandInRedis> ring, int clients, int seconds) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            Thread client = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    String username = "user-" + random.nextInt(USERS);
+                    int kind = random.nextInt(10);
+                    if (kind < 4) {
+                        String tokenId = Long.toHexString(random.nextLong());
+                        ring.get(tokenId).execute(data -> data.containsKey("blacklist:jti:" + tokenId) ? "1" : null);
+                    } else if (kind < 7) {
+                        ring.get(username).execute(data -> data.get("refresh_token:" + username));
+                    } else if (kind < 9) {
+                        String refreshToken = Long.toHexString(random.nextLong());
+                        ring.get(username).execute(data -> data.put("refresh_token:" + username, refreshToken));
+                    } else {
+                        ring.get(username).execute(data -> data.merge("login_fail:" + username, "1",
+                                (old, one) -> String.valueOf(Long.parseLong(old) + 1)));
+                    }
+                    ops.increment();
+                }
+                done.countDown();
+            }, "load-client-" + c);
+            client.setDaemon(true);
+            client.start();
+        }
+        TimeUnit.SECONDS.sleep(seconds);
+        long completed = ops.sum();
+        running.set(false);
+        done.await();
+        return completed;
+    }
+
+    private static long totalCommands(List<StandInRedis> shards) {
+        return shards.stream().mapToLong(StandInRedis::getCommands).sum();
+    }
+
+    private static ConsistentHashRing<String> namesRing(int shardCount) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < shardCount; i++) {
+            String name = "127.0.0.1:" + (6379 + i) + "/0";
+            nodes.put(name, name);
+        }
+        return new ConsistentHashRing<>(nodes, VIRTUAL_NODES);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.security.ValidatedToken;
+import com.example.jwt.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名算法基准测试
+ * <p>
+ * 对比 HS256 与 ES256 的签发和验证开销。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningAlgorithmBenchmark {
+
+    @Param({"HS256", "ES256"})
+    private String algorithm;
+
+    private JwtUtil jwtUtil;
+
+    private UserDetails userDetails;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = BenchmarkFixtures.jwtUtil(BenchmarkFixtures.keyRing(algorithm), null);
+        userDetails = new User("admin", "", Collections.emptyList());
+        token = jwtUtil.generateAccessTokenWithUserId(userDetails, 1L);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateAccessTokenWithUserId(userDetails, 1L);
+    }
+
+    @Benchmark
+    public ValidatedToken verify() {
+        return jwtUtil.parseToken(token);
+    }
+}
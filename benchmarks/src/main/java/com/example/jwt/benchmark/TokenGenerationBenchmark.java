@@ -0,0 +1,41 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.InMemoryUserMapper;
+import com.example.jwt.security.UserDetailsImpl;
+import com.example.jwt.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问令牌签发基准测试
+ * <p>
+ * 对应登录和刷新接口中的 JwtUtil.generateAccessTokenWithUserId。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenGenerationBenchmark {
+
+    private JwtUtil jwtUtil;
+
+    private UserDetailsImpl userDetails;
+
+    @Setup
+    public void setup() {
+        jwtUtil = BenchmarkFixtures.jwtUtil();
+        userDetails = new UserDetailsImpl(InMemoryUserMapper.user(""),
+                InMemoryUserMapper.roles(), InMemoryUserMapper.permissions());
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateAccessTokenWithUserId(userDetails, InMemoryUserMapper.USER_ID);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.security.JwtKeyRing;
+import com.example.jwt.security.ValidatedToken;
+import com.example.jwt.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌验证引擎基准测试
+ * <p>
+ * 对比 jjwt 完整解析与紧凑型 HS256 引擎，配合 -prof gc 查看每次验证的内存分配：
+ * <pre>
+ * java -jar target/benchmarks.jar TokenVerifierBenchmark -prof gc
+ * </pre>
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerifierBenchmark {
+
+    private JwtUtil jjwtEngine;
+
+    private JwtUtil compactEngine;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtKeyRing keyRing = BenchmarkFixtures.keyRing();
+        jjwtEngine = BenchmarkFixtures.jwtUtil(keyRing, null);
+        compactEngine = BenchmarkFixtures.jwtUtil(keyRing, BenchmarkFixtures.compactVerifier(keyRing));
+        token = jjwtEngine.generateAccessTokenWithUserId(
+                new User("admin", "", Collections.emptyList()), 1L);
+    }
+
+    @Benchmark
+    public ValidatedToken jjwt() {
+        return jjwtEngine.parseToken(token);
+    }
+
+    @Benchmark
+    public ValidatedToken compactHs256() {
+        return compactEngine.parseToken(token);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.jwt.benchmark;
+
+import com.example.jwt.benchmark.support.InMemoryUserMapper;
+import com.example.jwt.security.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户详情加载基准测试
+ * <p>
+ * 过滤器每个请求都会加载用户详情并调用 getAuthorities。MyBatis 由进程内替身代替，
+ * 结果只反映对象组装和权限列表构建的开销，不包含数据库往返；loadUserByUsernameCached 为用户详情缓存命中的开销。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsBenchmark {
+
+    private UserDetailsService userDetailsService;
+
+    private UserDetailsService cachedUserDetailsService;
+
+    private UserDetailsImpl userDetails;
+
+    @Setup
+    public void setup() {
+        userDetailsService = BenchmarkFixtures.userDetailsService(InMemoryUserMapper.create(""));
+        cachedUserDetailsService = BenchmarkFixtures.userDetailsService(InMemoryUserMapper.create(""),
+                BenchmarkFixtures.userDetailsCache(BenchmarkFixtures.tokenStore(), true));
+        userDetails = new UserDetailsImpl(InMemoryUserMapper.user(""),
+                InMemoryUserMapper.roles(), InMemoryUserMapper.permissions());
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userDetails.getAuthorities();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername(InMemoryUserMapper.USERNAME);
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsernameCached() {
+        return cachedUserDetailsService.loadUserByUsername(InMemoryUserMapper.USERNAME);
+    }
+}
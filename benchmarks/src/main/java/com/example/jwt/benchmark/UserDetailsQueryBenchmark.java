@@ -0,0 +1,139 @@
+package com.example.jwt.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.example.jwt.entity.Permission;
+import com.example.jwt.entity.Role;
+import com.example.jwt.entity.User;
+import com.example.jwt.mapper.PermissionMapper;
+import com.example.jwt.mapper.RoleMapper;
+import com.example.jwt.mapper.RolePermissionMapper;
+import com.example.jwt.mapper.UserMapper;
+import com.example.jwt.security.RbacSnapshot;
+import com.example.jwt.security.UserDetailsCache;
+import com.example.jwt.security.UserDetailsImpl;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户详情数据库加载基准测试
+ * <p>
+ * 对比原来的三次查询（用户、角色、权限）与现在的单次查询（用户及角色ID，角色权限从 RbacSnapshot 解析）。
+ * 与应用一致，每次 Mapper 调用都从 Hikari 连接池借用一个连接；客户端线程数多于连接数，
+ * 连接池处于争用状态，结果包含等待连接的时间。
+ * <p>
+ * 默认使用 H2 内存库（MySQL模式），可通过 -Dbench.jdbc.url / -Dbench.jdbc.username / -Dbench.jdbc.password
+ * 指向已执行 sql/jwt_demo.sql 的 MySQL，此时网络往返次数的差别才能完整体现。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class UserDetailsQueryBenchmark {
+
+    private static final String USERNAME = "admin";
+
+    private static final String H2_URL =
+            "jdbc:h2:mem:userdetails;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+
+    /**
+     * 连接池大小
+     */
+    @Param({"4", "16"})
+    private int poolSize;
+
+    private HikariDataSource dataSource;
+
+    private UserMapper userMapper;
+
+    private UserDetailsService userDetailsService;
+
+    @Setup
+    public void setup() throws Exception {
+        String url = System.getProperty("bench.jdbc.url", H2_URL);
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("bench.jdbc.username", "sa"));
+        config.setPassword(System.getProperty("bench.jdbc.password", ""));
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setPoolName("UserDetailsQueryBenchmark");
+        dataSource = new HikariDataSource(config);
+        if (H2_URL.equals(url)) {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                    new ClassPathResource("userdetails-schema.sql"));
+            populator.setSqlScriptEncoding("UTF-8");
+            populator.execute(dataSource);
+        }
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:/mapper/*.xml"));
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        sqlSessionFactory.getConfiguration().addMapper(PermissionMapper.class);
+        sqlSessionFactory.getConfiguration().addMapper(RolePermissionMapper.class);
+        // 不开启事务时 SqlSessionTemplate 每次调用单独借还连接，与应用中的行为一致
+        SqlSessionTemplate sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory);
+        userMapper = sqlSessionTemplate.getMapper(UserMapper.class);
+        UserDetailsCache userDetailsCache = BenchmarkFixtures.userDetailsCache(null, false);
+        RbacSnapshot rbacSnapshot = BenchmarkFixtures.rbacSnapshot(sqlSessionTemplate.getMapper(RoleMapper.class),
+                sqlSessionTemplate.getMapper(PermissionMapper.class),
+                sqlSessionTemplate.getMapper(RolePermissionMapper.class),
+                BenchmarkFixtures.tokenStore(), userDetailsCache);
+        userDetailsService = BenchmarkFixtures.userDetailsService(userMapper, userDetailsCache, rbacSnapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        if (H2_URL.equals(dataSource.getJdbcUrl())) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+        }
+        dataSource.close();
+    }
+
+    /**
+     * 原实现：用户、角色、权限分三次查询
+     */
+    @Benchmark
+    public UserDetails threeQueries() {
+        User user = userMapper.findByUsername(USERNAME);
+        List<Role> roles = userMapper.findRolesByUserId(user.getId());
+        List<Permission> permissions = userMapper.findPermissionsByUserId(user.getId());
+        return new UserDetailsImpl(user, roles, permissions);
+    }
+
+    /**
+     * 现实现：UserDetailsServiceImpl 单次查询（缓存关闭）
+     */
+    @Benchmark
+    public UserDetails singleQuery() {
+        return userDetailsService.loadUserByUsername(USERNAME);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.jwt.benchmark.support;
+
+import com.example.jwt.entity.RolePermission;
+import com.example.jwt.mapper.PermissionMapper;
+import com.example.jwt.mapper.RoleMapper;
+import com.example.jwt.mapper.RolePermissionMapper;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 进程内的角色、权限、角色权限 Mapper 替身
+ * <p>
+ * 按 sql/jwt_demo.sql 的初始化数据返回：ADMIN（1）拥有全部权限，USER（2）拥有权限 1~3，
+ * 只实现 RbacSnapshot 加载用到的查询，其余方法抛出 UnsupportedOperationException。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public final class InMemoryRbacMappers {
+
+    private static final long[][] ROLE_PERMISSIONS = {
+            {1L, 1L, 2L, 3L, 4L, 5L, 6L, 7L},
+            {2L, 1L, 2L, 3L}
+    };
+
+    private InMemoryRbacMappers() {
+    }
+
+    public static RoleMapper roleMapper() {
+        return proxy(RoleMapper.class, "findAllRoles", InMemoryUserMapper.roles());
+    }
+
+    public static PermissionMapper permissionMapper() {
+        return proxy(PermissionMapper.class, "findAllPermissions", InMemoryUserMapper.permissions());
+    }
+
+    public static RolePermissionMapper rolePermissionMapper() {
+        List<RolePermission> rolePermissions = new ArrayList<>();
+        for (long[] row : ROLE_PERMISSIONS) {
+            for (int i = 1; i < row.length; i++) {
+                RolePermission rolePermission = new RolePermission();
+                rolePermission.setRoleId(row[0]);
+                rolePermission.setPermissionId(row[i]);
+                rolePermissions.add(rolePermission);
+            }
+        }
+        return proxy(RolePermissionMapper.class, "findAllRolePermissions", rolePermissions);
+    }
+
+    private static <T> T proxy(Class<T> type, String query, Object result) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals(query)) {
+                        return result;
+                    }
+                    switch (method.getName()) {
+                        case "toString":
+                            return "InMemory" + type.getSimpleName();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }));
+    }
+}
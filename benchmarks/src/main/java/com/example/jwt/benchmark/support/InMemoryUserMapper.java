@@ -0,0 +1,125 @@
+package com.example.jwt.benchmark.support;
+
+import com.example.jwt.entity.Permission;
+import com.example.jwt.entity.Role;
+import com.example.jwt.entity.User;
+import com.example.jwt.mapper.UserMapper;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 进程内的 UserMapper 替身
+ * <p>
+ * 按 sql/jwt_demo.sql 的初始化数据返回 admin 用户及其角色和权限（角色ID 1、2 对应 InMemoryRbacMappers），
+ * 只实现用户详情加载用到的查询，其余方法抛出 UnsupportedOperationException。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public final class InMemoryUserMapper {
+
+    public static final String USERNAME = "admin";
+
+    public static final long USER_ID = 1L;
+
+    private static final String[][] PERMISSIONS = {
+            {"user:read", "/user/profile", "GET"},
+            {"user:update", "/user/profile", "PUT"},
+            {"user:password", "/user/password", "PUT"},
+            {"admin:user:list", "/user/admin/users", "GET"},
+            {"admin:user:create", "/user/admin/users", "POST"},
+            {"admin:user:update", "/user/admin/users/*", "PUT"},
+            {"admin:user:delete", "/user/admin/users/*", "DELETE"}
+    };
+
+    private InMemoryUserMapper() {
+    }
+
+    /**
+     * 创建 UserMapper 替身
+     *
+     * @param passwordHash admin 用户的密码哈希
+     */
+    public static UserMapper create(String passwordHash) {
+        User user = user(passwordHash);
+        List<Role> roles = roles();
+        List<Permission> permissions = permissions();
+        User userWithRoleIds = user(passwordHash);
+        userWithRoleIds.setRoleIds(Arrays.asList(1L, 2L));
+        return (UserMapper) Proxy.newProxyInstance(
+                UserMapper.class.getClassLoader(),
+                new Class<?>[]{UserMapper.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByUsername":
+                            return USERNAME.equals(args[0]) ? user : null;
+                        case "findByUsernameWithRoleIds":
+                            return USERNAME.equals(args[0]) ? userWithRoleIds : null;
+                        case "findRolesByUserId":
+                            return USER_ID == (Long) args[0] ? roles : Collections.emptyList();
+                        case "findPermissionsByUserId":
+                            return USER_ID == (Long) args[0] ? permissions : Collections.emptyList();
+                        case "toString":
+                            return "InMemoryUserMapper";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * admin 用户
+     */
+    public static User user(String passwordHash) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setUsername(USERNAME);
+        user.setPassword(passwordHash);
+        user.setEmail("admin@example.com");
+        user.setStatus(1);
+        user.setLoginFailCount(0);
+        user.setDeleted(0);
+        return user;
+    }
+
+    /**
+     * admin 用户的角色
+     */
+    public static List<Role> roles() {
+        List<Role> roles = new ArrayList<>();
+        String[] names = {"ADMIN", "USER"};
+        for (int i = 0; i < names.length; i++) {
+            Role role = new Role();
+            role.setId((long) (i + 1));
+            role.setRoleName(names[i]);
+            role.setDeleted(0);
+            roles.add(role);
+        }
+        return roles;
+    }
+
+    /**
+     * admin 用户的权限（全部权限）
+     */
+    public static List<Permission> permissions() {
+        List<Permission> permissions = new ArrayList<>();
+        for (int i = 0; i < PERMISSIONS.length; i++) {
+            Permission permission = new Permission();
+            permission.setId((long) (i + 1));
+            permission.setPermissionName(PERMISSIONS[i][0]);
+            permission.setUrl(PERMISSIONS[i][1]);
+            permission.setMethod(PERMISSIONS[i][2]);
+            permission.setDeleted(0);
+            permissions.add(permission);
+        }
+        return Collections.unmodifiableList(permissions);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.jwt.benchmark.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 进程内的单实例 Redis 替身
+ * <p>
+ * 与 Redis 一样由单个线程串行执行命令，每条命令额外占用固定的服务时间，
+ * 因此单个实例的吞吐上限约为 1 / 服务时间，与CPU核数无关。
+ * 服务时间用 parkNanos 模拟，实际值受系统定时器精度影响（Linux 上通常为几十微秒）。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public final class StandInRedis implements AutoCloseable {
+
+    private final String name;
+
+    private final long serviceNanos;
+
+    private final ExecutorService worker;
+
+    /**
+     * 只由工作线程访问
+     */
+    private final Map<String, String> data = new HashMap<>();
+
+    private final AtomicLong commands = new AtomicLong();
+
+    public StandInRedis(String name, long serviceMicros) {
+        this.name = name;
+        this.serviceNanos = TimeUnit.MICROSECONDS.toNanos(serviceMicros);
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 同步执行一条命令（客户端等待一次往返）
+     */
+    public String execute(Function<Map<String, String>, String> command) {
+        Future<String> future = worker.submit(() -> {
+            long deadline = System.nanoTime() + serviceNanos;
+            String result = command.apply(data);
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+            commands.incrementAndGet();
+            return result;
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 已执行的命令数
+     */
+    public long getCommands() {
+        return commands.get();
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+-- UserDetailsQueryBenchmark 使用的 H2 内存库（MySQL模式），表结构和初始化数据与 sql/jwt_demo.sql 一致
+
+CREATE TABLE user (
+  id bigint NOT NULL PRIMARY KEY,
+  username varchar(50) NOT NULL UNIQUE,
+  password varchar(100) NOT NULL,
+  email varchar(100) NOT NULL UNIQUE,
+  status tinyint NOT NULL DEFAULT 1,
+  login_fail_count int NOT NULL DEFAULT 0,
+  lock_time datetime DEFAULT NULL,
+  created_time datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_time datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  deleted tinyint NOT NULL DEFAULT 0
+);
+
+CREATE TABLE role (
+  id bigint NOT NULL PRIMARY KEY,
+  role_name varchar(50) NOT NULL UNIQUE,
+  description varchar(200) DEFAULT NULL,
+  created_time datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_time datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  deleted tinyint NOT NULL DEFAULT 0
+);
+
+CREATE TABLE permission (
+  id bigint NOT NULL PRIMARY KEY,
+  permission_name varchar(100) NOT NULL UNIQUE,
+  url varchar(200) DEFAULT NULL,
+  method varchar(10) DEFAULT NULL,
+  description varchar(200) DEFAULT NULL,
+  created_time datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_time datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  deleted tinyint NOT NULL DEFAULT 0
+);
+
+CREATE TABLE user_role (
+  id bigint NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  user_id bigint NOT NULL,
+  role_id bigint NOT NULL,
+  created_time datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT uk_user_role UNIQUE (user_id, role_id)
+);
+CREATE INDEX idx_user_role_role_id ON user_role (role_id);
+
+CREATE TABLE role_permission (
+  id bigint NOT NULL PRIMARY KEY,
+  role_id bigint NOT NULL,
+  permission_id bigint NOT NULL,
+  created_time datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT uk_role_permission UNIQUE (role_id, permission_id)
+);
+CREATE INDEX idx_role_permission_permission_id ON role_permission (permission_id);
+
+INSERT INTO role (id, role_name, description) VALUES
+(1, 'ADMIN', '管理员角色'),
+(2, 'USER', '普通用户角色');
+
+INSERT INTO permission (id, permission_name, url, method, description) VALUES
+(1, 'user:read', '/user/profile', 'GET', '查看用户信息'),
+(2, 'user:update', '/user/profile', 'PUT', '更新用户信息'),
+(3, 'user:password', '/user/password', 'PUT', '修改密码'),
+(4, 'admin:user:list', '/user/admin/users', 'GET', '查看所有用户'),
+(5, 'admin:user:create', '/user/admin/users', 'POST', '创建用户'),
+(6, 'admin:user:update', '/user/admin/users/*', 'PUT', '更新用户'),
+(7, 'admin:user:delete', '/user/admin/users/*', 'DELETE', '删除用户');
+
+INSERT INTO role_permission (id, role_id, permission_id) VALUES
+(1, 2, 1), (2, 2, 2), (3, 2, 3),
+(4, 1, 1), (5, 1, 2), (6, 1, 3), (7, 1, 4), (8, 1, 5), (9, 1, 6), (10, 1, 7);
+
+INSERT INTO user (id, username, password, email, status) VALUES
+(1, 'admin', '$2a$10$DowJonesIndexCryptHashForAdmin123PasswordWithUpperCase', 'admin@example.com', 1),
+(2, 'user', '$2a$10$DowJonesIndexCryptHashForUser123PasswordWithUpperCase', 'user@example.com', 1);
+
+INSERT INTO user_role (id, user_id, role_id) VALUES
+(1, 1, 1),
+(2, 2, 2);
@@ -0,0 +1,61 @@
+package com.example.jwt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池与定时任务配置类
+ * 
+ * @author example
+ * @since 2024-01-01
+ */
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    /**
+     * 批量令牌校验线程池
+     * <p>
+     * 线程数和队列长度都有上限，队列满时由调用线程自己执行，形成自然的背压。
+     */
+    @Bean
+    public ThreadPoolTaskExecutor introspectionExecutor(
+            @Value("${jwt.introspection.pool-size:0}") int poolSize,
+            @Value("${jwt.introspection.queue-capacity:1000}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("introspect-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 密码哈希线程池
+     * <p>
+     * BCrypt 校验和编码在这里执行，占用的CPU核数不超过线程数，登录高峰时其余接口仍有CPU可用。
+     * 队列满时直接拒绝（TaskRejectedException），由 BoundedPasswordEncoder 转为503。
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${jwt.password-hashing.pool-size:0}") int poolSize,
+            @Value("${jwt.password-hashing.queue-capacity:64}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,15 +1,35 @@
 package com.example.jwt.config;
 
+import com.example.jwt.util.RedisShard;
+import com.example.jwt.util.RedisShardRouter;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import io.lettuce.core.RedisURI;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Redis配置类
@@ -20,6 +40,11 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Configuration
 public class RedisConfig {
 
+    /**
+     * 默认连接作为分片时的名称，也用于 previous-shards 中表示未分片时的默认连接
+     */
+    private static final String DEFAULT_SHARD = "default";
+
     /**
      * RedisTemplate配置
      */
@@ -50,4 +75,115 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * 字符串模板：刷新令牌、黑名单标记等值按原始字节存储，不经过Jackson
+     */
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(connectionFactory);
+    }
+
+    /**
+     * 数值模板：吊销纪元、失败计数等值按十进制字符串存储，可直接用于 INCR
+     */
+    @Bean
+    public RedisTemplate<String, Long> longRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return longTemplate(connectionFactory);
+    }
+
+    /**
+     * 令牌存储分片路由
+     * <p>
+     * 未配置 jwt.token-store.shards 时只有一个分片，使用默认连接；
+     * 配置后令牌数据按一致性哈希分布到各分片，默认连接仍用于发布订阅和通用缓存。
+     * <p>
+     * 变更分片列表时把变更前的列表配置在 jwt.token-store.previous-shards（未分片时写 default），
+     * 迁移窗口内读取未命中会回读原分片。
+     */
+    @Bean
+    public RedisShardRouter redisShardRouter(@Value("${jwt.token-store.shards:}") String shardUris,
+                                             @Value("${jwt.token-store.previous-shards:}") String previousShardUris,
+                                             @Value("${jwt.token-store.virtual-nodes:160}") int virtualNodes,
+                                             RedisProperties redisProperties,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             RedisTemplate<String, Long> longRedisTemplate) {
+        RedisShard defaultShard = new RedisShard(DEFAULT_SHARD, stringRedisTemplate, longRedisTemplate, null);
+        Map<String, RedisShard> created = new HashMap<>();
+        try {
+            List<RedisShard> shards = shards(shardUris, defaultShard, created, redisProperties.getTimeout());
+            if (shards.isEmpty()) {
+                shards = Collections.singletonList(defaultShard);
+            }
+            List<RedisShard> previousShards = shards(previousShardUris, defaultShard, created, redisProperties.getTimeout());
+            // 路由创建后由其 destroy() 关闭分片连接
+            return new RedisShardRouter(shards, previousShards, virtualNodes);
+        } catch (RuntimeException e) {
+            // 配置错误时路由不会注册为Bean，关闭已创建的分片连接
+            RedisShardRouter.destroy(created.values());
+            throw e;
+        }
+    }
+
+    /**
+     * Redis消息监听容器（订阅令牌吊销等通知）
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    private static RedisTemplate<String, Long> longTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Long> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new GenericToStringSerializer<>(Long.class));
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * 解析逗号分隔的分片列表，default 表示默认连接；同一地址在当前和变更前的列表中共用一个分片实例
+     */
+    private static List<RedisShard> shards(String uris, RedisShard defaultShard, Map<String, RedisShard> created,
+                                           Duration timeout) {
+        List<RedisShard> shards = new ArrayList<>();
+        for (String uri : StringUtils.commaDelimitedListToStringArray(uris)) {
+            if (!StringUtils.hasText(uri)) {
+                continue;
+            }
+            if (DEFAULT_SHARD.equals(uri.trim())) {
+                shards.add(defaultShard);
+                continue;
+            }
+            RedisURI redisUri = RedisURI.create(uri.trim());
+            shards.add(created.computeIfAbsent(shardName(redisUri), name -> shard(redisUri, timeout)));
+        }
+        return shards;
+    }
+
+    private static String shardName(RedisURI redisUri) {
+        return redisUri.getHost() + ":" + redisUri.getPort() + "/" + redisUri.getDatabase();
+    }
+
+    /**
+     * 按 redis://[password@]host:port[/database] 创建分片，命令超时与默认连接一致
+     */
+    private static RedisShard shard(RedisURI redisUri, Duration timeout) {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(redisUri.getHost(), redisUri.getPort());
+        configuration.setDatabase(redisUri.getDatabase());
+        if (redisUri.getPassword() != null) {
+            configuration.setPassword(RedisPassword.of(redisUri.getPassword()));
+        }
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder client = LettuceClientConfiguration.builder();
+        if (timeout != null) {
+            client.commandTimeout(timeout);
+        }
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(configuration, client.build());
+        connectionFactory.afterPropertiesSet();
+        return new RedisShard(shardName(redisUri), new StringRedisTemplate(connectionFactory),
+                longTemplate(connectionFactory), connectionFactory);
+    }
+}
@@ -1,11 +1,21 @@
 package com.example.jwt.config;
 
+import com.example.jwt.security.AuthorityMethodSecurityExpressionHandler;
+import com.example.jwt.security.AuthorityPermissionEvaluator;
+import com.example.jwt.security.BoundedPasswordEncoder;
 import com.example.jwt.security.JwtAuthenticationFilter;
+import com.example.jwt.security.RbacSnapshot;
+import com.example.jwt.security.RouteAuthorizationFilter;
 import com.example.jwt.security.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -15,6 +25,7 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.access.intercept.FilterSecurityInterceptor;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -39,12 +50,47 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RbacSnapshot rbacSnapshot;
+
+    @Value("${jwt.route-authorization.enabled:true}")
+    private boolean routeAuthorizationEnabled;
+
+    @Value("${jwt.password-hashing.enabled:true}")
+    private boolean passwordHashingEnabled;
+
+    @Value("${jwt.password-hashing.retry-after:1}")
+    private long passwordHashingRetryAfter;
+
+    @Autowired
+    @Qualifier("passwordHashingExecutor")
+    private ThreadPoolTaskExecutor passwordHashingExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /**
-     * 密码编码器
+     * 密码编码器：BCrypt 在独立的有界线程池中执行，队列满时返回503
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder();
+        if (!passwordHashingEnabled) {
+            return bCryptPasswordEncoder;
+        }
+        return new BoundedPasswordEncoder(bCryptPasswordEncoder, passwordHashingExecutor,
+                passwordHashingRetryAfter, meterRegistry);
+    }
+
+    /**
+     * 方法安全表达式处理器：@PreAuthorize 中的 hasRole / hasAuthority / hasPermission 按权限位图判断
+     */
+    @Bean
+    public MethodSecurityExpressionHandler methodSecurityExpressionHandler(
+            AuthorityPermissionEvaluator permissionEvaluator) {
+        AuthorityMethodSecurityExpressionHandler handler = new AuthorityMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(permissionEvaluator);
+        return handler;
     }
 
     /**
@@ -121,6 +167,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                     response.setContentType("application/json;charset=UTF-8");
                     response.getWriter().write("{\"code\":403,\"message\":\"权限不足，访问被拒绝\",\"timestamp\":" + System.currentTimeMillis() + "}");
                 });
+
+        // 按 permission 表的 url/method 动态授权，在静态规则之后执行
+        if (routeAuthorizationEnabled) {
+            http.addFilterAfter(new RouteAuthorizationFilter(rbacSnapshot), FilterSecurityInterceptor.class);
+        }
     }
 
     /**
@@ -0,0 +1,29 @@
+package com.example.jwt.config;
+
+import com.example.jwt.security.RequiresAnyRoleInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC配置类
+ * 
+ * @author example
+ * @since 2024-01-01
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RequiresAnyRoleInterceptor requiresAnyRoleInterceptor;
+
+    /**
+     * 注册拦截器
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // @RequiresAnyRole 角色检查
+        registry.addInterceptor(requiresAnyRoleInterceptor);
+    }
+}
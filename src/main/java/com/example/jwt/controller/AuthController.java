@@ -1,6 +1,9 @@
 package com.example.jwt.controller;
 
 import com.example.jwt.dto.*;
+import com.example.jwt.exception.CustomException;
+import com.example.jwt.security.JwtKeyRing;
+import com.example.jwt.security.ValidatedToken;
 import com.example.jwt.service.AuthService;
 import com.example.jwt.service.JwtService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -8,10 +11,19 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 认证控制器
@@ -31,6 +43,15 @@ public class AuthController {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Value("${jwt.jwks-max-age:300}")
+    private long jwksMaxAge;
+
+    @Value("${jwt.introspection.secret:}")
+    private String introspectionSecret;
+
     @Value("${jwt.token-header}")
     private String tokenHeader;
 
@@ -79,14 +100,73 @@ public class AuthController {
     @PostMapping("/logout")
     @Operation(summary = "用户登出", description = "用户退出登录，使token失效")
     public ApiResponse<String> logout(HttpServletRequest request) {
-        String accessToken = getTokenFromRequest(request);
         String refreshToken = request.getParameter("refreshToken");
         
         log.info("用户登出请求");
-        jwtService.logout(accessToken, refreshToken);
+        // 过滤器已验证过的令牌直接复用，避免重复解析
+        ValidatedToken validatedToken = getValidatedTokenFromContext();
+        if (validatedToken != null) {
+            jwtService.logout(validatedToken, refreshToken);
+        } else {
+            jwtService.logout(getTokenFromRequest(request), refreshToken);
+        }
         return ApiResponse.success("登出成功");
     }
 
+    /**
+     * 批量令牌校验
+     * <p>
+     * 供网关和下游服务一次校验多个令牌，调用方需在请求头 X-Introspection-Secret 中携带共享密钥，
+     * 未配置密钥时接口关闭。
+     */
+    @PostMapping("/introspect/batch")
+    @Operation(summary = "批量令牌校验", description = "一次校验多个访问令牌，返回每个令牌的状态、过期时间和权限")
+    public ApiResponse<List<TokenIntrospection>> introspectBatch(
+            @RequestHeader(value = "X-Introspection-Secret", required = false) String secret,
+            @Valid @RequestBody IntrospectionRequest request) {
+        if (!isIntrospectionSecretValid(secret)) {
+            throw CustomException.forbidden("无权调用令牌校验接口");
+        }
+        log.debug("批量令牌校验请求，令牌数: {}", request.getTokens().size());
+        return ApiResponse.success(jwtService.introspect(request.getTokens()));
+    }
+
+    /**
+     * 公钥集合（JWKS）
+     * <p>
+     * 按 RFC 7517 格式直接返回，不包装为 ApiResponse，下游服务可据此在本地验证 ES256 令牌。
+     */
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(summary = "获取公钥集合", description = "返回JWKS格式的令牌验证公钥，HS256模式下为空集合")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwksMaxAge, TimeUnit.SECONDS).cachePublic())
+                .body(keyRing.getJwks());
+    }
+
+    /**
+     * 校验调用方密钥（常量时间比较）
+     */
+    private boolean isIntrospectionSecretValid(String secret) {
+        if (introspectionSecret == null || introspectionSecret.isEmpty() || secret == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                introspectionSecret.getBytes(StandardCharsets.UTF_8),
+                secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 从安全上下文中获取已验证的令牌
+     */
+    private ValidatedToken getValidatedTokenFromContext() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getCredentials() instanceof ValidatedToken) {
+            return (ValidatedToken) authentication.getCredentials();
+        }
+        return null;
+    }
+
     /**
      * 从请求中获取JWT令牌
      */
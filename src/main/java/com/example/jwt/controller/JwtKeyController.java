@@ -0,0 +1,77 @@
+package com.example.jwt.controller;
+
+import com.example.jwt.dto.ApiResponse;
+import com.example.jwt.dto.RotateKeyRequest;
+import com.example.jwt.exception.CustomException;
+import com.example.jwt.security.JwtKeyRing;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * JWT密钥管理控制器
+ * 
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/jwt-keys")
+@Tag(name = "密钥管理", description = "JWT签名密钥轮换API")
+public class JwtKeyController {
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    /**
+     * 查询当前可用的密钥ID
+     */
+    @GetMapping
+    @Operation(summary = "查询密钥", description = "管理员权限：查询当前可用的签名密钥ID，第一个为主密钥")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<List<String>> listKeys() {
+        return ApiResponse.success(keyRing.getKeyIds());
+    }
+
+    /**
+     * 轮换主密钥
+     */
+    @PostMapping("/rotate")
+    @Operation(summary = "轮换密钥", description = "管理员权限：设置新的签名主密钥，旧密钥保留用于验证已签发的令牌")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<String> rotate(@Valid @RequestBody RotateKeyRequest request) {
+        try {
+            keyRing.rotate(request.getKid(), request.getSecret());
+        } catch (IllegalArgumentException e) {
+            throw CustomException.business(e.getMessage());
+        } catch (IllegalStateException e) {
+            throw CustomException.internal(e.getMessage());
+        }
+        log.info("管理员轮换JWT签名密钥: {}", request.getKid());
+        return ApiResponse.success("密钥轮换成功");
+    }
+
+    /**
+     * 移除密钥
+     */
+    @DeleteMapping("/{kid}")
+    @Operation(summary = "移除密钥", description = "管理员权限：立即移除一个非主密钥，使用该密钥签发的令牌全部失效")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<String> retire(@PathVariable String kid) {
+        try {
+            keyRing.retire(kid);
+        } catch (IllegalArgumentException e) {
+            throw CustomException.business(e.getMessage());
+        } catch (IllegalStateException e) {
+            throw CustomException.internal(e.getMessage());
+        }
+        log.info("管理员移除JWT签名密钥: {}", kid);
+        return ApiResponse.success("密钥移除成功");
+    }
+}
@@ -2,11 +2,18 @@ package com.example.jwt.controller;
 
 import com.example.jwt.dto.ApiResponse;
 import com.example.jwt.dto.ChangePasswordRequest;
+import com.example.jwt.entity.User;
+import com.example.jwt.exception.CustomException;
+import com.example.jwt.mapper.UserMapper;
+import com.example.jwt.security.RequiresAnyRole;
 import com.example.jwt.security.UserDetailsImpl;
+import com.example.jwt.security.ValidatedToken;
+import com.example.jwt.service.AuthService;
+import com.example.jwt.service.JwtService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
@@ -27,22 +34,45 @@ import java.util.Map;
 @Tag(name = "用户管理", description = "用户相关API")
 public class UserController {
 
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtService jwtService;
+
     /**
      * 获取用户信息
      */
     @GetMapping("/profile")
     @Operation(summary = "获取用户信息", description = "获取当前登录用户的基本信息")
-    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @RequiresAnyRole({"USER", "ADMIN"})
     public ApiResponse<Map<String, Object>> getProfile() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         
+        // 无状态认证模式下主体由令牌claims构建，只有ID和用户名，需要补查完整信息
+        User user = userDetails.getUser();
+        if (userDetails.isStateless() && user.getId() != null) {
+            User storedUser = userMapper.selectById(user.getId());
+            if (storedUser != null) {
+                user = storedUser;
+            }
+        }
+        
         Map<String, Object> profile = new HashMap<>();
-        profile.put("id", userDetails.getUser().getId());
-        profile.put("username", userDetails.getUser().getUsername());
-        profile.put("email", userDetails.getUser().getEmail());
-        profile.put("status", userDetails.getUser().getStatus());
-        profile.put("createdTime", userDetails.getUser().getCreatedTime());
+        profile.put("id", user.getId());
+        profile.put("username", user.getUsername());
+        profile.put("email", user.getEmail());
+        profile.put("status", user.getStatus());
+        profile.put("createdTime", user.getCreatedTime());
+        
+        // 当前访问令牌的过期时间，直接取自过滤器中已验证的令牌
+        if (authentication.getCredentials() instanceof ValidatedToken) {
+            profile.put("tokenExpiresAt", ((ValidatedToken) authentication.getCredentials()).getExpiration());
+        }
         
         log.info("获取用户信息: {}", userDetails.getUsername());
         return ApiResponse.success("获取用户信息成功", profile);
@@ -53,16 +83,15 @@ public class UserController {
      */
     @PutMapping("/password")
     @Operation(summary = "修改密码", description = "修改当前用户的登录密码")
-    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @RequiresAnyRole({"USER", "ADMIN"})
     public ApiResponse<String> changePassword(@Valid @RequestBody ChangePasswordRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         
         log.info("用户修改密码: {}", userDetails.getUsername());
-        // 这里应该调用用户服务的修改密码方法
-        // userService.changePassword(userDetails.getUser().getId(), request);
+        authService.changePassword(userDetails.getUser().getId(), request);
         
-        return ApiResponse.success("密码修改成功");
+        return ApiResponse.success("密码修改成功，请重新登录");
     }
 
     /**
@@ -70,9 +99,24 @@ public class UserController {
      */
     @GetMapping("/admin/users")
     @Operation(summary = "获取所有用户（管理员）", description = "管理员权限：获取系统所有用户信息")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresAnyRole("ADMIN")
     public ApiResponse<String> getAllUsers() {
         log.info("管理员获取所有用户");
         return ApiResponse.success("管理员功能测试成功", "这是管理员才能访问的接口");
     }
-}
\ No newline at end of file
+
+    /**
+     * 吊销用户的所有会话
+     */
+    @PostMapping("/admin/users/{username}/revoke-sessions")
+    @Operation(summary = "吊销用户会话（管理员）", description = "管理员权限：使指定用户已签发的所有令牌立即失效")
+    @RequiresAnyRole("ADMIN")
+    public ApiResponse<String> revokeSessions(@PathVariable String username) {
+        if (userMapper.findByUsername(username) == null) {
+            throw CustomException.notFound("用户不存在");
+        }
+        jwtService.revokeAllSessions(username);
+        log.info("管理员吊销用户会话: {}", username);
+        return ApiResponse.success("用户会话已吊销");
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.jwt.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * 批量令牌校验请求DTO
+ * 
+ * @author example
+ * @since 2024-01-01
+ */
+@Data
+public class IntrospectionRequest {
+
+    /**
+     * 待校验的访问令牌列表
+     */
+    @NotEmpty(message = "令牌列表不能为空")
+    @Size(max = 200, message = "单次最多校验200个令牌")
+    private List<String> tokens;
+}
@@ -0,0 +1,31 @@
+package com.example.jwt.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+
+/**
+ * 轮换签名密钥请求DTO
+ * 
+ * @author example
+ * @since 2024-01-01
+ */
+@Data
+public class RotateKeyRequest {
+
+    /**
+     * 新密钥ID
+     */
+    @NotBlank(message = "密钥ID不能为空")
+    @Pattern(regexp = "^[A-Za-z0-9_-]{1,32}$", message = "密钥ID只能包含字母、数字、下划线和短横线")
+    private String kid;
+
+    /**
+     * 新密钥（HS256至少32字节）
+     */
+    @NotBlank(message = "密钥不能为空")
+    @Size(min = 32, message = "密钥长度不能少于32个字符")
+    private String secret;
+}
@@ -0,0 +1,53 @@
+package com.example.jwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 令牌校验结果DTO
+ * 
+ * @author example
+ * @since 2024-01-01
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenIntrospection {
+
+    /**
+     * 令牌是否有效
+     */
+    private Boolean active;
+
+    /**
+     * 主题（用户名）
+     */
+    private String sub;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 过期时间（秒）
+     */
+    private Long exp;
+
+    /**
+     * 权限列表
+     */
+    private List<String> authorities;
+
+    /**
+     * 无效令牌
+     */
+    public static TokenIntrospection inactive() {
+        return TokenIntrospection.builder().active(false).build();
+    }
+}
@@ -82,6 +82,12 @@ public class User implements Serializable {
     @TableField("deleted")
     private Integer deleted;
 
+    /**
+     * 用户角色ID列表（非数据库字段）
+     */
+    @TableField(exist = false)
+    private List<Long> roleIds;
+
     /**
      * 用户角色列表（非数据库字段）
      */
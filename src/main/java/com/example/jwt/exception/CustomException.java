@@ -23,6 +23,11 @@ public class CustomException extends RuntimeException {
      */
     private String message;
 
+    /**
+     * 建议客户端重试的等待时间（秒），不为空时响应带 Retry-After 头
+     */
+    private Long retryAfter;
+
     public CustomException() {
         super();
     }
@@ -93,4 +98,15 @@ public class CustomException extends RuntimeException {
     public static CustomException tooManyRequests(String message) {
         return new CustomException(429, message);
     }
+
+    /**
+     * 服务过载异常
+     *
+     * @param retryAfter 建议客户端重试的等待时间（秒）
+     */
+    public static CustomException serviceUnavailable(String message, long retryAfter) {
+        CustomException exception = new CustomException(503, message);
+        exception.setRetryAfter(retryAfter);
+        return exception;
+    }
 }
\ No newline at end of file
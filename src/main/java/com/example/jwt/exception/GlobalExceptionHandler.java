@@ -2,6 +2,7 @@ package com.example.jwt.exception;
 
 import com.example.jwt.dto.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -40,7 +41,11 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ApiResponse<Object>> handleCustomException(CustomException e, HttpServletRequest request) {
         log.error("自定义异常: {} - {}", request.getRequestURI(), e.getMessage());
         ApiResponse<Object> response = ApiResponse.error(e.getCode(), e.getMessage());
-        return ResponseEntity.status(getHttpStatus(e.getCode())).body(response);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(getHttpStatus(e.getCode()));
+        if (e.getRetryAfter() != null) {
+            builder.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter()));
+        }
+        return builder.body(response);
     }
 
     /**
@@ -201,6 +206,8 @@ public class GlobalExceptionHandler {
                 return HttpStatus.UNPROCESSABLE_ENTITY;
             case 429:
                 return HttpStatus.TOO_MANY_REQUESTS;
+            case 503:
+                return HttpStatus.SERVICE_UNAVAILABLE;
             case 500:
             default:
                 return HttpStatus.INTERNAL_SERVER_ERROR;
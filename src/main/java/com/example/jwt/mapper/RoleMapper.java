@@ -27,6 +27,14 @@ public interface RoleMapper extends BaseMapper<Role> {
     @Select("SELECT * FROM role WHERE role_name = #{roleName} AND deleted = 0")
     Role findByRoleName(@Param("roleName") String roleName);
 
+    /**
+     * 查询所有未删除的角色
+     * 
+     * @return 角色列表
+     */
+    @Select("SELECT * FROM role WHERE deleted = 0")
+    List<Role> findAllRoles();
+
     /**
      * 根据角色ID查询权限列表
      * 
@@ -39,7 +47,7 @@ public interface RoleMapper extends BaseMapper<Role> {
     List<Permission> findPermissionsByRoleId(@Param("roleId") Long roleId);
 
     /**
-     * 为角色分配权限
+     * 为角色分配权限（SQL见 RoleMapper.xml）
      * 
      * @param roleId 角色ID
      * @param permissionId 权限ID
@@ -48,7 +56,7 @@ public interface RoleMapper extends BaseMapper<Role> {
     int assignPermission(@Param("roleId") Long roleId, @Param("permissionId") Long permissionId);
 
     /**
-     * 移除角色权限
+     * 移除角色权限（SQL见 RoleMapper.xml）
      * 
      * @param roleId 角色ID
      * @param permissionId 权限ID
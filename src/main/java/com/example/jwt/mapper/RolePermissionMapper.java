@@ -6,6 +6,9 @@ import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 角色权限关联数据访问层
@@ -44,4 +47,12 @@ public interface RolePermissionMapper extends BaseMapper<RolePermission> {
      */
     @Delete("DELETE FROM role_permission WHERE role_id = #{roleId}")
     int removeAllPermissionsByRoleId(@Param("roleId") Long roleId);
+
+    /**
+     * 查询所有角色权限关联
+     * 
+     * @return 角色权限关联列表
+     */
+    @Select("SELECT role_id, permission_id FROM role_permission")
+    List<RolePermission> findAllRolePermissions();
 }
\ No newline at end of file
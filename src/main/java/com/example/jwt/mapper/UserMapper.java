@@ -29,6 +29,16 @@ public interface UserMapper extends BaseMapper<User> {
     @Select("SELECT * FROM user WHERE username = #{username} AND deleted = 0")
     User findByUsername(@Param("username") String username);
 
+    /**
+     * 根据用户名查询用户信息及其角色ID
+     * <p>
+     * 一次查询，结果映射见 UserMapper.xml 中的 userWithRoleIdsMap；角色和权限由 RbacSnapshot 解析
+     * 
+     * @param username 用户名
+     * @return 用户信息（roleIds已填充），用户不存在时返回null
+     */
+    User findByUsernameWithRoleIds(@Param("username") String username);
+
     /**
      * 根据邮箱查询用户信息
      * 
@@ -71,7 +81,7 @@ public interface UserMapper extends BaseMapper<User> {
     int updateLoginFailCount(@Param("userId") Long userId, @Param("failCount") Integer failCount);
 
     /**
-     * 重置用户登录失败次数
+     * 重置用户登录失败次数，失败次数已为0时不更新
      * 
      * @param userId 用户ID
      * @return 影响行数
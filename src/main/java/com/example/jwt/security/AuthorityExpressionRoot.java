@@ -0,0 +1,159 @@
+package com.example.jwt.security;
+
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+
+import java.io.Serializable;
+
+/**
+ * 方法安全表达式根对象
+ * <p>
+ * 替代 Spring Security 默认的 SecurityExpressionRoot（其 hasRole 等方法为final，
+ * 且每次判断都把认证对象的权限列表复制成 HashSet）。hasRole / hasAuthority 在主体为 UserDetailsImpl 时
+ * 直接测试权限位图，其余主体回退到遍历权限列表。不支持角色继承（本项目未配置 RoleHierarchy）。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public class AuthorityExpressionRoot implements MethodSecurityExpressionOperations {
+
+    private static final AuthenticationTrustResolver TRUST_RESOLVER = new AuthenticationTrustResolverImpl();
+
+    /**
+     * 供表达式以属性形式引用，与 SecurityExpressionRoot 一致
+     */
+    public final boolean permitAll = true;
+
+    public final boolean denyAll = false;
+
+    private final Authentication authentication;
+
+    private final PermissionEvaluator permissionEvaluator;
+
+    private final Object target;
+
+    private Object filterObject;
+
+    private Object returnObject;
+
+    public AuthorityExpressionRoot(Authentication authentication, PermissionEvaluator permissionEvaluator,
+                                   Object target) {
+        if (authentication == null) {
+            throw new IllegalArgumentException("Authentication object cannot be null");
+        }
+        this.authentication = authentication;
+        this.permissionEvaluator = permissionEvaluator;
+        this.target = target;
+    }
+
+    @Override
+    public Authentication getAuthentication() {
+        return authentication;
+    }
+
+    public Object getPrincipal() {
+        return authentication.getPrincipal();
+    }
+
+    @Override
+    public boolean hasAuthority(String authority) {
+        return AuthorityPermissionEvaluator.hasAuthority(authentication, authority);
+    }
+
+    @Override
+    public boolean hasAnyAuthority(String... authorities) {
+        for (String authority : authorities) {
+            if (hasAuthority(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasRole(String role) {
+        AuthoritySet authoritySet = AuthoritySet.of(authentication);
+        if (authoritySet != null) {
+            return authoritySet.hasRole(role);
+        }
+        return hasAuthority(role.startsWith(AuthoritySet.ROLE_PREFIX) ? role : AuthoritySet.ROLE_PREFIX + role);
+    }
+
+    @Override
+    public boolean hasAnyRole(String... roles) {
+        for (String role : roles) {
+            if (hasRole(role)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean permitAll() {
+        return true;
+    }
+
+    @Override
+    public boolean denyAll() {
+        return false;
+    }
+
+    @Override
+    public boolean isAnonymous() {
+        return TRUST_RESOLVER.isAnonymous(authentication);
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return !isAnonymous();
+    }
+
+    @Override
+    public boolean isRememberMe() {
+        return TRUST_RESOLVER.isRememberMe(authentication);
+    }
+
+    @Override
+    public boolean isFullyAuthenticated() {
+        return !isAnonymous() && !isRememberMe();
+    }
+
+    @Override
+    public boolean hasPermission(Object target, Object permission) {
+        return permissionEvaluator.hasPermission(authentication, target, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Object targetId, String targetType, Object permission) {
+        return permissionEvaluator.hasPermission(authentication, (Serializable) targetId, targetType, permission);
+    }
+
+    @Override
+    public void setFilterObject(Object filterObject) {
+        this.filterObject = filterObject;
+    }
+
+    @Override
+    public Object getFilterObject() {
+        return filterObject;
+    }
+
+    @Override
+    public void setReturnObject(Object returnObject) {
+        this.returnObject = returnObject;
+    }
+
+    @Override
+    public Object getReturnObject() {
+        return returnObject;
+    }
+
+    @Override
+    public Object getThis() {
+        return target;
+    }
+}
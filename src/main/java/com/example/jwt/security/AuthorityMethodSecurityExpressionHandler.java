@@ -0,0 +1,21 @@
+package com.example.jwt.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+/**
+ * 使用 AuthorityExpressionRoot 的方法安全表达式处理器
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public class AuthorityMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+                                                                              MethodInvocation invocation) {
+        return new AuthorityExpressionRoot(authentication, getPermissionEvaluator(), invocation.getThis());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.jwt.security;
+
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * 基于权限位图的 PermissionEvaluator
+ * <p>
+ * {@code hasPermission(#target, 'admin:user:list')} 按权限名判断，忽略目标对象和类型；
+ * 主体为 UserDetailsImpl 时只做位测试，否则遍历认证对象的权限列表。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Component
+public class AuthorityPermissionEvaluator implements PermissionEvaluator {
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        return permission instanceof String && hasAuthority(authentication, (String) permission);
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+                                 Object permission) {
+        return permission instanceof String && hasAuthority(authentication, (String) permission);
+    }
+
+    /**
+     * 认证主体是否拥有权限
+     *
+     * @param authentication 认证对象
+     * @param authority      权限名（角色带 ROLE_ 前缀）
+     */
+    static boolean hasAuthority(Authentication authentication, String authority) {
+        if (authentication == null) {
+            return false;
+        }
+        AuthoritySet authoritySet = AuthoritySet.of(authentication);
+        if (authoritySet != null) {
+            return authoritySet.hasAuthority(authority);
+        }
+        for (GrantedAuthority grantedAuthority : authentication.getAuthorities()) {
+            if (authority.equals(grantedAuthority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
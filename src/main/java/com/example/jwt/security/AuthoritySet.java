@@ -0,0 +1,186 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.Permission;
+import com.example.jwt.entity.Role;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户权限集合
+ * <p>
+ * 角色和权限名在进程内驻留：每个名称只创建一个 GrantedAuthority 实例并分配一个固定位序号，
+ * 用户的权限集合保存为位图，每个主体只构建一次。权限判断只做一次哈希查找和一次位测试，不分配对象。
+ * 驻留表只在构建权限集合时写入，名称来自角色表和权限表，数量有限。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public final class AuthoritySet {
+
+    /**
+     * 角色权限前缀，与 SecurityExpressionRoot 的默认值一致
+     */
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    /**
+     * 权限名（角色带前缀） -> 驻留条目
+     */
+    private static final Map<String, Interned> AUTHORITIES = new ConcurrentHashMap<>();
+
+    /**
+     * 角色名（不带前缀） -> 驻留条目，避免 hasRole 判断时拼接前缀
+     */
+    private static final Map<String, Interned> ROLES = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    static final AuthoritySet EMPTY = new AuthoritySet(Collections.emptyList(), new BitSet());
+
+    private final List<GrantedAuthority> authorities;
+
+    private final BitSet bits;
+
+    private AuthoritySet(List<GrantedAuthority> authorities, BitSet bits) {
+        this.authorities = authorities;
+        this.bits = bits;
+    }
+
+    /**
+     * 构建权限集合，顺序与原来的 getAuthorities 一致：先角色后权限
+     *
+     * @param roles       角色列表
+     * @param permissions 权限列表
+     */
+    public static AuthoritySet of(List<Role> roles, List<Permission> permissions) {
+        int size = (roles != null ? roles.size() : 0) + (permissions != null ? permissions.size() : 0);
+        if (size == 0) {
+            return EMPTY;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(size);
+        BitSet bits = new BitSet();
+        if (roles != null) {
+            for (Role role : roles) {
+                Interned interned = internRole(role.getRoleName());
+                authorities.add(interned.authority);
+                bits.set(interned.index);
+            }
+        }
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                Interned interned = intern(permission.getPermissionName());
+                authorities.add(interned.authority);
+                bits.set(interned.index);
+            }
+        }
+        return new AuthoritySet(Collections.unmodifiableList(authorities), bits);
+    }
+
+    /**
+     * 取认证主体的权限集合
+     *
+     * @return 主体不是 UserDetailsImpl 时返回null，调用方应回退到遍历 getAuthorities
+     */
+    public static AuthoritySet of(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl) {
+            return ((UserDetailsImpl) authentication.getPrincipal()).getAuthoritySet();
+        }
+        return null;
+    }
+
+    /**
+     * 是否拥有权限（角色需带 ROLE_ 前缀）
+     */
+    public boolean hasAuthority(String authority) {
+        Interned interned = AUTHORITIES.get(authority);
+        return interned != null && bits.get(interned.index);
+    }
+
+    /**
+     * 是否拥有角色，角色名可带或不带 ROLE_ 前缀
+     */
+    public boolean hasRole(String role) {
+        Interned interned = role.startsWith(ROLE_PREFIX) ? AUTHORITIES.get(role) : ROLES.get(role);
+        return interned != null && bits.get(interned.index);
+    }
+
+    /**
+     * 是否拥有任意一个角色
+     *
+     * @param roleIndexes {@link #roleIndexes(String...)} 预先算好的位序号
+     */
+    public boolean hasAnyRole(int[] roleIndexes) {
+        for (int index : roleIndexes) {
+            if (bits.get(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 预先驻留角色并返回其位序号，供启动时编译的授权检查使用
+     *
+     * @param roles 角色名，可带或不带 ROLE_ 前缀
+     */
+    public static int[] roleIndexes(String... roles) {
+        int[] indexes = new int[roles.length];
+        for (int i = 0; i < roles.length; i++) {
+            String role = roles[i];
+            indexes[i] = internRole(role.startsWith(ROLE_PREFIX) ? role.substring(ROLE_PREFIX.length()) : role).index;
+        }
+        return indexes;
+    }
+
+    /**
+     * 权限列表（不可修改，元素为驻留实例）
+     */
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    /**
+     * 驻留权限名；带 ROLE_ 前缀的名称（包括权限表中以 ROLE_ 开头的权限）同时登记为角色，与 hasRole 的语义一致
+     */
+    private static Interned intern(String authority) {
+        return AUTHORITIES.computeIfAbsent(authority, name -> {
+            Interned interned = new Interned(new SimpleGrantedAuthority(name), NEXT_INDEX.getAndIncrement());
+            if (name.startsWith(ROLE_PREFIX)) {
+                ROLES.putIfAbsent(name.substring(ROLE_PREFIX.length()), interned);
+            }
+            return interned;
+        });
+    }
+
+    private static Interned internRole(String roleName) {
+        Interned interned = ROLES.get(roleName);
+        if (interned == null) {
+            interned = intern(ROLE_PREFIX + roleName);
+            ROLES.putIfAbsent(roleName, interned);
+        }
+        return interned;
+    }
+
+    /**
+     * 驻留的权限实例及其位序号
+     */
+    private static final class Interned {
+
+        private final GrantedAuthority authority;
+
+        private final int index;
+
+        Interned(GrantedAuthority authority, int index) {
+            this.authority = authority;
+            this.index = index;
+        }
+    }
+}
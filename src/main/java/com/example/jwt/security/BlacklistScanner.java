@@ -0,0 +1,22 @@
+package com.example.jwt.security;
+
+import java.util.function.Consumer;
+
+/**
+ * 可遍历的令牌黑名单
+ * <p>
+ * 由保存原始吊销标识的令牌存储实现（Redis），供 RevocationBloomFilter 重建过滤器；
+ * 只保存摘要的存储（嵌入式堆外存储）不实现该接口。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public interface BlacklistScanner {
+
+    /**
+     * 遍历黑名单中的吊销标识，失败时抛出异常
+     *
+     * @param consumer 吊销标识消费者
+     */
+    void scanBlacklist(Consumer<String> consumer);
+}
@@ -0,0 +1,110 @@
+package com.example.jwt.security;
+
+import com.example.jwt.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在有界线程池中执行的密码编码器
+ * <p>
+ * encode / matches 提交到专用线程池，调用线程（Tomcat工作线程）只等待结果，同时消耗CPU的哈希计算不超过线程池大小。
+ * 队列满时立即抛出503并带 Retry-After，不再排队，登录高峰期间令牌验证等其余接口的延迟不受影响。
+ * 该异常不是 AuthenticationException，校验密码和防时序攻击哈希时直接穿过 AuthenticationManager 交给 GlobalExceptionHandler，
+ * 不计入登录失败次数；加载用户阶段抛出时会被包装为 InternalAuthenticationServiceException，由 AuthService.login 取出原异常重新抛出。
+ * <p>
+ * 指标：jwt.password-hashing.queue（排队数）、jwt.password-hashing.wait（排队等待时间）、
+ * jwt.password-hashing.rejected（拒绝次数）。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final long retryAfter;
+
+    private final Timer waitTimer;
+
+    private final Counter rejectedCounter;
+
+    /**
+     * @param delegate   实际的密码编码器
+     * @param executor   哈希线程池，拒绝策略须为 AbortPolicy
+     * @param retryAfter 拒绝时建议客户端重试的等待时间（秒）
+     * @param registry   指标注册表
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ThreadPoolTaskExecutor executor, long retryAfter,
+                                  MeterRegistry registry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.retryAfter = retryAfter;
+        Gauge.builder("jwt.password-hashing.queue", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("等待执行的密码哈希任务数")
+                .register(registry);
+        this.waitTimer = Timer.builder("jwt.password-hashing.wait")
+                .description("密码哈希任务的排队等待时间")
+                .register(registry);
+        this.rejectedCounter = Counter.builder("jwt.password-hashing.rejected")
+                .description("队列已满被拒绝的密码哈希任务数")
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            throw CustomException.serviceUnavailable("请求过多，请稍后重试", retryAfter);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw CustomException.internal("密码校验被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
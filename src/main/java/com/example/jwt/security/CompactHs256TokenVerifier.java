@@ -0,0 +1,462 @@
+package com.example.jwt.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 紧凑型 HS256 令牌验证引擎
+ * <p>
+ * 只处理 JwtUtil.createToken 签发的令牌：头部为 alg=HS256（可带 kid、typ），
+ * 载荷只包含 sub、type、userId、jti、iat、iatMs、exp（无状态模式下另有 roles、perms、pv）。验签使用每线程复用的 Mac，
+ * Base64url 解码到每线程复用的缓冲区，不构建 Jackson Map 和 Date 对象。
+ * 遇到任何其他结构（转义字符、嵌套对象、未知字段、重复字段等）返回null，由 jjwt 完整解析。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.verifier", havingValue = "compact-hs256")
+public class CompactHs256TokenVerifier implements TokenVerifier {
+
+    /**
+     * 超过该长度的令牌交给 jjwt 处理
+     */
+    private static final int MAX_TOKEN_LENGTH = 4096;
+
+    private static final int SIGNATURE_LENGTH = 32;
+
+    private static final byte[] HS256 = ascii("HS256");
+
+    private static final byte[] ACCESS = ascii("access");
+
+    private static final byte[] REFRESH = ascii("refresh");
+
+    private static final String[] HEADER_KEYS = {"alg", "kid", "typ"};
+
+    private static final String[] CLAIM_KEYS = {"sub", "type", "jti", "roles", "perms", "pv", "userId", "iat", "iatMs", "exp"};
+
+    private static final int[] BASE64URL = new int[128];
+
+    static {
+        Arrays.fill(BASE64URL, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Override
+    public ValidatedToken verify(String token) {
+        int length = token.length();
+        if (length > MAX_TOKEN_LENGTH) {
+            return null;
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot > 0 ? token.indexOf('.', firstDot + 1) : -1;
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+
+        Buffers buffers = BUFFERS.get();
+        Scanner scanner = buffers.scanner;
+
+        // 解析头部：alg 必须为 HS256
+        int headerLength = decode(token, 0, firstDot, buffers.header);
+        if (headerLength < 0) {
+            return null;
+        }
+        JwtKeyRing.SigningKey signingKey = parseHeader(scanner.reset(buffers.header, headerLength));
+        if (signingKey == null || !signingKey.isHmac()) {
+            return null;
+        }
+
+        // 验证签名
+        byte[] signingInput = buffers.signingInput;
+        for (int i = 0; i < secondDot; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                return null;
+            }
+            signingInput[i] = (byte) c;
+        }
+        int signatureLength = decode(token, secondDot + 1, length, buffers.signature);
+        if (signatureLength != SIGNATURE_LENGTH) {
+            return null;
+        }
+        Mac mac = signingKey.hmacSha256();
+        mac.update(signingInput, 0, secondDot);
+        try {
+            mac.doFinal(buffers.expected, 0);
+        } catch (ShortBufferException e) {
+            return null;
+        }
+        int diff = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            diff |= buffers.expected[i] ^ buffers.signature[i];
+        }
+        if (diff != 0) {
+            throw new SignatureException("JWT签名与本地计算结果不一致");
+        }
+
+        // 解析载荷
+        int payloadLength = decode(token, firstDot + 1, secondDot, buffers.payload);
+        if (payloadLength < 0) {
+            return null;
+        }
+        return parseClaims(token, scanner.reset(buffers.payload, payloadLength));
+    }
+
+    /**
+     * 解析头部，返回对应的签名密钥
+     */
+    private JwtKeyRing.SigningKey parseHeader(Scanner scanner) {
+        if (!scanner.consume('{')) {
+            return null;
+        }
+        boolean hs256 = false;
+        String kid = null;
+        int seen = 0;
+        if (!scanner.consume('}')) {
+            do {
+                if (!scanner.readString() || !scanner.consume(':')) {
+                    return null;
+                }
+                int key = scanner.keyBit(HEADER_KEYS);
+                if (key == 0 || (seen & key) != 0) {
+                    return null;
+                }
+                seen |= key;
+                if (scanner.keyIs("alg")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                    hs256 = scanner.valueIs(HS256);
+                } else if (scanner.keyIs("kid")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                    JwtKeyRing.SigningKey primary = keyRing.getPrimaryKey();
+                    kid = scanner.valueIs(primary.getKid()) ? primary.getKid() : scanner.stringValue();
+                } else if (scanner.keyIs("typ")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                } else {
+                    return null;
+                }
+            } while (scanner.consume(','));
+            if (!scanner.consume('}')) {
+                return null;
+            }
+        }
+        if (!hs256 || !scanner.atEnd()) {
+            return null;
+        }
+        return keyRing.findKey(kid);
+    }
+
+    /**
+     * 解析固定的claims集合
+     */
+    private ValidatedToken parseClaims(String token, Scanner scanner) {
+        if (!scanner.consume('{')) {
+            return null;
+        }
+        String subject = null;
+        String type = null;
+        String jti = null;
+        String roles = null;
+        String permissions = null;
+        String permissionVersion = null;
+        Long userId = null;
+        long issuedAt = -1;
+        long issuedAtMillis = -1;
+        long expiration = -1;
+        int seen = 0;
+        if (!scanner.consume('}')) {
+            do {
+                if (!scanner.readString() || !scanner.consume(':')) {
+                    return null;
+                }
+                int key = scanner.keyBit(CLAIM_KEYS);
+                if (key == 0 || (seen & key) != 0) {
+                    return null;
+                }
+                seen |= key;
+                if (scanner.keyIs("sub")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                    subject = scanner.stringValue();
+                } else if (scanner.keyIs("type")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                    type = scanner.valueIs(ACCESS) ? "access" : scanner.valueIs(REFRESH) ? "refresh" : scanner.stringValue();
+                } else if (scanner.keyIs("jti")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                    jti = scanner.stringValue();
+                } else if (scanner.keyIs("roles")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                    roles = scanner.stringValue();
+                } else if (scanner.keyIs("perms")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                    permissions = scanner.stringValue();
+                } else if (scanner.keyIs("pv")) {
+                    if (!scanner.readString()) {
+                        return null;
+                    }
+                    permissionVersion = scanner.stringValue();
+                } else if (scanner.keyIs("userId")) {
+                    if (!scanner.readLong()) {
+                        return null;
+                    }
+                    userId = scanner.number;
+                } else if (scanner.keyIs("iat")) {
+                    if (!scanner.readLong()) {
+                        return null;
+                    }
+                    issuedAt = scanner.number;
+                } else if (scanner.keyIs("iatMs")) {
+                    if (!scanner.readLong()) {
+                        return null;
+                    }
+                    issuedAtMillis = scanner.number;
+                } else if (scanner.keyIs("exp")) {
+                    if (!scanner.readLong()) {
+                        return null;
+                    }
+                    expiration = scanner.number;
+                } else {
+                    return null;
+                }
+            } while (scanner.consume(','));
+            if (!scanner.consume('}')) {
+                return null;
+            }
+        }
+        if (!scanner.atEnd() || expiration < 0) {
+            return null;
+        }
+
+        long expirationMillis = expiration * 1000L;
+        if (expirationMillis <= System.currentTimeMillis()) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + expirationMillis);
+        }
+        return ValidatedToken.builder()
+                .token(token)
+                .subject(subject)
+                .userId(userId)
+                .type(type)
+                .jti(jti)
+                .issuedAt(issuedAtMillis > 0 ? issuedAtMillis : issuedAt > 0 ? issuedAt * 1000L : 0L)
+                .expiration(expirationMillis)
+                .roles(roles)
+                .permissions(permissions)
+                .permissionVersion(permissionVersion)
+                .build();
+    }
+
+    /**
+     * Base64url 解码（无填充）到目标缓冲区
+     *
+     * @return 解码后的字节数，非法输入返回-1
+     */
+    private static int decode(String token, int from, int to, byte[] target) {
+        int length = to - from;
+        if (length <= 0 || length % 4 == 1 || (length * 3) / 4 > target.length) {
+            return -1;
+        }
+        int out = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = from; i < to; i++) {
+            char c = token.charAt(i);
+            int value = c < 128 ? BASE64URL[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                target[out++] = (byte) (buffer >> bits);
+            }
+        }
+        return out;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 每线程复用的缓冲区
+     */
+    private static final class Buffers {
+
+        private final byte[] header = new byte[MAX_TOKEN_LENGTH];
+
+        private final byte[] payload = new byte[MAX_TOKEN_LENGTH];
+
+        private final byte[] signature = new byte[MAX_TOKEN_LENGTH];
+
+        private final byte[] signingInput = new byte[MAX_TOKEN_LENGTH];
+
+        private final byte[] expected = new byte[SIGNATURE_LENGTH];
+
+        private final Scanner scanner = new Scanner();
+    }
+
+    /**
+     * 只支持扁平对象、无转义字符串和整数的极简JSON扫描器
+     */
+    private static final class Scanner {
+
+        private byte[] buf;
+
+        private int pos;
+
+        private int end;
+
+        private int stringStart;
+
+        private int stringEnd;
+
+        private long number;
+
+        Scanner reset(byte[] buf, int length) {
+            this.buf = buf;
+            this.pos = 0;
+            this.end = length;
+            return this;
+        }
+
+        private void skipWhitespace() {
+            while (pos < end && (buf[pos] == ' ' || buf[pos] == '\t' || buf[pos] == '\n' || buf[pos] == '\r')) {
+                pos++;
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < end && buf[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean atEnd() {
+            skipWhitespace();
+            return pos == end;
+        }
+
+        boolean readString() {
+            skipWhitespace();
+            if (pos >= end || buf[pos] != '"') {
+                return false;
+            }
+            stringStart = ++pos;
+            while (pos < end) {
+                byte b = buf[pos];
+                if (b == '"') {
+                    stringEnd = pos++;
+                    return true;
+                }
+                if (b == '\\' || (b >= 0 && b < 0x20)) {
+                    return false;
+                }
+                pos++;
+            }
+            return false;
+        }
+
+        boolean readLong() {
+            skipWhitespace();
+            boolean negative = pos < end && buf[pos] == '-';
+            if (negative) {
+                pos++;
+            }
+            int start = pos;
+            long value = 0;
+            while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+                if (pos - start >= 18) {
+                    return false;
+                }
+                value = value * 10 + (buf[pos] - '0');
+                pos++;
+            }
+            if (pos == start || (pos < end && (buf[pos] == '.' || buf[pos] == 'e' || buf[pos] == 'E'))) {
+                return false;
+            }
+            number = negative ? -value : value;
+            return true;
+        }
+
+        boolean keyIs(String key) {
+            int length = stringEnd - stringStart;
+            if (length != key.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buf[stringStart + i] != key.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 当前键在 keys 中的下标对应的位，不在其中时返回0
+         */
+        int keyBit(String[] keys) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keyIs(keys[i])) {
+                    return 1 << i;
+                }
+            }
+            return 0;
+        }
+
+        boolean valueIs(String value) {
+            return keyIs(value);
+        }
+
+        boolean valueIs(byte[] value) {
+            int length = stringEnd - stringStart;
+            if (length != value.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buf[stringStart + i] != value[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String stringValue() {
+            return new String(buf, stringStart, stringEnd - stringStart, StandardCharsets.UTF_8);
+        }
+    }
+}
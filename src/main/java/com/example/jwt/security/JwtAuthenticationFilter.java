@@ -51,17 +51,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = getTokenFromRequest(request);
             
             if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // 验证令牌
-                if (jwtService.validateAccessToken(token)) {
+                // 验证令牌（只解析一次）
+                ValidatedToken validatedToken = jwtService.resolveAccessToken(token);
+                if (validatedToken != null) {
                     // 获取用户名
-                    String username = jwtService.getUsernameFromToken(token);
+                    String username = validatedToken.getSubject();
                     
-                    // 加载用户详情
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    // 加载用户详情：无状态模式下直接由令牌claims构建，否则查询数据库
+                    UserDetails userDetails = jwtService.buildUserDetailsFromClaims(validatedToken);
+                    if (userDetails == null) {
+                        userDetails = userDetailsService.loadUserByUsername(username);
+                    }
                     
-                    // 创建认证对象
+                    // 创建认证对象，已验证的令牌作为凭证向后传递
                     UsernamePasswordAuthenticationToken authentication = 
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                            new UsernamePasswordAuthenticationToken(userDetails, validatedToken, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     
                     // 设置认证信息到安全上下文
@@ -0,0 +1,751 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JWT签名密钥环
+ * <p>
+ * 密钥在启动或轮换时构建一次，签发和验证都不再重复创建密钥对象。
+ * 主密钥用于签名，通过令牌头中的 kid 选择验证密钥；轮换后旧密钥保留到
+ * 最长令牌有效期结束，已签发的令牌在此期间仍然有效，用户无需重新登录。
+ * <p>
+ * 主密钥支持 HS256（共享密钥）和 ES256（非对称）两种算法。ES256 模式下公钥通过
+ * JWKS 发布，下游服务可以在本地验证令牌。
+ * <p>
+ * 轮换和移除在所有节点生效：变更后的密钥环状态（轮换加入的密钥、各密钥的失效时间、已移除的密钥ID）
+ * 按版本号比较并写入Redis，再通过发布订阅通知其他节点从Redis重新加载；节点启动时同样先加载Redis中的状态。
+ * 轮换加入的共享密钥只以 AES-GCM 密文写入Redis，解密密钥由各节点配置的 jwt.key-ring.wrapping-key 派生，
+ * 能读取Redis不等于能伪造令牌。Redis中的状态覆盖配置中的同名密钥，配置中新增的密钥保留。
+ * 令牌存储在本进程内时只在本节点生效。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class JwtKeyRing implements MessageListener {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private static final int GCM_IV_BYTES = 12;
+
+    private static final int GCM_TAG_BITS = 128;
+
+    /**
+     * 与其他节点同时修改时最多尝试的次数
+     */
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.key-id:k1}")
+    private String keyId;
+
+    /**
+     * 签名算法：HS256 / ES256
+     */
+    @Value("${jwt.algorithm:HS256}")
+    private String algorithm;
+
+    /**
+     * ES256 私钥（PKCS#8 DER 的 Base64）
+     */
+    @Value("${jwt.ec.private-key:}")
+    private String ecPrivateKey;
+
+    /**
+     * ES256 公钥（X.509 DER 的 Base64）
+     */
+    @Value("${jwt.ec.public-key:}")
+    private String ecPublicKey;
+
+    /**
+     * 仅用于验证的历史密钥，格式：kid=secret,kid=secret
+     */
+    @Value("${jwt.retired-keys:}")
+    private String retiredKeys;
+
+    @Value("${jwt.refresh-token-expiration}")
+    private Long refreshTokenExpiration;
+
+    /**
+     * 加密写入Redis的轮换密钥所用的密钥材料，各节点必须一致，未配置时使用 jwt.secret
+     */
+    @Value("${jwt.key-ring.wrapping-key:}")
+    private String wrappingKey;
+
+    @Autowired
+    private TokenStore tokenStore;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * 当前密钥快照，轮换时整体替换
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 配置中的密钥，应用共享状态时的基础
+     */
+    private Map<String, SigningKey> configuredKeys;
+
+    /**
+     * 轮换加入的密钥ID -> 共享密钥，加密后写入共享状态供其他节点重建密钥
+     */
+    private final Map<String, String> rotatedSecrets = new HashMap<>();
+
+    /**
+     * 已移除的密钥ID
+     */
+    private final Set<String> retiredKids = new LinkedHashSet<>();
+
+    /**
+     * 已应用的共享状态版本号
+     */
+    private long stateVersion;
+
+    /**
+     * 未携带kid的历史令牌使用的密钥ID
+     */
+    private String legacyKeyId;
+
+    /**
+     * 预先构建的解析器，按kid从当前快照中选择密钥
+     */
+    @Getter
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        Map<String, SigningKey> keys = new LinkedHashMap<>();
+        SigningKey primary = SignatureAlgorithm.ES256.getValue().equals(algorithm)
+                ? ecKey(keyId)
+                : hmacKey(keyId, secret, Long.MAX_VALUE);
+        keys.put(keyId, primary);
+
+        if (StringUtils.hasText(retiredKeys)) {
+            long expiresAt = System.currentTimeMillis() + refreshTokenExpiration;
+            for (String entry : retiredKeys.split(",")) {
+                int separator = entry.indexOf('=');
+                if (separator <= 0) {
+                    throw new IllegalStateException("jwt.retired-keys 配置格式错误，应为 kid=secret");
+                }
+                String kid = entry.substring(0, separator).trim();
+                keys.putIfAbsent(kid, hmacKey(kid, entry.substring(separator + 1).trim(), expiresAt));
+            }
+        }
+
+        this.legacyKeyId = keyId;
+        this.configuredKeys = Collections.unmodifiableMap(new LinkedHashMap<>(keys));
+        this.snapshot = new Snapshot(primary, keys);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveKey(header.getKeyId());
+                    }
+                })
+                .build();
+        log.info("JWT密钥环初始化完成，主密钥: {}（{}），密钥数: {}", keyId, primary.getAlgorithm(), keys.size());
+
+        if (isShared()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(RedisUtil.KEY_RING_CHANNEL));
+            try {
+                loadSharedState();
+            } catch (RuntimeException e) {
+                // Redis暂不可用时先使用配置中的密钥，收到下一次变更通知时再加载
+                log.warn("加载共享的JWT密钥环状态失败，使用配置中的密钥: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 获取当前签名主密钥
+     */
+    public SigningKey getPrimaryKey() {
+        return snapshot.primary;
+    }
+
+    /**
+     * 获取当前所有可用的密钥ID
+     */
+    public List<String> getKeyIds() {
+        List<String> kids = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (SigningKey key : snapshot.keys.values()) {
+            if (key.getExpiresAt() > now) {
+                kids.add(key.getKid());
+            }
+        }
+        return kids;
+    }
+
+    /**
+     * 获取公钥集合（JWKS），只包含非对称密钥，共享密钥不会对外暴露
+     */
+    public Map<String, Object> getJwks() {
+        return snapshot.jwks;
+    }
+
+    /**
+     * 轮换主密钥（HS256）
+     * <p>
+     * 新密钥立即用于签名，原主密钥转为仅验证，并在最长令牌有效期后失效。
+     * ES256 密钥对需要通过配置更换后重启，避免各节点生成不同的密钥。
+     * 变更先写入Redis再在本节点生效，写入失败时抛出 IllegalStateException，本节点不变。
+     *
+     * @param kid 新密钥ID
+     * @param newSecret 新密钥
+     */
+    public synchronized void rotate(String kid, String newSecret) {
+        for (int attempt = 1; ; attempt++) {
+            Snapshot current = snapshot;
+            if (current.primary.getAlgorithm() != SignatureAlgorithm.HS256) {
+                throw new IllegalArgumentException("当前签名算法为 " + current.primary.getAlgorithm() + "，请通过配置更换密钥对");
+            }
+            if (current.keys.containsKey(kid)) {
+                throw new IllegalArgumentException("密钥ID已存在: " + kid);
+            }
+            long now = System.currentTimeMillis();
+            SigningKey primary = hmacKey(kid, newSecret, Long.MAX_VALUE);
+
+            Map<String, SigningKey> keys = new LinkedHashMap<>();
+            keys.put(kid, primary);
+            for (SigningKey key : current.keys.values()) {
+                if (key == current.primary) {
+                    keys.put(key.getKid(), key.retireAt(now + refreshTokenExpiration));
+                } else if (key.getExpiresAt() > now) {
+                    keys.put(key.getKid(), key);
+                }
+            }
+            Map<String, String> secrets = new HashMap<>(rotatedSecrets);
+            secrets.put(kid, newSecret);
+            Set<String> retired = new LinkedHashSet<>(retiredKids);
+            retired.remove(kid);
+            if (commit(new Snapshot(primary, keys), secrets, retired, attempt)) {
+                log.info("JWT主密钥已轮换: {} -> {}", current.primary.getKid(), kid);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 立即移除一个非主密钥，用于密钥泄露等场景
+     * <p>
+     * 同时清空已验证令牌缓存，该密钥签发的令牌不会再从缓存中通过验证。
+     *
+     * @param kid 密钥ID
+     */
+    public synchronized void retire(String kid) {
+        for (int attempt = 1; ; attempt++) {
+            Snapshot current = snapshot;
+            if (current.primary.getKid().equals(kid)) {
+                throw new IllegalArgumentException("不能移除当前主密钥: " + kid);
+            }
+            if (!current.keys.containsKey(kid)) {
+                return;
+            }
+            Map<String, SigningKey> keys = new LinkedHashMap<>(current.keys);
+            keys.remove(kid);
+            Map<String, String> secrets = new HashMap<>(rotatedSecrets);
+            secrets.remove(kid);
+            Set<String> retired = new LinkedHashSet<>(retiredKids);
+            retired.add(kid);
+            if (commit(new Snapshot(current.primary, keys), secrets, retired, attempt)) {
+                verifiedTokenCache.invalidateAll();
+                log.info("JWT密钥已移除: {}", kid);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 接收其他节点（及本节点）发布的密钥变更通知，从Redis重新加载状态
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            loadSharedState();
+        } catch (RuntimeException e) {
+            log.error("加载共享的JWT密钥环状态失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 先把变更按版本号比较并写入Redis、通知其他节点，再在本节点生效
+     * <p>
+     * 其他节点已先写入新版本时写入被拒绝：重新加载Redis中的状态后返回false，由调用方在新状态上重新计算变更。
+     *
+     * @param updated 变更后的快照
+     * @param secrets 变更后轮换加入的密钥
+     * @param retired 变更后已移除的密钥ID
+     * @param attempt 第几次尝试
+     * @return 是否已生效
+     */
+    private boolean commit(Snapshot updated, Map<String, String> secrets, Set<String> retired, int attempt) {
+        long version = stateVersion;
+        if (isShared()) {
+            SharedState state = toSharedState(updated, secrets, retired, stateVersion + 1);
+            Long written = redisUtil.updateKeyRing(stateVersion, toJson(state));
+            if (written == null) {
+                throw new IllegalStateException("密钥变更写入Redis失败，未生效，请稍后重试");
+            }
+            if (written < 0) {
+                if (attempt >= MAX_COMMIT_ATTEMPTS) {
+                    throw new IllegalStateException("密钥环正在被其他节点修改，未生效，请稍后重试");
+                }
+                log.info("密钥环已被其他节点修改，重新加载后重试");
+                loadSharedState();
+                return false;
+            }
+            version = written;
+        }
+        rotatedSecrets.clear();
+        rotatedSecrets.putAll(secrets);
+        retiredKids.clear();
+        retiredKids.addAll(retired);
+        stateVersion = version;
+        snapshot = updated;
+        if (isShared()) {
+            redisUtil.publish(RedisUtil.KEY_RING_CHANNEL, String.valueOf(version));
+        }
+        return true;
+    }
+
+    /**
+     * 从Redis加载密钥环状态并应用，版本号不大于已应用的版本时忽略
+     */
+    private synchronized void loadSharedState() {
+        String json = redisUtil.getKeyRing();
+        if (json == null) {
+            return;
+        }
+        SharedState state;
+        try {
+            state = OBJECT_MAPPER.readValue(json, SharedState.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("密钥环状态格式错误", e);
+        }
+        if (state.getVersion() <= stateVersion) {
+            return;
+        }
+
+        Map<String, SigningKey> keys = new LinkedHashMap<>();
+        Map<String, String> secrets = new HashMap<>();
+        for (SharedKey sharedKey : state.getKeys()) {
+            SigningKey key;
+            if (sharedKey.getEncryptedSecret() != null) {
+                String sharedSecret;
+                try {
+                    sharedSecret = unwrap(sharedKey.getKid(), sharedKey.getEncryptedSecret());
+                } catch (GeneralSecurityException | IllegalArgumentException e) {
+                    log.warn("共享的JWT密钥 {} 解密失败，请检查各节点的 jwt.key-ring.wrapping-key 是否一致", sharedKey.getKid());
+                    continue;
+                }
+                key = hmacKey(sharedKey.getKid(), sharedSecret, sharedKey.getExpiresAt());
+                secrets.put(sharedKey.getKid(), sharedSecret);
+            } else if (configuredKeys.containsKey(sharedKey.getKid())) {
+                key = configuredKeys.get(sharedKey.getKid()).retireAt(sharedKey.getExpiresAt());
+            } else {
+                log.warn("共享的JWT密钥 {} 未携带密钥且本节点未配置，已忽略", sharedKey.getKid());
+                continue;
+            }
+            keys.put(key.getKid(), key);
+        }
+        // 配置中新增、共享状态中没有记录的密钥保留
+        for (SigningKey key : configuredKeys.values()) {
+            if (!state.getRetired().contains(key.getKid())) {
+                keys.putIfAbsent(key.getKid(), key);
+            }
+        }
+        SigningKey primary = keys.get(state.getPrimary());
+        if (primary == null) {
+            log.warn("共享的JWT主密钥 {} 在本节点不可用，保持当前密钥环", state.getPrimary());
+            return;
+        }
+
+        boolean retired = !retiredKids.containsAll(state.getRetired());
+        rotatedSecrets.clear();
+        rotatedSecrets.putAll(secrets);
+        retiredKids.clear();
+        retiredKids.addAll(state.getRetired());
+        stateVersion = state.getVersion();
+        snapshot = new Snapshot(primary, keys);
+        if (retired) {
+            verifiedTokenCache.invalidateAll();
+        }
+        log.info("已加载共享的JWT密钥环，主密钥: {}，密钥数: {}，版本: {}", primary.getKid(), keys.size(), stateVersion);
+    }
+
+    private SharedState toSharedState(Snapshot updated, Map<String, String> secrets, Set<String> retired, long version) {
+        SharedState state = new SharedState();
+        state.setVersion(version);
+        state.setPrimary(updated.primary.getKid());
+        for (SigningKey key : updated.keys.values()) {
+            SharedKey sharedKey = new SharedKey();
+            sharedKey.setKid(key.getKid());
+            String sharedSecret = secrets.get(key.getKid());
+            if (sharedSecret != null) {
+                try {
+                    sharedKey.setEncryptedSecret(wrap(key.getKid(), sharedSecret));
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("密钥加密失败", e);
+                }
+            }
+            sharedKey.setExpiresAt(key.getExpiresAt());
+            state.getKeys().add(sharedKey);
+        }
+        state.getRetired().addAll(retired);
+        return state;
+    }
+
+    private static String toJson(SharedState state) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("密钥环状态序列化失败", e);
+        }
+    }
+
+    /**
+     * 用 AES-GCM 加密共享密钥，kid 作为附加认证数据，密文不能挪用到其他kid
+     *
+     * @return Base64url(IV + 密文)
+     */
+    private String wrap(String kid, String sharedSecret) throws GeneralSecurityException {
+        byte[] iv = new byte[GCM_IV_BYTES];
+        SECURE_RANDOM.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, wrappingKey(), new GCMParameterSpec(GCM_TAG_BITS, iv));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        byte[] encrypted = cipher.doFinal(sharedSecret.getBytes(StandardCharsets.UTF_8));
+        byte[] wrapped = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, wrapped, 0, iv.length);
+        System.arraycopy(encrypted, 0, wrapped, iv.length, encrypted.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(wrapped);
+    }
+
+    private String unwrap(String kid, String wrapped) throws GeneralSecurityException {
+        byte[] bytes = Base64.getUrlDecoder().decode(wrapped);
+        if (bytes.length <= GCM_IV_BYTES) {
+            throw new IllegalArgumentException("密文长度错误");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, wrappingKey(), new GCMParameterSpec(GCM_TAG_BITS, bytes, 0, GCM_IV_BYTES));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        byte[] plain = cipher.doFinal(bytes, GCM_IV_BYTES, bytes.length - GCM_IV_BYTES);
+        return new String(plain, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 加密共享密钥的AES-256密钥，由 jwt.key-ring.wrapping-key（未配置时为 jwt.secret）派生，只存在于各节点的配置中
+     */
+    private SecretKeySpec wrappingKey() throws GeneralSecurityException {
+        String material = StringUtils.hasText(wrappingKey) ? wrappingKey : secret;
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(("jwt-key-ring:" + material).getBytes(StandardCharsets.UTF_8));
+        return new SecretKeySpec(digest, "AES");
+    }
+
+    /**
+     * 是否需要在节点间共享密钥变更
+     */
+    private boolean isShared() {
+        return !tokenStore.isLocal();
+    }
+
+    /**
+     * 根据kid查找可用于验证的密钥
+     *
+     * @param kid 密钥ID，为空时使用历史令牌的密钥
+     * @return 密钥，不存在或已失效时返回null
+     */
+    public SigningKey findKey(String kid) {
+        SigningKey key = snapshot.keys.get(kid != null ? kid : legacyKeyId);
+        if (key == null || key.getExpiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return key;
+    }
+
+    /**
+     * 根据kid查找验证密钥
+     */
+    private Key resolveKey(String kid) {
+        SigningKey key = findKey(kid);
+        if (key == null) {
+            throw new SignatureException("未知或已失效的签名密钥: " + kid);
+        }
+        return key.getVerificationKey();
+    }
+
+    private static SigningKey hmacKey(String kid, String secret, long expiresAt) {
+        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return new SigningKey(kid, SignatureAlgorithm.HS256, key, key, expiresAt);
+    }
+
+    /**
+     * 加载 ES256 密钥对，未配置时生成临时密钥对（仅适用于单节点开发环境）
+     */
+    private SigningKey ecKey(String kid) {
+        KeyPair keyPair;
+        if (StringUtils.hasText(ecPrivateKey) && StringUtils.hasText(ecPublicKey)) {
+            try {
+                KeyFactory keyFactory = KeyFactory.getInstance("EC");
+                keyPair = new KeyPair(
+                        keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getMimeDecoder().decode(ecPublicKey))),
+                        keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(ecPrivateKey))));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                throw new IllegalStateException("jwt.ec 密钥对配置无效", e);
+            }
+        } else {
+            log.warn("未配置 jwt.ec.private-key/public-key，已生成临时ES256密钥对，重启后已签发的令牌全部失效");
+            keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        }
+        return new SigningKey(kid, SignatureAlgorithm.ES256, keyPair.getPrivate(), keyPair.getPublic(), Long.MAX_VALUE);
+    }
+
+    /**
+     * 签名密钥
+     */
+    @Getter
+    public static class SigningKey {
+
+        /**
+         * 密钥ID
+         */
+        private final String kid;
+
+        /**
+         * 签名算法
+         */
+        private final SignatureAlgorithm algorithm;
+
+        /**
+         * 签名密钥（HS256为共享密钥，ES256为私钥）
+         */
+        private final Key key;
+
+        /**
+         * 验证密钥（HS256为共享密钥，ES256为公钥）
+         */
+        private final Key verificationKey;
+
+        /**
+         * 失效时间（毫秒），主密钥为 Long.MAX_VALUE
+         */
+        private final long expiresAt;
+
+        /**
+         * 每个线程复用的 HmacSHA256 实例
+         */
+        @Getter(AccessLevel.NONE)
+        private final ThreadLocal<Mac> hmacSha256;
+
+        SigningKey(String kid, SignatureAlgorithm algorithm, Key key, Key verificationKey, long expiresAt) {
+            this(kid, algorithm, key, verificationKey, expiresAt,
+                    algorithm.isHmac() ? ThreadLocal.withInitial(() -> newHmacSha256(key)) : null);
+        }
+
+        private SigningKey(String kid, SignatureAlgorithm algorithm, Key key, Key verificationKey, long expiresAt,
+                           ThreadLocal<Mac> hmacSha256) {
+            this.kid = kid;
+            this.algorithm = algorithm;
+            this.key = key;
+            this.verificationKey = verificationKey;
+            this.expiresAt = expiresAt;
+            this.hmacSha256 = hmacSha256;
+        }
+
+        SigningKey retireAt(long expiresAt) {
+            return new SigningKey(kid, algorithm, key, verificationKey, expiresAt, hmacSha256);
+        }
+
+        /**
+         * 是否为HMAC共享密钥
+         */
+        public boolean isHmac() {
+            return hmacSha256 != null;
+        }
+
+        /**
+         * 获取当前线程的 HmacSHA256 实例，doFinal 之后自动重置，可直接复用
+         */
+        public Mac hmacSha256() {
+            if (hmacSha256 == null) {
+                throw new IllegalStateException("非HMAC密钥: " + kid);
+            }
+            return hmacSha256.get();
+        }
+
+        /**
+         * 转换为JWK，非 EC 公钥返回null
+         */
+        Map<String, Object> toJwk() {
+            if (!(verificationKey instanceof ECPublicKey)) {
+                return null;
+            }
+            ECPublicKey publicKey = (ECPublicKey) verificationKey;
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", algorithm.getValue());
+            jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+            jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+            return jwk;
+        }
+
+        /**
+         * 坐标按 RFC 7518 编码为32字节无符号大端整数
+         */
+        private static String coordinate(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            byte[] fixed = new byte[32];
+            int length = Math.min(bytes.length, 32);
+            System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+        }
+
+        private static Mac newHmacSha256(Key key) {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(key.getEncoded(), "HmacSHA256"));
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("初始化HmacSHA256失败", e);
+            }
+        }
+    }
+
+    /**
+     * 保存在Redis中的密钥环状态
+     */
+    @Data
+    static class SharedState {
+
+        /**
+         * 版本号，每次变更加一
+         */
+        private long version;
+
+        /**
+         * 主密钥ID
+         */
+        private String primary;
+
+        private List<SharedKey> keys = new ArrayList<>();
+
+        /**
+         * 已移除的密钥ID，配置中的同名密钥不再加载
+         */
+        private List<String> retired = new ArrayList<>();
+    }
+
+    /**
+     * 共享状态中的一个密钥
+     */
+    @Data
+    static class SharedKey {
+
+        private String kid;
+
+        /**
+         * 轮换加入的共享密钥的密文；来自配置的密钥为null，由各节点按配置构建
+         */
+        private String encryptedSecret;
+
+        /**
+         * 失效时间（毫秒），主密钥为 Long.MAX_VALUE
+         */
+        private long expiresAt;
+    }
+
+    /**
+     * 不可变的密钥快照
+     */
+    private static class Snapshot {
+
+        private final SigningKey primary;
+
+        private final Map<String, SigningKey> keys;
+
+        /**
+         * 预先生成的JWKS
+         */
+        private final Map<String, Object> jwks;
+
+        Snapshot(SigningKey primary, Map<String, SigningKey> keys) {
+            this.primary = primary;
+            this.keys = Collections.unmodifiableMap(keys);
+
+            List<Map<String, Object>> jwkList = new ArrayList<>();
+            for (SigningKey key : keys.values()) {
+                Map<String, Object> jwk = key.toJwk();
+                if (jwk != null) {
+                    jwkList.add(jwk);
+                }
+            }
+            this.jwks = Collections.singletonMap("keys", Collections.unmodifiableList(jwkList));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 旧格式黑名单迁移
+ * <p>
+ * 升级前的黑名单以完整令牌为键，升级后只查询以吊销标识为键的新格式，旧条目不迁移就会被忽略，
+ * 升级前登出的令牌在过期前重新生效。启动时（开始接收请求前）迁移一次，之后每隔 interval 再执行一次，
+ * 覆盖滚动升级期间旧节点新写入的旧键。所有节点升级完成且旧键全部迁移后可关闭。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jwt.token-store.type", havingValue = "redis", matchIfMissing = true)
+public class LegacyBlacklistMigration {
+
+    @Value("${jwt.legacy-blacklist-migration.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @PostConstruct
+    public void init() {
+        migrate();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.legacy-blacklist-migration.interval:300000}",
+            initialDelayString = "${jwt.legacy-blacklist-migration.interval:300000}")
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int migrated = redisUtil.migrateLegacyBlacklist();
+            if (migrated > 0) {
+                log.info("旧格式黑名单已迁移: {}", migrated);
+            }
+        } catch (Exception e) {
+            // Redis暂不可用时不阻止启动，下一次定时执行时重试
+            log.error("迁移旧格式黑名单失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.DigestUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单节点嵌入式令牌状态存储
+ * <p>
+ * 所有条目保存在堆外内存（DirectByteBuffer）的定长槽位哈希表中，百万级条目不增加GC扫描的对象数。
+ * 键只保存SHA-256摘要的前128位，刷新token只保存摘要，不保存原文。
+ * 每个条目带过期时间点：读取时遇到过期条目直接删除，另有定时任务每隔 sweep-interval 清扫一遍。
+ * <p>
+ * 只适用于单节点部署（边缘节点、测试环境）：数据不跨节点共享，进程重启后丢失。
+ * 黑名单只有摘要，无法遍历出吊销标识，因此不使用布隆过滤器。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jwt.token-store.type", havingValue = "embedded")
+public class OffHeapTokenStore implements TokenStore {
+
+    private static final byte[] NO_VALUE = new byte[0];
+
+    @Value("${jwt.token-store.embedded.initial-capacity:65536}")
+    private int initialCapacity;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Table blacklist;
+
+    private Table refreshTokens;
+
+    private Table revocationEpochs;
+
+    private Table loginFailures;
+
+    @PostConstruct
+    public void init() {
+        blacklist = new Table("blacklist", 0, initialCapacity);
+        refreshTokens = new Table("refresh_token", 32, initialCapacity);
+        revocationEpochs = new Table("revoke_epoch", Long.BYTES, initialCapacity);
+        loginFailures = new Table("login_fail", Long.BYTES, initialCapacity);
+        for (Table table : new Table[]{blacklist, refreshTokens, revocationEpochs, loginFailures}) {
+            Gauge.builder("jwt.token-store.embedded.entries", table, Table::size)
+                    .description("嵌入式令牌存储的条目数")
+                    .tag("table", table.name)
+                    .register(meterRegistry);
+            Gauge.builder("jwt.token-store.embedded.bytes", table, Table::offHeapBytes)
+                    .description("嵌入式令牌存储占用的堆外内存")
+                    .baseUnit("bytes")
+                    .tag("table", table.name)
+                    .register(meterRegistry);
+        }
+        log.info("使用嵌入式堆外令牌存储，初始容量: {}", initialCapacity);
+    }
+
+    @Override
+    public void completeLogin(String username, String refreshToken, long expireTime) {
+        byte[] key = DigestUtil.sha256(username);
+        loginFailures.remove(key);
+        if (expireTime > System.currentTimeMillis()) {
+            refreshTokens.put(key, expireTime, DigestUtil.sha256(refreshToken));
+        }
+    }
+
+    @Override
+    public boolean isRefreshTokenValid(String tokenId, String username, String refreshToken) {
+        long now = System.currentTimeMillis();
+        return !blacklist.contains(DigestUtil.sha256(tokenId), now)
+                && refreshTokens.matches(DigestUtil.sha256(username), now, DigestUtil.sha256(refreshToken));
+    }
+
+    @Override
+    public void removeRefreshToken(String username) {
+        refreshTokens.remove(DigestUtil.sha256(username));
+    }
+
+    @Override
+    public void revokeSession(String accessTokenId, long accessTokenExpireTime,
+                              String refreshTokenId, long refreshTokenExpireTime, String username) {
+        if (accessTokenId != null) {
+            addTokenToBlacklist(accessTokenId, accessTokenExpireTime);
+        }
+        if (refreshTokenId != null) {
+            addTokenToBlacklist(refreshTokenId, refreshTokenExpireTime);
+        }
+        if (username != null) {
+            removeRefreshToken(username);
+        }
+    }
+
+    @Override
+    public void addTokenToBlacklist(String tokenId, long expireTime) {
+        if (expireTime > System.currentTimeMillis()) {
+            blacklist.put(DigestUtil.sha256(tokenId), expireTime, NO_VALUE);
+        }
+    }
+
+    @Override
+    public boolean isTokenBlacklisted(String tokenId) {
+        return blacklist.contains(DigestUtil.sha256(tokenId), System.currentTimeMillis());
+    }
+
+    @Override
+    public List<Boolean> areTokensBlacklisted(List<String> tokenIds) {
+        long now = System.currentTimeMillis();
+        List<Boolean> blacklisted = new ArrayList<>(tokenIds.size());
+        for (String tokenId : tokenIds) {
+            blacklisted.add(blacklist.contains(DigestUtil.sha256(tokenId), now));
+        }
+        return blacklisted;
+    }
+
+    @Override
+    public void setRevocationEpoch(String username, long epoch, long expireTime) {
+        revocationEpochs.putLong(DigestUtil.sha256(username), System.currentTimeMillis() + expireTime, epoch);
+    }
+
+    @Override
+    public long getRevocationEpoch(String username) {
+        return revocationEpochs.getLong(DigestUtil.sha256(username), System.currentTimeMillis(), 0L);
+    }
+
+    @Override
+    public LoginFailure incrementLoginFailure(String username, int lockTime, int maxFailures) {
+        long now = System.currentTimeMillis();
+        long count = loginFailures.increment(DigestUtil.sha256(username), now, now + TimeUnit.MINUTES.toMillis(lockTime));
+        return new LoginFailure((int) count, count >= maxFailures, count == maxFailures);
+    }
+
+    @Override
+    public void clearLoginFailRecord(String username) {
+        loginFailures.remove(DigestUtil.sha256(username));
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    /**
+     * 清除所有已过期的条目
+     */
+    @Scheduled(fixedDelayString = "${jwt.token-store.embedded.sweep-interval:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        int removed = blacklist.sweep(now) + refreshTokens.sweep(now) + revocationEpochs.sweep(now) + loginFailures.sweep(now);
+        if (removed > 0) {
+            log.debug("嵌入式令牌存储清除过期条目: {}", removed);
+        }
+    }
+
+    /**
+     * 堆外定长槽位哈希表
+     * <p>
+     * 槽位布局：键摘要高64位、低64位、过期时间点（毫秒）、定长值。
+     * 分为多个段，每段一块 DirectByteBuffer 和一把锁，线性探测，负载超过 0.75 时该段扩容一倍，
+     * 删除使用后移补位（backward shift），不留墓碑。键摘要为全0的槽位表示空位。
+     */
+    static final class Table {
+
+        private static final int SEGMENTS = 16;
+
+        private static final int HEADER_BYTES = 24;
+
+        private static final int EXPIRE_OFFSET = 16;
+
+        private static final double MAX_LOAD = 0.75;
+
+        private final String name;
+
+        private final int valueBytes;
+
+        private final int slotBytes;
+
+        private final Segment[] segments = new Segment[SEGMENTS];
+
+        Table(String name, int valueBytes, int initialCapacity) {
+            this.name = name;
+            this.valueBytes = valueBytes;
+            this.slotBytes = (HEADER_BYTES + valueBytes + 7) & ~7;
+            int segmentCapacity = Integer.highestOneBit(Math.max(initialCapacity / SEGMENTS, 16) - 1) << 1;
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new Segment(segmentCapacity);
+            }
+        }
+
+        boolean contains(byte[] key, long now) {
+            long hi = hi(key);
+            long lo = lo(key);
+            return segment(hi).find(hi, lo, now) >= 0;
+        }
+
+        boolean matches(byte[] key, long now, byte[] expected) {
+            long hi = hi(key);
+            long lo = lo(key);
+            return segment(hi).matches(hi, lo, now, expected);
+        }
+
+        long getLong(byte[] key, long now, long absent) {
+            long hi = hi(key);
+            long lo = lo(key);
+            return segment(hi).getLong(hi, lo, now, absent);
+        }
+
+        void put(byte[] key, long expireTime, byte[] value) {
+            long hi = hi(key);
+            long lo = lo(key);
+            segment(hi).put(hi, lo, expireTime, value, 0L);
+        }
+
+        void putLong(byte[] key, long expireTime, long value) {
+            long hi = hi(key);
+            long lo = lo(key);
+            segment(hi).put(hi, lo, expireTime, null, value);
+        }
+
+        /**
+         * 计数加一并续期，条目不存在或已过期时从1开始
+         */
+        long increment(byte[] key, long now, long expireTime) {
+            long hi = hi(key);
+            long lo = lo(key);
+            return segment(hi).increment(hi, lo, now, expireTime);
+        }
+
+        void remove(byte[] key) {
+            long hi = hi(key);
+            long lo = lo(key);
+            segment(hi).remove(hi, lo);
+        }
+
+        int sweep(long now) {
+            int removed = 0;
+            for (Segment segment : segments) {
+                removed += segment.sweep(now);
+            }
+            return removed;
+        }
+
+        long size() {
+            long size = 0;
+            for (Segment segment : segments) {
+                size += segment.size();
+            }
+            return size;
+        }
+
+        long offHeapBytes() {
+            long bytes = 0;
+            for (Segment segment : segments) {
+                bytes += segment.bytes();
+            }
+            return bytes;
+        }
+
+        private Segment segment(long hi) {
+            return segments[(int) (hi >>> 32) & (SEGMENTS - 1)];
+        }
+
+        private static long hi(byte[] key) {
+            return toLong(key, 0);
+        }
+
+        /**
+         * 低64位兼作段内的探测起点；与高64位同为0时置1，保留全0表示空位
+         */
+        private static long lo(byte[] key) {
+            long lo = toLong(key, 8);
+            return lo == 0 && toLong(key, 0) == 0 ? 1 : lo;
+        }
+
+        private static long toLong(byte[] bytes, int offset) {
+            long value = 0;
+            for (int i = offset; i < offset + 8; i++) {
+                value = (value << 8) | (bytes[i] & 0xff);
+            }
+            return value;
+        }
+
+        private final class Segment {
+
+            private ByteBuffer slots;
+
+            private int capacity;
+
+            private int size;
+
+            Segment(int capacity) {
+                allocate(capacity);
+            }
+
+            synchronized int find(long hi, long lo, long now) {
+                int index = indexOf(hi, lo);
+                if (index >= 0 && slots.getLong(index * slotBytes + EXPIRE_OFFSET) <= now) {
+                    removeAt(index);
+                    return -1;
+                }
+                return index;
+            }
+
+            synchronized boolean matches(long hi, long lo, long now, byte[] expected) {
+                int index = find(hi, lo, now);
+                if (index < 0) {
+                    return false;
+                }
+                int offset = index * slotBytes + HEADER_BYTES;
+                int diff = 0;
+                for (int i = 0; i < valueBytes; i++) {
+                    diff |= slots.get(offset + i) ^ expected[i];
+                }
+                return diff == 0;
+            }
+
+            synchronized long getLong(long hi, long lo, long now, long absent) {
+                int index = find(hi, lo, now);
+                return index >= 0 ? slots.getLong(index * slotBytes + HEADER_BYTES) : absent;
+            }
+
+            synchronized void put(long hi, long lo, long expireTime, byte[] value, long longValue) {
+                int index = slotFor(hi, lo);
+                int offset = index * slotBytes;
+                slots.putLong(offset + EXPIRE_OFFSET, expireTime);
+                if (value != null) {
+                    for (int i = 0; i < value.length; i++) {
+                        slots.put(offset + HEADER_BYTES + i, value[i]);
+                    }
+                } else {
+                    slots.putLong(offset + HEADER_BYTES, longValue);
+                }
+            }
+
+            synchronized long increment(long hi, long lo, long now, long expireTime) {
+                int index = find(hi, lo, now);
+                long count = index >= 0 ? slots.getLong(index * slotBytes + HEADER_BYTES) + 1 : 1;
+                put(hi, lo, expireTime, null, count);
+                return count;
+            }
+
+            synchronized void remove(long hi, long lo) {
+                int index = indexOf(hi, lo);
+                if (index >= 0) {
+                    removeAt(index);
+                }
+            }
+
+            synchronized int sweep(long now) {
+                int removed = 0;
+                int index = 0;
+                while (index < capacity) {
+                    int offset = index * slotBytes;
+                    if (!isEmpty(offset) && slots.getLong(offset + EXPIRE_OFFSET) <= now) {
+                        // 后移补位会把后面的条目移到当前位置，需要再检查一次
+                        removeAt(index);
+                        removed++;
+                    } else {
+                        index++;
+                    }
+                }
+                return removed;
+            }
+
+            synchronized int size() {
+                return size;
+            }
+
+            synchronized long bytes() {
+                return (long) capacity * slotBytes;
+            }
+
+            /**
+             * 键所在的槽位，不存在时返回-1
+             */
+            private int indexOf(long hi, long lo) {
+                int mask = capacity - 1;
+                int index = (int) lo & mask;
+                while (true) {
+                    int offset = index * slotBytes;
+                    long slotHi = slots.getLong(offset);
+                    long slotLo = slots.getLong(offset + 8);
+                    if (slotHi == hi && slotLo == lo) {
+                        return index;
+                    }
+                    if (slotHi == 0 && slotLo == 0) {
+                        return -1;
+                    }
+                    index = (index + 1) & mask;
+                }
+            }
+
+            /**
+             * 键所在的槽位，不存在时占用一个空位（必要时先扩容）
+             */
+            private int slotFor(long hi, long lo) {
+                int index = indexOf(hi, lo);
+                if (index >= 0) {
+                    return index;
+                }
+                if (size + 1 > capacity * MAX_LOAD) {
+                    resize();
+                }
+                int mask = capacity - 1;
+                index = (int) lo & mask;
+                while (!isEmpty(index * slotBytes)) {
+                    index = (index + 1) & mask;
+                }
+                int offset = index * slotBytes;
+                slots.putLong(offset, hi);
+                slots.putLong(offset + 8, lo);
+                size++;
+                return index;
+            }
+
+            /**
+             * 删除槽位，并把同一探测链上后面的条目前移，保证查找不会在空位处提前结束
+             */
+            private void removeAt(int index) {
+                int mask = capacity - 1;
+                int hole = index;
+                int next = index;
+                while (true) {
+                    next = (next + 1) & mask;
+                    int offset = next * slotBytes;
+                    if (isEmpty(offset)) {
+                        break;
+                    }
+                    int home = (int) slots.getLong(offset + 8) & mask;
+                    boolean movable = hole <= next
+                            ? home <= hole || home > next
+                            : home <= hole && home > next;
+                    if (movable) {
+                        copy(next, hole);
+                        hole = next;
+                    }
+                }
+                int offset = hole * slotBytes;
+                for (int i = 0; i < slotBytes; i += Long.BYTES) {
+                    slots.putLong(offset + i, 0L);
+                }
+                size--;
+            }
+
+            private void resize() {
+                if ((long) capacity * 2 * slotBytes > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("嵌入式令牌存储容量已达上限: " + name);
+                }
+                ByteBuffer old = slots;
+                int oldCapacity = capacity;
+                allocate(capacity * 2);
+                int mask = capacity - 1;
+                for (int i = 0; i < oldCapacity; i++) {
+                    int from = i * slotBytes;
+                    long hi = old.getLong(from);
+                    long lo = old.getLong(from + 8);
+                    if (hi == 0 && lo == 0) {
+                        continue;
+                    }
+                    int index = (int) lo & mask;
+                    while (!isEmpty(index * slotBytes)) {
+                        index = (index + 1) & mask;
+                    }
+                    int to = index * slotBytes;
+                    for (int j = 0; j < slotBytes; j += Long.BYTES) {
+                        slots.putLong(to + j, old.getLong(from + j));
+                    }
+                    size++;
+                }
+            }
+
+            private void allocate(int capacity) {
+                this.capacity = capacity;
+                this.slots = ByteBuffer.allocateDirect(capacity * slotBytes);
+                this.size = 0;
+            }
+
+            private boolean isEmpty(int offset) {
+                return slots.getLong(offset) == 0 && slots.getLong(offset + 8) == 0;
+            }
+
+            private void copy(int from, int to) {
+                int source = from * slotBytes;
+                int target = to * slotBytes;
+                for (int i = 0; i < slotBytes; i += Long.BYTES) {
+                    slots.putLong(target + i, slots.getLong(source + i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.Permission;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 权限目录
+ * <p>
+ * 按权限ID排序为每个权限分配一个位序号，用于把用户权限编码为紧凑的位图写入令牌。
+ * 目录版本号由有序权限名计算，签发和验证节点版本不一致时，验证方应回退到数据库加载。
+ * 目录由 RbacSnapshot 的权限列表派生：权限增删改提交后快照在所有节点重新加载，目录随之重建，
+ * 版本号改变，按旧目录签发的令牌在验证时回退到数据库加载。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PermissionCatalog {
+
+    @Autowired
+    private RbacSnapshot rbacSnapshot;
+
+    private volatile Catalog catalog;
+
+    /**
+     * 获取目录版本号
+     */
+    public String getVersion() {
+        return load().version;
+    }
+
+    /**
+     * 将权限列表编码为位图
+     *
+     * @param permissions 权限列表
+     * @return Base64url编码的位图
+     */
+    public String encode(List<Permission> permissions) {
+        Catalog current = load();
+        BitSet bits = new BitSet(current.permissions.size());
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                Integer index = current.indexByName.get(permission.getPermissionName());
+                if (index != null) {
+                    bits.set(index);
+                }
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bits.toByteArray());
+    }
+
+    /**
+     * 将位图解码为权限列表
+     *
+     * @param encoded Base64url编码的位图
+     * @param version 签发时的目录版本号
+     * @return 权限列表，版本号不一致时返回null
+     */
+    public List<Permission> decode(String encoded, String version) {
+        Catalog current = load();
+        if (!current.version.equals(version)) {
+            return null;
+        }
+        BitSet bits = BitSet.valueOf(Base64.getUrlDecoder().decode(encoded));
+        List<Permission> permissions = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0 && i < current.permissions.size(); i = bits.nextSetBit(i + 1)) {
+            permissions.add(current.permissions.get(i));
+        }
+        return permissions;
+    }
+
+    /**
+     * 取与当前角色权限快照一致的目录，快照的权限列表换了实例时重建
+     */
+    private Catalog load() {
+        List<Permission> permissions = rbacSnapshot.getPermissions();
+        Catalog current = catalog;
+        if (current == null || current.permissions != permissions) {
+            current = new Catalog(permissions);
+            catalog = current;
+            log.info("权限目录已重建，权限数: {}，版本: {}", permissions.size(), current.version);
+        }
+        return current;
+    }
+
+    /**
+     * 不可变的目录快照
+     */
+    private static class Catalog {
+
+        /**
+         * 快照的权限列表（同一实例），用于判断快照是否已重新加载
+         */
+        private final List<Permission> permissions;
+
+        private final Map<String, Integer> indexByName;
+
+        private final String version;
+
+        Catalog(List<Permission> permissions) {
+            this.permissions = permissions;
+            this.indexByName = new HashMap<>();
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < permissions.size(); i++) {
+                String name = permissions.get(i).getPermissionName();
+                indexByName.put(name, i);
+                crc.update(name.getBytes(StandardCharsets.UTF_8));
+                crc.update(0);
+            }
+            this.version = Long.toHexString(crc.getValue());
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.Permission;
+import com.example.jwt.entity.Role;
+import com.example.jwt.entity.RolePermission;
+import com.example.jwt.mapper.PermissionMapper;
+import com.example.jwt.mapper.RoleMapper;
+import com.example.jwt.mapper.RolePermissionMapper;
+import com.example.jwt.util.RedisUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 角色权限快照
+ * <p>
+ * 在内存中保存不可变的角色→权限关系，按角色预先算好权限列表，加载用户时只需查询用户的角色ID，
+ * 不再联表查询角色和权限。权限的 url/method 同时编译为 RouteIndex，供 RouteAuthorizationFilter
+ * 按请求路径查找所需权限。
+ * <p>
+ * 快照在启动时加载，角色、权限或角色权限关联变更提交后整体重新加载并原子替换，
+ * 通过Redis发布订阅通知其他节点重新加载；版本号由快照内容计算，版本相同的通知直接忽略。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class RbacSnapshot implements MessageListener {
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+
+    @Autowired
+    private RolePermissionMapper rolePermissionMapper;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private TokenStore tokenStore;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        if (!tokenStore.isLocal()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(RedisUtil.RBAC_CHANNEL));
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // 数据库暂不可用时不阻止启动，首次使用时再加载
+            log.warn("角色权限快照加载失败，将在首次使用时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 解析角色ID对应的角色和权限
+     * <p>
+     * 只有一个角色时直接返回预先算好的列表；多个角色按权限ID合并去重。已删除或不存在的角色忽略。
+     *
+     * @param roleIds 角色ID列表
+     * @return 角色和权限（列表不可修改）
+     */
+    public Authorities resolve(List<Long> roleIds) {
+        Snapshot current = load();
+        if (roleIds == null || roleIds.isEmpty()) {
+            return Authorities.EMPTY;
+        }
+        if (roleIds.size() == 1) {
+            Integer index = current.roleIndexById.get(roleIds.get(0));
+            return index != null ? current.authoritiesByRole[index] : Authorities.EMPTY;
+        }
+
+        List<Role> roles = new ArrayList<>(roleIds.size());
+        BitSet merged = new BitSet(current.permissions.length);
+        for (Long roleId : roleIds) {
+            Integer index = current.roleIndexById.get(roleId);
+            if (index != null) {
+                roles.add(current.roles[index]);
+                for (int permissionIndex : current.permissionIndexesByRole[index]) {
+                    merged.set(permissionIndex);
+                }
+            }
+        }
+        List<Permission> permissions = new ArrayList<>(merged.cardinality());
+        for (int i = merged.nextSetBit(0); i >= 0; i = merged.nextSetBit(i + 1)) {
+            permissions.add(current.permissions[i]);
+        }
+        return new Authorities(Collections.unmodifiableList(roles), Collections.unmodifiableList(permissions));
+    }
+
+    /**
+     * 查找请求所需的权限
+     *
+     * @param method HTTP方法
+     * @param path   应用内路径
+     * @return 拥有其中任意一个即可访问；permission 表中没有匹配的路由时返回null
+     */
+    public String[] requiredPermissions(String method, String path) {
+        return load().routes.match(method, path);
+    }
+
+    /**
+     * 全部权限，按ID排序、不可修改；快照重新加载后返回新的列表实例
+     */
+    public List<Permission> getPermissions() {
+        return load().permissionList;
+    }
+
+    /**
+     * 获取快照版本号
+     */
+    public String getVersion() {
+        return load().version;
+    }
+
+    /**
+     * 角色权限变更提交后调用：重新加载快照，失效本节点的用户详情缓存并通知其他节点
+     */
+    public void refresh() {
+        String version;
+        synchronized (this) {
+            reload();
+            version = snapshot.version;
+        }
+        // 先替换快照再失效缓存，避免并发加载的用户按旧快照解析后回填
+        userDetailsCache.invalidate(null);
+        if (!tokenStore.isLocal()) {
+            redisUtil.publish(RedisUtil.RBAC_CHANNEL, version);
+        }
+    }
+
+    /**
+     * 从数据库重新加载快照
+     * <p>
+     * 加载串行执行：后开始的加载在前一次替换快照之后才查询数据库，读到的数据不会比已替换的快照旧，
+     * 不会出现较早开始、较晚结束的加载用旧数据覆盖新快照。
+     */
+    public synchronized void reload() {
+        List<Role> roles = new ArrayList<>(roleMapper.findAllRoles());
+        List<Permission> permissions = new ArrayList<>(permissionMapper.findAllPermissions());
+        List<RolePermission> rolePermissions = rolePermissionMapper.findAllRolePermissions();
+        roles.sort(Comparator.comparing(Role::getId));
+        permissions.sort(Comparator.comparing(Permission::getId));
+        Snapshot loaded = new Snapshot(roles, permissions, rolePermissions);
+        snapshot = loaded;
+        log.info("角色权限快照已加载，角色数: {}，权限数: {}，关联数: {}，路由数: {}，版本: {}",
+                roles.size(), permissions.size(), rolePermissions.size(), loaded.routes.size(), loaded.version);
+    }
+
+    /**
+     * 接收其他节点（及本节点）发布的变更通知，消息内容为新快照的版本号
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String version = new String(message.getBody(), StandardCharsets.UTF_8);
+        Snapshot current = snapshot;
+        if (current != null && current.version.equals(version)) {
+            return;
+        }
+        reload();
+        userDetailsCache.invalidate(null);
+    }
+
+    private Snapshot load() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 用户的角色和权限
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Authorities {
+
+        private static final Authorities EMPTY = new Authorities(Collections.emptyList(), Collections.emptyList());
+
+        private final List<Role> roles;
+
+        private final List<Permission> permissions;
+    }
+
+    /**
+     * 不可变的快照，角色和权限按ID排序，以数组下标互相引用
+     */
+    private static class Snapshot {
+
+        private final Role[] roles;
+
+        private final Permission[] permissions;
+
+        private final List<Permission> permissionList;
+
+        private final Map<Long, Integer> roleIndexById;
+
+        /**
+         * 角色下标 -> 权限下标（升序）
+         */
+        private final int[][] permissionIndexesByRole;
+
+        /**
+         * 角色下标 -> 只有该角色时的解析结果
+         */
+        private final Authorities[] authoritiesByRole;
+
+        private final RouteIndex routes;
+
+        private final String version;
+
+        Snapshot(List<Role> roles, List<Permission> permissions, List<RolePermission> rolePermissions) {
+            this.roles = roles.toArray(new Role[0]);
+            this.permissions = permissions.toArray(new Permission[0]);
+            this.permissionList = Collections.unmodifiableList(Arrays.asList(this.permissions));
+            this.roleIndexById = new HashMap<>();
+            for (int i = 0; i < this.roles.length; i++) {
+                roleIndexById.put(this.roles[i].getId(), i);
+            }
+            this.routes = RouteIndex.compile(permissions);
+            Map<Long, Integer> permissionIndexById = new HashMap<>();
+            for (int i = 0; i < this.permissions.length; i++) {
+                permissionIndexById.put(this.permissions[i].getId(), i);
+            }
+
+            BitSet[] granted = new BitSet[this.roles.length];
+            for (int i = 0; i < granted.length; i++) {
+                granted[i] = new BitSet(this.permissions.length);
+            }
+            for (RolePermission rolePermission : rolePermissions) {
+                Integer roleIndex = roleIndexById.get(rolePermission.getRoleId());
+                Integer permissionIndex = permissionIndexById.get(rolePermission.getPermissionId());
+                if (roleIndex != null && permissionIndex != null) {
+                    granted[roleIndex].set(permissionIndex);
+                }
+            }
+
+            CRC32 crc = new CRC32();
+            this.permissionIndexesByRole = new int[this.roles.length][];
+            this.authoritiesByRole = new Authorities[this.roles.length];
+            for (int i = 0; i < this.roles.length; i++) {
+                int[] indexes = granted[i].stream().toArray();
+                List<Permission> rolePermissionList = new ArrayList<>(indexes.length);
+                for (int index : indexes) {
+                    rolePermissionList.add(this.permissions[index]);
+                }
+                permissionIndexesByRole[i] = indexes;
+                authoritiesByRole[i] = new Authorities(Collections.singletonList(this.roles[i]),
+                        Collections.unmodifiableList(rolePermissionList));
+                update(crc, this.roles[i].getId() + ":" + this.roles[i].getRoleName() + "=");
+                for (int index : indexes) {
+                    update(crc, this.permissions[index].getId() + ":" + this.permissions[index].getPermissionName());
+                }
+            }
+            for (Permission permission : this.permissions) {
+                update(crc, permission.getId() + ":" + permission.getUrl() + ":" + permission.getMethod());
+            }
+            this.version = Long.toHexString(crc.getValue());
+        }
+
+        private static void update(CRC32 crc, String value) {
+            crc.update(value.getBytes(StandardCharsets.UTF_8));
+            crc.update(0);
+        }
+    }
+}
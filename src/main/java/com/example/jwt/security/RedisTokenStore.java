@@ -0,0 +1,91 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于Redis的令牌状态存储（默认）
+ * <p>
+ * 委托给 RedisUtil，支持分片、熔断降级和跨节点的吊销通知。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.token-store.type", havingValue = "redis", matchIfMissing = true)
+public class RedisTokenStore implements TokenStore, BlacklistScanner {
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Override
+    public void completeLogin(String username, String refreshToken, long expireTime) {
+        redisUtil.completeLogin(username, refreshToken, expireTime);
+    }
+
+    @Override
+    public boolean isRefreshTokenValid(String tokenId, String username, String refreshToken) {
+        return redisUtil.isRefreshTokenValid(tokenId, username, refreshToken);
+    }
+
+    @Override
+    public void removeRefreshToken(String username) {
+        redisUtil.removeRefreshToken(username);
+    }
+
+    @Override
+    public void revokeSession(String accessTokenId, long accessTokenExpireTime,
+                              String refreshTokenId, long refreshTokenExpireTime, String username) {
+        redisUtil.revokeSession(accessTokenId, accessTokenExpireTime, refreshTokenId, refreshTokenExpireTime, username);
+    }
+
+    @Override
+    public void addTokenToBlacklist(String tokenId, long expireTime) {
+        redisUtil.addTokenToBlacklist(tokenId, expireTime);
+    }
+
+    @Override
+    public boolean isTokenBlacklisted(String tokenId) {
+        return redisUtil.isTokenBlacklisted(tokenId);
+    }
+
+    @Override
+    public List<Boolean> areTokensBlacklisted(List<String> tokenIds) {
+        return redisUtil.areTokensBlacklisted(tokenIds);
+    }
+
+    @Override
+    public void scanBlacklist(Consumer<String> consumer) {
+        redisUtil.scanBlacklist(consumer);
+    }
+
+    @Override
+    public void setRevocationEpoch(String username, long epoch, long expireTime) {
+        redisUtil.setRevocationEpoch(username, epoch, expireTime);
+    }
+
+    @Override
+    public long getRevocationEpoch(String username) {
+        return redisUtil.getRevocationEpoch(username);
+    }
+
+    @Override
+    public LoginFailure incrementLoginFailure(String username, int lockTime, int maxFailures) {
+        return redisUtil.incrementLoginFailure(username, lockTime, maxFailures);
+    }
+
+    @Override
+    public void clearLoginFailRecord(String username) {
+        redisUtil.clearLoginFailRecord(username);
+    }
+
+    @Override
+    public boolean isDegraded() {
+        return redisUtil.isDegraded();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.jwt.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 要求当前用户拥有任意一个角色
+ * <p>
+ * 等价于 {@code @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")}，但在启动时由 RequiresAnyRoleInterceptor
+ * 编译为位图检查，调用时不再解析和求值SpEL。只对Controller的处理方法生效；方法上的注解优先于类上的注解。
+ * 可与 {@code @PreAuthorize} 同时使用，两者都通过才放行。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequiresAnyRole {
+
+    /**
+     * 角色名，可带或不带 ROLE_ 前缀
+     */
+    String[] value();
+}
@@ -0,0 +1,346 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 令牌黑名单的本地布隆过滤器
+ * <p>
+ * 每个节点在内存中保存已吊销令牌ID的布隆过滤器，过滤器判定"一定未吊销"时不再访问Redis，
+ * 只有可能命中的ID才到Redis确认。过滤器在启动时和之后每隔 rebuild-interval 通过 SCAN
+ * 黑名单键重建（同时清除已过期的条目），两次重建之间由Redis发布订阅实时追加新吊销的ID；
+ * 本节点吊销的ID在写入Redis前同步加入过滤器，不依赖发布订阅的回声。
+ * 首次重建完成前所有检查都直接访问Redis。
+ * <p>
+ * 订阅断开期间错过的吊销消息会在下一次重建时补上，rebuild-interval 即为这种情况下的最长生效延迟。
+ * Redis熔断期间不使用过滤器，所有检查交给 RedisUtil 的降级逻辑；令牌存储在本进程内或不支持遍历黑名单
+ * （未实现 {@link BlacklistScanner}）时不启用过滤器。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class RevocationBloomFilter implements MessageListener {
+
+    @Value("${jwt.revocation-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.revocation-filter.expected-insertions:100000}")
+    private int expectedInsertions;
+
+    @Value("${jwt.revocation-filter.fpp:0.01}")
+    private double fpp;
+
+    @Autowired
+    private TokenStore tokenStore;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BlacklistScanner blacklistScanner;
+
+    private volatile BloomFilter current;
+
+    private volatile Queue<String> pending;
+
+    private volatile boolean ready;
+
+    private Counter negativeLookups;
+
+    private Counter falsePositiveLookups;
+
+    private Counter revokedLookups;
+
+    @PostConstruct
+    public void init() {
+        current = BloomFilter.create(expectedInsertions, fpp);
+        negativeLookups = lookupCounter("negative");
+        falsePositiveLookups = lookupCounter("false_positive");
+        revokedLookups = lookupCounter("revoked");
+        Gauge.builder("jwt.revocation.filter.fpp", this, f -> f.current.expectedFpp())
+                .description("布隆过滤器按当前元素数估算的误判率")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.filter.bytes", this, f -> f.current.sizeInBytes())
+                .description("布隆过滤器位数组占用的内存")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.filter.entries", this, f -> f.current.insertions())
+                .description("布隆过滤器中的元素数")
+                .register(meterRegistry);
+        if (enabled && tokenStore.isLocal()) {
+            enabled = false;
+            log.info("令牌存储在本进程内，不使用吊销布隆过滤器");
+        }
+        if (enabled && !(tokenStore instanceof BlacklistScanner)) {
+            enabled = false;
+            log.info("令牌存储不支持遍历黑名单，不使用吊销布隆过滤器");
+        }
+        if (enabled) {
+            blacklistScanner = (BlacklistScanner) tokenStore;
+            listenerContainer.addMessageListener(this, new ChannelTopic(RedisUtil.REVOCATION_CHANNEL));
+        }
+        log.info("令牌吊销布隆过滤器: enabled={}, expectedInsertions={}, fpp={}", enabled, expectedInsertions, fpp);
+    }
+
+    /**
+     * 检查令牌是否已吊销
+     *
+     * @param tokenId 吊销标识
+     * @return 是否已吊销
+     */
+    public boolean isRevoked(String tokenId) {
+        boolean filtered = useFilter();
+        if (filtered && !current.mightContain(tokenId)) {
+            negativeLookups.increment();
+            return false;
+        }
+        boolean revoked = tokenStore.isTokenBlacklisted(tokenId);
+        if (filtered) {
+            (revoked ? revokedLookups : falsePositiveLookups).increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * 批量检查令牌是否已吊销，可能命中的ID通过一次管道往返确认
+     *
+     * @param tokenIds 吊销标识列表
+     * @return 与输入顺序一致的检查结果
+     */
+    public List<Boolean> areRevoked(List<String> tokenIds) {
+        if (!useFilter()) {
+            return tokenStore.areTokensBlacklisted(tokenIds);
+        }
+        BloomFilter filter = current;
+        List<Boolean> revoked = new ArrayList<>(tokenIds.size());
+        List<Integer> candidates = new ArrayList<>();
+        List<String> candidateIds = new ArrayList<>();
+        for (int i = 0; i < tokenIds.size(); i++) {
+            revoked.add(false);
+            if (filter.mightContain(tokenIds.get(i))) {
+                candidates.add(i);
+                candidateIds.add(tokenIds.get(i));
+            } else {
+                negativeLookups.increment();
+            }
+        }
+        List<Boolean> confirmed = tokenStore.areTokensBlacklisted(candidateIds);
+        for (int j = 0; j < candidates.size(); j++) {
+            boolean hit = confirmed.get(j);
+            revoked.set(candidates.get(j), hit);
+            (hit ? revokedLookups : falsePositiveLookups).increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * 把本节点吊销的ID加入过滤器，应在写入黑名单之前调用
+     * <p>
+     * 吊销通知丢失或尚未回到本节点时，过滤器仍会判定该ID可能已吊销并到Redis确认。
+     *
+     * @param tokenId 吊销标识，可为空
+     */
+    public void add(String tokenId) {
+        if (tokenId == null) {
+            return;
+        }
+        Queue<String> queue = pending;
+        if (queue != null) {
+            queue.add(tokenId);
+        }
+        current.put(tokenId);
+    }
+
+    /**
+     * 接收其他节点（及本节点）发布的吊销通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String tokenId = new String(message.getBody(), StandardCharsets.UTF_8);
+        add(tokenId);
+        verifiedTokenCache.invalidateRevoked(tokenId);
+    }
+
+    /**
+     * 从Redis黑名单重建过滤器
+     * <p>
+     * 重建期间收到的吊销通知先暂存，切换到新过滤器后再补入，保证不会漏掉。
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.revocation-filter.rebuild-interval:300000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Queue<String> queue = new ConcurrentLinkedQueue<>();
+        pending = queue;
+        try {
+            List<String> tokenIds = new ArrayList<>();
+            blacklistScanner.scanBlacklist(tokenIds::add);
+
+            // 按实际条目数留出余量，避免条目增长后误判率上升
+            BloomFilter filter = BloomFilter.create(Math.max(expectedInsertions, tokenIds.size() * 2), fpp);
+            tokenIds.forEach(filter::put);
+            current = filter;
+            drain(queue, filter);
+            pending = null;
+            drain(queue, filter);
+            ready = true;
+            log.debug("令牌吊销布隆过滤器已重建，条目数: {}，内存: {} 字节", filter.insertions(), filter.sizeInBytes());
+        } catch (Exception e) {
+            pending = null;
+            log.error("重建令牌吊销布隆过滤器失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 首次重建是否已完成
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Redis熔断期间的吊销只写入本地存储、不发布通知，过滤器不会包含这些ID，此时不能依据过滤器跳过检查
+     */
+    private boolean useFilter() {
+        return enabled && ready && !tokenStore.isDegraded();
+    }
+
+    private static void drain(Queue<String> queue, BloomFilter filter) {
+        String tokenId;
+        while ((tokenId = queue.poll()) != null) {
+            filter.put(tokenId);
+        }
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("jwt.revocation.filter.lookups")
+                .description("吊销检查次数，result=negative 未访问Redis，false_positive 为误判")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 线程安全的布隆过滤器
+     * <p>
+     * 位数组使用 AtomicLongArray，k 个位置由一个64位哈希的高低32位做双重哈希得到。
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+
+        private final long numBits;
+
+        private final int numHashes;
+
+        private final AtomicLong insertions = new AtomicLong();
+
+        private BloomFilter(long numBits, int numHashes) {
+            int numWords = (int) ((numBits + 63) >>> 6);
+            this.words = new AtomicLongArray(numWords);
+            this.numBits = (long) numWords << 6;
+            this.numHashes = numHashes;
+        }
+
+        /**
+         * 按预期元素数和目标误判率计算位数组大小和哈希函数个数
+         */
+        static BloomFilter create(int expectedInsertions, double fpp) {
+            int n = Math.max(expectedInsertions, 1);
+            long numBits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+            return new BloomFilter(Math.max(numBits, 64), numHashes);
+        }
+
+        void put(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, old, old | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 按当前元素数估算的误判率：(1 - e^(-kn/m))^k
+         */
+        double expectedFpp() {
+            return Math.pow(1 - Math.exp(-(double) numHashes * insertions.get() / numBits), numHashes);
+        }
+
+        long sizeInBytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+
+        long insertions() {
+            return insertions.get();
+        }
+
+        /**
+         * FNV-1a 64位哈希，再经 MurmurHash3 的 fmix64 混合
+         */
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
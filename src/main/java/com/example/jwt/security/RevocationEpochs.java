@@ -0,0 +1,123 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户级令牌吊销纪元
+ * <p>
+ * 每个用户在令牌存储中保存一个吊销时间点（毫秒），签发时间不晚于该时间点的令牌全部失效，
+ * 吊销用户的所有会话只需一次写入，与会话数量无关。
+ * 令牌的签发时间取毫秒精度的 iatMs，吊销之后（如修改密码后重新登录）签发的令牌不受影响。
+ * 没有 iatMs 的旧令牌按 iat 所在秒的起点比较；旧版本写入的秒级纪元按该秒的最后一毫秒处理。
+ * <p>
+ * 各节点在本地缓存纪元值，吊销时通过Redis发布订阅通知所有节点更新；
+ * 通知丢失时本地值最多在 local-ttl 之后从Redis重新加载。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class RevocationEpochs implements MessageListener {
+
+    /**
+     * 小于该值的纪元是旧版本写入的秒级时间戳
+     */
+    private static final long SECONDS_EPOCH_LIMIT = 100_000_000_000L;
+
+    @Value("${jwt.revocation-epoch.local-ttl:30000}")
+    private long localTtl;
+
+    @Value("${jwt.revocation-epoch.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${jwt.refresh-token-expiration}")
+    private long refreshTokenExpiration;
+
+    @Autowired
+    private TokenStore tokenStore;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    private LoadingCache<String, Long> epochs;
+
+    @PostConstruct
+    public void init() {
+        epochs = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(localTtl, TimeUnit.MILLISECONDS)
+                .build(username -> toMillis(tokenStore.getRevocationEpoch(username)));
+        if (!tokenStore.isLocal()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(RedisUtil.REVOCATION_EPOCH_CHANNEL));
+        }
+    }
+
+    /**
+     * 令牌是否已被用户级吊销
+     *
+     * @param validatedToken 已验证的令牌
+     * @return 签发时间不晚于用户的吊销纪元时返回true
+     */
+    public boolean isRevoked(ValidatedToken validatedToken) {
+        if (validatedToken.getSubject() == null) {
+            return false;
+        }
+        long epoch = epochs.get(validatedToken.getSubject());
+        return epoch > 0 && validatedToken.getIssuedAt() <= epoch;
+    }
+
+    /**
+     * 吊销用户此前签发的所有令牌
+     * <p>
+     * 纪元值保留一个刷新令牌有效期，之后此前签发的令牌都已自然过期。
+     *
+     * @param username 用户名
+     */
+    public void revokeAll(String username) {
+        long epoch = System.currentTimeMillis();
+        // 写入纪元并通知其他节点；Redis熔断期间先记在本地，恢复后回放
+        tokenStore.setRevocationEpoch(username, epoch, refreshTokenExpiration);
+        epochs.put(username, epoch);
+        log.info("已吊销用户的所有令牌: {}, epoch: {}", username, epoch);
+    }
+
+    /**
+     * 接收其他节点（及本节点）发布的吊销通知，消息格式为 epoch:username
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator <= 0) {
+            return;
+        }
+        try {
+            long epoch = toMillis(Long.parseLong(body.substring(0, separator)));
+            epochs.asMap().merge(body.substring(separator + 1), epoch, Math::max);
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的吊销纪元通知: {}", body);
+        }
+    }
+
+    /**
+     * 旧版本写入的秒级纪元换算为该秒的最后一毫秒，该秒内签发的令牌仍然失效
+     */
+    private static long toMillis(long epoch) {
+        return epoch > 0 && epoch < SECONDS_EPOCH_LIMIT ? epoch * 1000L + 999L : epoch;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.jwt.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 基于 permission 表的URL授权过滤器
+ * <p>
+ * 放在 FilterSecurityInterceptor 之后：静态规则（permitAll / authenticated）先生效，
+ * 再按 RbacSnapshot 中编译好的路由索引查找请求所需权限，拥有其中任意一个即放行。
+ * 查找使用解码并规范化后的应用内路径，与 Spring MVC 分派请求时看到的路径一致。
+ * permission 表没有配置的路径不做限制，仍由方法注解控制。拒绝时抛出 AccessDeniedException，
+ * 由 ExceptionTranslationFilter 按未认证（401）或权限不足（403）处理。
+ * <p>
+ * 由 SecurityConfig 创建并加入安全过滤器链，不注册为Spring Bean，避免被Servlet容器重复注册。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+public class RouteAuthorizationFilter extends OncePerRequestFilter {
+
+    private final RbacSnapshot rbacSnapshot;
+
+    public RouteAuthorizationFilter(RbacSnapshot rbacSnapshot) {
+        this.rbacSnapshot = rbacSnapshot;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!HttpMethod.OPTIONS.matches(request.getMethod())) {
+            // 与 Spring MVC 匹配处理器时使用同一路径：已解码、去掉 ;jsessionid 等参数、合并重复斜杠，
+            // 否则 /user/%61dmin/users 之类的编码路径查不到路由却会被分派到 /user/admin/users
+            String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+            String[] required = rbacSnapshot.requiredPermissions(request.getMethod(), path);
+            if (required != null && !isGranted(SecurityContextHolder.getContext().getAuthentication(), required)) {
+                log.debug("URL权限不足: {} {}, 需要: {}", request.getMethod(), path, String.join(",", required));
+                throw new AccessDeniedException("权限不足，访问被拒绝");
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isGranted(Authentication authentication, String[] required) {
+        for (String permission : required) {
+            if (AuthorityPermissionEvaluator.hasAuthority(authentication, permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.Permission;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 路由权限索引
+ * <p>
+ * 把 permission 表的 url/method 编译成按路径段组织的前缀树，请求路径逐段下行即可得到所需权限，
+ * 耗时与路径长度成正比，与权限条数无关。路径段支持：
+ * <ul>
+ *     <li>字面量，如 {@code /user/profile}</li>
+ *     <li>{@code *} 或 {@code {name}}：匹配任意一段</li>
+ *     <li>{@code **}：匹配剩余的零段或多段，只能出现在末尾</li>
+ * </ul>
+ * 同一路径同时命中多种模式时按 字面量 > {@code *} > {@code **} 的优先级匹配；method 为空或 {@code *} 表示任意方法。
+ * 空路径段（连续或末尾的斜杠）忽略。实例不可变。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+public final class RouteIndex {
+
+    private static final String ANY_METHOD = "*";
+
+    private static final String SINGLE_WILDCARD = "*";
+
+    private static final String MULTI_WILDCARD = "**";
+
+    private final Node root;
+
+    private final int routeCount;
+
+    private RouteIndex(Node root, int routeCount) {
+        this.root = root;
+        this.routeCount = routeCount;
+    }
+
+    /**
+     * 编译权限列表，url 为空的权限忽略
+     *
+     * @param permissions 权限列表
+     */
+    public static RouteIndex compile(List<Permission> permissions) {
+        Node root = new Node();
+        int routeCount = 0;
+        for (Permission permission : permissions) {
+            if (permission.getUrl() == null || permission.getUrl().trim().isEmpty()) {
+                continue;
+            }
+            Node node = root;
+            String[] segments = permission.getUrl().trim().split("/");
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (MULTI_WILDCARD.equals(segment)) {
+                    if (i < segments.length - 1) {
+                        log.warn("** 只能出现在路径末尾，忽略其后的路径段: {}", permission.getUrl());
+                    }
+                    if (node.multiWildcard == null) {
+                        node.multiWildcard = new Node();
+                    }
+                    node = node.multiWildcard;
+                    break;
+                }
+                if (SINGLE_WILDCARD.equals(segment) || (segment.startsWith("{") && segment.endsWith("}"))) {
+                    if (node.singleWildcard == null) {
+                        node.singleWildcard = new Node();
+                    }
+                    node = node.singleWildcard;
+                } else {
+                    node = node.children.computeIfAbsent(segment, key -> new Node());
+                }
+            }
+            String method = permission.getMethod() == null || permission.getMethod().trim().isEmpty()
+                    ? ANY_METHOD : permission.getMethod().trim().toUpperCase(Locale.ROOT);
+            node.permissionsByMethod.merge(method, new String[]{permission.getPermissionName()}, RouteIndex::concat);
+            routeCount++;
+        }
+        return new RouteIndex(root, routeCount);
+    }
+
+    /**
+     * 查找请求所需的权限
+     *
+     * @param method HTTP方法（大写）
+     * @param path   应用内路径（不含 context-path）
+     * @return 拥有其中任意一个即可访问；未配置路由权限时返回null
+     */
+    public String[] match(String method, String path) {
+        return match(root, method, path, 0);
+    }
+
+    /**
+     * 已编译的路由条数
+     */
+    public int size() {
+        return routeCount;
+    }
+
+    private static String[] match(Node node, String method, String path, int position) {
+        int start = position;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= path.length()) {
+            String[] permissions = node.permissions(method);
+            if (permissions == null && node.multiWildcard != null) {
+                permissions = node.multiWildcard.permissions(method);
+            }
+            return permissions;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        if (!node.children.isEmpty()) {
+            Node child = node.children.get(path.substring(start, end));
+            if (child != null) {
+                String[] permissions = match(child, method, path, end);
+                if (permissions != null) {
+                    return permissions;
+                }
+            }
+        }
+        if (node.singleWildcard != null) {
+            String[] permissions = match(node.singleWildcard, method, path, end);
+            if (permissions != null) {
+                return permissions;
+            }
+        }
+        return node.multiWildcard != null ? node.multiWildcard.permissions(method) : null;
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] merged = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        return merged;
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        private Node singleWildcard;
+
+        private Node multiWildcard;
+
+        /**
+         * HTTP方法 -> 所需权限
+         */
+        private final Map<String, String[]> permissionsByMethod = new HashMap<>(4);
+
+        String[] permissions(String method) {
+            if (permissionsByMethod.isEmpty()) {
+                return null;
+            }
+            String[] permissions = permissionsByMethod.get(method);
+            return permissions != null ? permissions : permissionsByMethod.get(ANY_METHOD);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.jwt.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 令牌状态存储
+ * <p>
+ * 保存刷新token、令牌黑名单、用户吊销纪元和登录失败次数。
+ * 由 jwt.token-store.type 选择实现：redis（默认，多节点共享）或 embedded（单节点，堆外内存）。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public interface TokenStore {
+
+    /**
+     * 登录成功：清除登录失败记录并保存刷新token
+     *
+     * @param username 用户名
+     * @param refreshToken 刷新token
+     * @param expireTime 刷新token过期时间点（毫秒）
+     */
+    void completeLogin(String username, String refreshToken, long expireTime);
+
+    /**
+     * 刷新token未被吊销且与保存的一致
+     *
+     * @param tokenId 刷新token的吊销标识
+     * @param username 用户名
+     * @param refreshToken 待检查的刷新token
+     */
+    boolean isRefreshTokenValid(String tokenId, String username, String refreshToken);
+
+    /**
+     * 删除保存的刷新token
+     *
+     * @param username 用户名
+     */
+    void removeRefreshToken(String username);
+
+    /**
+     * 登出：吊销访问token和刷新token，并删除保存的刷新token
+     *
+     * @param accessTokenId 访问token的吊销标识，可为空
+     * @param accessTokenExpireTime 访问token过期时间点（毫秒）
+     * @param refreshTokenId 刷新token的吊销标识，可为空
+     * @param refreshTokenExpireTime 刷新token过期时间点（毫秒）
+     * @param username 用户名，可为空
+     */
+    void revokeSession(String accessTokenId, long accessTokenExpireTime,
+                       String refreshTokenId, long refreshTokenExpireTime, String username);
+
+    /**
+     * 吊销单个令牌
+     *
+     * @param tokenId 吊销标识
+     * @param expireTime 令牌过期时间点（毫秒），黑名单条目随令牌一起过期
+     */
+    void addTokenToBlacklist(String tokenId, long expireTime);
+
+    /**
+     * 令牌是否已吊销
+     *
+     * @param tokenId 吊销标识
+     */
+    boolean isTokenBlacklisted(String tokenId);
+
+    /**
+     * 批量检查令牌是否已吊销
+     *
+     * @param tokenIds 吊销标识列表
+     * @return 与输入顺序一致的检查结果
+     */
+    List<Boolean> areTokensBlacklisted(List<String> tokenIds);
+
+    /**
+     * 设置用户的吊销纪元
+     *
+     * @param username 用户名
+     * @param epoch 吊销时间点（毫秒）
+     * @param expireTime 保留时长（毫秒）
+     */
+    void setRevocationEpoch(String username, long epoch, long expireTime);
+
+    /**
+     * 获取用户的吊销纪元
+     *
+     * @param username 用户名
+     * @return 吊销时间点（毫秒），未吊销返回0
+     */
+    long getRevocationEpoch(String username);
+
+    /**
+     * 原子地记录一次登录失败，计数在最后一次失败 lockTime 分钟后过期
+     *
+     * @param username 用户名
+     * @param lockTime 计数有效期（分钟）
+     * @param maxFailures 锁定阈值
+     * @return 失败计数和锁定状态，无法记录时返回null
+     */
+    LoginFailure incrementLoginFailure(String username, int lockTime, int maxFailures);
+
+    /**
+     * 清除登录失败记录
+     *
+     * @param username 用户名
+     */
+    void clearLoginFailRecord(String username);
+
+    /**
+     * 存储是否处于降级状态（此时吊销通知可能未发布）
+     */
+    default boolean isDegraded() {
+        return false;
+    }
+
+    /**
+     * 存储是否在本进程内：此时查询没有网络开销，也没有需要通过发布订阅同步的其他节点
+     */
+    default boolean isLocal() {
+        return false;
+    }
+
+    /**
+     * 登录失败记录结果
+     */
+    @Getter
+    @AllArgsConstructor
+    class LoginFailure {
+
+        /**
+         * 当前失败次数
+         */
+        private final int count;
+
+        /**
+         * 是否达到锁定阈值
+         */
+        private final boolean locked;
+
+        /**
+         * 是否由本次失败触发锁定（并发失败时只有一个调用方为true）
+         */
+        private final boolean justLocked;
+    }
+}
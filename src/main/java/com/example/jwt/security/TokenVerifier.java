@@ -0,0 +1,21 @@
+package com.example.jwt.security;
+
+/**
+ * 令牌验证引擎
+ * <p>
+ * JwtUtil 优先使用配置的引擎验证令牌，引擎返回null时回退到 jjwt 完整解析。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+public interface TokenVerifier {
+
+    /**
+     * 验证令牌
+     *
+     * @param token 令牌
+     * @return 已验证的令牌；引擎无法处理该令牌时返回null
+     * @throws io.jsonwebtoken.JwtException 令牌签名错误或已过期
+     */
+    ValidatedToken verify(String token);
+}
@@ -0,0 +1,190 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 用户详情缓存
+ * <p>
+ * 以用户名为键缓存 UserDetailsImpl，按 maximum-size 淘汰，写入 ttl 之后过期。
+ * 同一用户的并发未命中只触发一次数据库加载，其余线程等待加载结果。
+ * 另维护用户ID到用户名的索引，按用户ID失效时只需定位对应条目，不遍历整个缓存。
+ * <p>
+ * 用户、用户角色变更时由 UserDetailsInvalidationInterceptor 调用 {@link #invalidate(Long)}，
+ * 角色权限变更时由 RbacSnapshot 在替换快照后失效全部条目，并通过Redis发布订阅通知其他节点；
+ * 通知丢失时最多在 ttl 之后生效。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class UserDetailsCache implements MessageListener {
+
+    /**
+     * 失效全部条目的通知内容
+     */
+    private static final String ALL = "*";
+
+    @Value("${jwt.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.user-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${jwt.user-cache.ttl:300000}")
+    private long ttl;
+
+    @Autowired
+    private TokenStore tokenStore;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, UserDetailsImpl> cache;
+
+    /**
+     * 用户ID到缓存键的索引；同一用户可能以不同写法的用户名（如大小写不同）各缓存一份
+     */
+    private final ConcurrentHashMap<Long, Set<String>> usernames = new ConcurrentHashMap<>();
+
+    /**
+     * 失效次数，加载期间发生过失效的结果不保留在缓存中
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                // 淘汰、过期时同步清理索引，与同一键上的加载互斥
+                .evictionListener((String username, UserDetailsImpl userDetails, RemovalCause cause) ->
+                        unindex(userDetails, username))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.user-details");
+        if (enabled && !tokenStore.isLocal()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(RedisUtil.USER_DETAILS_CHANNEL));
+        }
+        log.info("用户详情缓存: enabled={}, maximumSize={}, ttl={}ms", enabled, maximumSize, ttl);
+    }
+
+    /**
+     * 查询用户详情，未命中时调用 loader 加载；加载抛出的异常原样抛出，不缓存
+     *
+     * @param username 用户名
+     * @param loader   数据库加载
+     * @return 用户详情
+     */
+    public UserDetailsImpl get(String username, Function<String, UserDetailsImpl> loader) {
+        if (!enabled) {
+            return loader.apply(username);
+        }
+        long before = invalidations.get();
+        boolean[] loaded = new boolean[1];
+        UserDetailsImpl userDetails = cache.get(username, key -> {
+            loaded[0] = true;
+            return loader.apply(key);
+        });
+        if (userDetails == null) {
+            return null;
+        }
+        if (loaded[0]) {
+            // 写入缓存之后再建立索引，之间发生的失效由下面的失效次数检查处理
+            usernames.computeIfAbsent(userDetails.getUser().getId(), id -> ConcurrentHashMap.newKeySet()).add(username);
+        }
+        if (invalidations.get() != before) {
+            // 加载可能读到了失效之前的数据
+            if (cache.asMap().remove(username, userDetails)) {
+                unindex(userDetails, username);
+            }
+        }
+        return userDetails;
+    }
+
+    /**
+     * 失效本节点上的用户条目
+     *
+     * @param userId 用户ID，为null时失效全部条目
+     */
+    public void invalidate(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        if (userId == null) {
+            usernames.clear();
+            cache.invalidateAll();
+            return;
+        }
+        Set<String> keys = usernames.remove(userId);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    /**
+     * 从索引中移除已不在缓存中的条目
+     */
+    private void unindex(UserDetailsImpl userDetails, String username) {
+        usernames.computeIfPresent(userDetails.getUser().getId(), (id, keys) -> {
+            keys.remove(username);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * 通知所有节点（含本节点）失效用户条目
+     *
+     * @param userId 用户ID，为null时失效全部条目
+     */
+    public void publishInvalidation(Long userId) {
+        if (!tokenStore.isLocal()) {
+            redisUtil.publish(RedisUtil.USER_DETAILS_CHANNEL, userId != null ? userId.toString() : ALL);
+        }
+    }
+
+    /**
+     * 接收其他节点（及本节点）发布的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (ALL.equals(body)) {
+            invalidate(null);
+            return;
+        }
+        try {
+            invalidate(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的用户详情失效通知: {}", body);
+        }
+    }
+}
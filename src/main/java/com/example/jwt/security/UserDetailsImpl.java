@@ -3,13 +3,14 @@ package com.example.jwt.security;
 import com.example.jwt.entity.Permission;
 import com.example.jwt.entity.Role;
 import com.example.jwt.entity.User;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -20,32 +21,66 @@ import java.util.List;
  * @since 2024-01-01
  */
 @Data
-@AllArgsConstructor
 public class UserDetailsImpl implements UserDetails {
 
     private User user;
     private List<Role> roles;
     private List<Permission> permissions;
 
+    /**
+     * 权限集合，首次使用时构建，角色或权限列表被替换时重建
+     */
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile AuthoritySet authoritySet;
+
+    /**
+     * 是否由访问令牌claims构建（无状态认证模式），此时 user 只有ID和用户名，其余字段需要时再查询
+     */
+    @Setter(AccessLevel.NONE)
+    private boolean stateless;
+
+    public UserDetailsImpl(User user, List<Role> roles, List<Permission> permissions) {
+        this.user = user;
+        this.roles = roles;
+        this.permissions = permissions;
+    }
+
+    /**
+     * 由访问令牌claims构建的用户详情（无状态认证模式）
+     */
+    public static UserDetailsImpl fromClaims(User user, List<Role> roles, List<Permission> permissions) {
+        UserDetailsImpl userDetails = new UserDetailsImpl(user, roles, permissions);
+        userDetails.stateless = true;
+        return userDetails;
+    }
+
+    public void setRoles(List<Role> roles) {
+        this.roles = roles;
+        this.authoritySet = null;
+    }
+
+    public void setPermissions(List<Permission> permissions) {
+        this.permissions = permissions;
+        this.authoritySet = null;
+    }
+
+    /**
+     * 权限集合（驻留的权限实例和位图），每个主体只构建一次
+     */
+    public AuthoritySet getAuthoritySet() {
+        AuthoritySet current = authoritySet;
+        if (current == null) {
+            current = AuthoritySet.of(roles, permissions);
+            authoritySet = current;
+        }
+        return current;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        List<GrantedAuthority> authorities = new ArrayList<>();
-        
-        // 添加角色权限
-        if (roles != null) {
-            for (Role role : roles) {
-                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getRoleName()));
-            }
-        }
-        
-        // 添加具体权限
-        if (permissions != null) {
-            for (Permission permission : permissions) {
-                authorities.add(new SimpleGrantedAuthority(permission.getPermissionName()));
-            }
-        }
-        
-        return authorities;
+        return getAuthoritySet().getAuthorities();
     }
 
     @Override
@@ -73,8 +108,11 @@ public class UserDetailsImpl implements UserDetails {
         return true;
     }
 
+    /**
+     * 无状态主体不携带账户状态：签发令牌时账户已启用，之后的禁用与角色变更一样在访问令牌过期后生效
+     */
     @Override
     public boolean isEnabled() {
-        return user.getStatus() == 1;
+        return stateless || user.getStatus() == 1;
     }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.example.jwt.security;
+
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.example.jwt.entity.User;
+import com.example.jwt.entity.UserRole;
+import com.example.jwt.mapper.PermissionMapper;
+import com.example.jwt.mapper.RoleMapper;
+import com.example.jwt.mapper.RolePermissionMapper;
+import com.example.jwt.mapper.UserMapper;
+import com.example.jwt.mapper.UserRoleMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户详情缓存失效拦截器
+ * <p>
+ * 拦截 MyBatis 的写操作（insert/update/delete），用户表和用户角色表的变更失效对应用户，
+ * 无法确定用户ID时失效全部用户；只修改登录失败次数的语句不影响 UserDetails，不做失效。在事务中执行时立即失效本节点条目，提交后再失效一次并通知其他节点，
+ * 避免并发加载读到未提交前的数据后回填。
+ * <p>
+ * 角色、权限、角色权限表的变更在提交后重新加载 RbacSnapshot（同时失效全部用户并通知其他节点）。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class UserDetailsInvalidationInterceptor implements Interceptor {
+
+    private static final String USER_ID = "userId";
+
+    /**
+     * 只修改 login_fail_count 的语句；lockUser/unlockUser 修改 lock_time，影响 isAccountNonLocked，仍需失效
+     */
+    private static final Set<String> IGNORED_STATEMENTS = new HashSet<>(Arrays.asList(
+            UserMapper.class.getName() + ".updateLoginFailCount",
+            UserMapper.class.getName() + ".resetLoginFailCount"));
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    /**
+     * 快照依赖的Mapper需要本拦截器先完成创建，延迟注入以避免循环依赖
+     */
+    @Lazy
+    @Autowired
+    private RbacSnapshot rbacSnapshot;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (result instanceof Integer && (Integer) result == 0) {
+            return result;
+        }
+
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        Object parameter = invocation.getArgs()[1];
+        String id = mappedStatement.getId();
+        if (IGNORED_STATEMENTS.contains(id)) {
+            return result;
+        }
+        String namespace = id.substring(0, id.lastIndexOf('.'));
+        if (namespace.equals(UserMapper.class.getName())) {
+            invalidate(resolveUserId(parameter, true), id);
+        } else if (namespace.equals(UserRoleMapper.class.getName())) {
+            invalidate(resolveUserId(parameter, false), id);
+        } else if (namespace.equals(RoleMapper.class.getName())
+                || namespace.equals(PermissionMapper.class.getName())
+                || namespace.equals(RolePermissionMapper.class.getName())) {
+            log.debug("角色权限变更: {}", id);
+            afterCommit(rbacSnapshot::refresh);
+        }
+        return result;
+    }
+
+    private void invalidate(Long userId, String statementId) {
+        log.debug("用户详情缓存失效: {}, userId: {}", statementId, userId != null ? userId : "全部");
+        userDetailsCache.invalidate(userId);
+        afterCommit(() -> {
+            userDetailsCache.invalidate(userId);
+            userDetailsCache.publishInvalidation(userId);
+        });
+    }
+
+    /**
+     * 在当前事务提交后执行，没有事务时立即执行
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 从写操作参数中取用户ID，取不到时返回null
+     *
+     * @param parameter    MyBatis参数：@Param 参数表、实体或主键
+     * @param userIdentity 参数是否为用户表主键（UserMapper.deleteById 等）
+     */
+    private static Long resolveUserId(Object parameter, boolean userIdentity) {
+        Object value = parameter;
+        if (parameter instanceof Map) {
+            Map<?, ?> params = (Map<?, ?>) parameter;
+            if (params.containsKey(USER_ID)) {
+                value = params.get(USER_ID);
+            } else if (params.containsKey(Constants.ENTITY)) {
+                value = params.get(Constants.ENTITY);
+            } else {
+                return null;
+            }
+        }
+        if (value instanceof User) {
+            return ((User) value).getId();
+        }
+        if (value instanceof UserRole) {
+            return ((UserRole) value).getUserId();
+        }
+        if (value instanceof Long && (userIdentity || parameter instanceof Map)) {
+            return (Long) value;
+        }
+        return null;
+    }
+}
@@ -26,20 +26,31 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private RbacSnapshot rbacSnapshot;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // 查询用户信息
-        User user = userMapper.findByUsername(username);
+        return userDetailsCache.get(username, this::loadFromDatabase);
+    }
+
+    /**
+     * 从数据库加载用户详情（缓存未命中时调用）
+     */
+    private UserDetailsImpl loadFromDatabase(String username) {
+        // 只查询用户及其角色ID，角色和权限从内存快照解析
+        User user = userMapper.findByUsernameWithRoleIds(username);
         if (user == null) {
             log.error("用户不存在: {}", username);
             throw new UsernameNotFoundException("用户不存在: " + username);
         }
 
-        // 查询用户角色
-        List<Role> roles = userMapper.findRolesByUserId(user.getId());
-        
-        // 查询用户权限
-        List<Permission> permissions = userMapper.findPermissionsByUserId(user.getId());
+        RbacSnapshot.Authorities authorities = rbacSnapshot.resolve(user.getRoleIds());
+        List<Role> roles = authorities.getRoles();
+        List<Permission> permissions = authorities.getPermissions();
         
         log.debug("加载用户详情: {}, 角色数: {}, 权限数: {}", username, roles.size(), permissions.size());
         
@@ -0,0 +1,104 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.DigestUtil;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * 已验证的令牌
+ * <p>
+ * 令牌只在进入系统时解析并校验一次签名，之后过滤器、服务层和控制器都直接使用该对象，
+ * 不再重复解析。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Getter
+@Builder
+public class ValidatedToken {
+
+    /**
+     * 原始令牌字符串
+     */
+    private final String token;
+
+    /**
+     * 主题（用户名）
+     */
+    private final String subject;
+
+    /**
+     * 用户ID（刷新令牌中可能为空）
+     */
+    private final Long userId;
+
+    /**
+     * 令牌类型：access / refresh
+     */
+    private final String type;
+
+    /**
+     * 令牌ID（jti）
+     */
+    private final String jti;
+
+    /**
+     * 签发时间（毫秒）
+     */
+    private final long issuedAt;
+
+    /**
+     * 过期时间（毫秒）
+     */
+    private final long expiration;
+
+    /**
+     * 角色名，逗号分隔（仅无状态认证模式）
+     */
+    private final String roles;
+
+    /**
+     * 权限位图，Base64url编码（仅无状态认证模式）
+     */
+    private final String permissions;
+
+    /**
+     * 签发时的权限目录版本号（仅无状态认证模式）
+     */
+    private final String permissionVersion;
+
+    /**
+     * 是否为访问令牌
+     */
+    public boolean isAccessToken() {
+        return "access".equals(type);
+    }
+
+    /**
+     * 是否为刷新令牌
+     */
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+
+    /**
+     * 是否携带角色和权限claims
+     */
+    public boolean hasAuthorityClaims() {
+        return roles != null && permissions != null && permissionVersion != null;
+    }
+
+    /**
+     * 吊销标识：令牌的jti；不带jti的旧令牌使用原始令牌的SHA-256摘要
+     */
+    public String getRevocationId() {
+        return jti != null ? jti : DigestUtil.sha256Base64Url(token);
+    }
+
+    /**
+     * 是否已过期，没有过期时间的令牌视为已过期
+     */
+    public boolean isExpired() {
+        return expiration <= System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证令牌缓存
+ * <p>
+ * 以令牌的SHA-256摘要为键缓存验证结果，命中时跳过签名校验；吊销纪元和黑名单检查不依赖本缓存，
+ * 命中后仍由 JwtService 执行，缓存不会延长已吊销令牌的有效时间。
+ * 每个条目在令牌自身过期时间和 max-ttl 中较早的时间点失效；本节点登出和收到吊销通知时立即移除条目，
+ * 避免为已吊销的令牌继续占用缓存。
+ * 命中、未命中和淘汰次数通过 actuator 的 cache.* 指标暴露。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    @Value("${jwt.token-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.token-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${jwt.token-cache.max-ttl:60000}")
+    private long maxTtl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<ByteBuffer, ValidatedToken> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<ByteBuffer, ValidatedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, ValidatedToken value, long currentTime) {
+                        long ttl = Math.min(value.getExpiration() - System.currentTimeMillis(), maxTtl);
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(ttl, 0L));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, ValidatedToken value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, ValidatedToken value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+        log.info("已验证令牌缓存: enabled={}, maximumSize={}, maxTtl={}ms", enabled, maximumSize, maxTtl);
+    }
+
+    /**
+     * 查询已验证的令牌
+     *
+     * @param token 原始令牌
+     * @return 已验证的令牌，未命中返回null
+     */
+    public ValidatedToken get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        ValidatedToken validatedToken = cache.getIfPresent(digest(token));
+        if (validatedToken != null && validatedToken.isExpired()) {
+            return null;
+        }
+        return validatedToken;
+    }
+
+    /**
+     * 缓存已通过全部检查的令牌
+     *
+     * @param validatedToken 已验证的令牌
+     */
+    public void put(ValidatedToken validatedToken) {
+        if (enabled) {
+            cache.put(digest(validatedToken.getToken()), validatedToken);
+        }
+    }
+
+    /**
+     * 移除令牌
+     *
+     * @param token 原始令牌
+     */
+    public void invalidate(String token) {
+        if (enabled) {
+            cache.invalidate(digest(token));
+        }
+    }
+
+    /**
+     * 清空缓存（签名密钥被移除时调用，缓存中可能有该密钥签发的令牌）
+     */
+    public void invalidateAll() {
+        if (enabled) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * 移除吊销标识匹配的令牌（其他节点登出时通过吊销通知调用）
+     *
+     * @param tokenId 吊销标识
+     */
+    public void invalidateRevoked(String tokenId) {
+        if (enabled) {
+            cache.asMap().values().removeIf(validatedToken -> tokenId.equals(validatedToken.getRevocationId()));
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(DigestUtil.sha256(token));
+    }
+}
@@ -1,13 +1,14 @@
 package com.example.jwt.service;
 
+import com.example.jwt.dto.ChangePasswordRequest;
 import com.example.jwt.dto.LoginRequest;
 import com.example.jwt.dto.LoginResponse;
 import com.example.jwt.dto.RegisterRequest;
 import com.example.jwt.entity.User;
 import com.example.jwt.exception.CustomException;
 import com.example.jwt.mapper.UserMapper;
+import com.example.jwt.security.TokenStore;
 import com.example.jwt.security.UserDetailsImpl;
-import com.example.jwt.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -32,6 +33,16 @@ import java.time.LocalDateTime;
 @Service
 public class AuthService {
 
+    /**
+     * 锁定账户的连续登录失败次数
+     */
+    private static final int MAX_LOGIN_FAILURES = 5;
+
+    /**
+     * 失败计数有效期和账户锁定时长（分钟）
+     */
+    private static final int LOCK_MINUTES = 30;
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -45,7 +56,7 @@ public class AuthService {
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private TokenStore tokenStore;
 
     /**
      * 用户登录
@@ -69,11 +80,9 @@ public class AuthService {
             UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             User user = userDetails.getUser();
             
-            // 重置登录失败次数
-            if (redisUtil.getLoginFailCount(username) > 0) {
-                redisUtil.clearLoginFailRecord(username);
-                userMapper.resetLoginFailCount(user.getId());
-            }
+            // 重置数据库中的登录失败次数（Redis中的记录随刷新令牌一起清除）；
+            // 失败次数的更新不失效用户详情缓存，缓存中的次数可能已过期，由SQL条件判断是否需要重置
+            userMapper.resetLoginFailCount(user.getId());
             
             // 生成JWT令牌
             LoginResponse response = jwtService.generateLoginResponse(userDetails, user.getId());
@@ -90,6 +99,11 @@ public class AuthService {
             throw CustomException.unauthorized("账户已被禁用");
             
         } catch (AuthenticationException e) {
+            // 加载用户阶段抛出的异常会被 DaoAuthenticationProvider 包装成 InternalAuthenticationServiceException，
+            // 其中密码哈希线程池拒绝的503原样抛出，返回503和 Retry-After 而不是401
+            if (e.getCause() instanceof CustomException) {
+                throw (CustomException) e.getCause();
+            }
             log.error("认证异常: {} - {}", username, e.getMessage());
             throw CustomException.unauthorized("认证失败");
         }
@@ -139,6 +153,41 @@ public class AuthService {
         log.info("用户注册成功: {}", request.getUsername());
     }
 
+    /**
+     * 修改密码
+     * <p>
+     * 修改成功后吊销该用户已签发的所有令牌，需要重新登录。
+     * 
+     * @param userId 用户ID
+     * @param request 修改密码请求
+     */
+    @Transactional
+    public void changePassword(Long userId, ChangePasswordRequest request) {
+        // 验证新密码确认
+        if (!request.getNewPassword().equals(request.getConfirmNewPassword())) {
+            throw CustomException.validation("两次输入的新密码不一致");
+        }
+        
+        User user = userMapper.selectById(userId);
+        if (user == null) {
+            throw CustomException.notFound("用户不存在");
+        }
+        
+        // 验证原密码
+        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
+            throw CustomException.business("原密码错误");
+        }
+        
+        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.setUpdatedTime(LocalDateTime.now());
+        userMapper.updateById(user);
+        
+        // 吊销所有会话
+        jwtService.revokeAllSessions(user.getUsername());
+        
+        log.info("用户修改密码成功: {}", user.getUsername());
+    }
+
     /**
      * 检查账户锁定状态
      * 
@@ -149,14 +198,14 @@ public class AuthService {
         if (user != null && user.getLockTime() != null) {
             log.info("用户账户已被锁定: {}", username);
             LocalDateTime lockTime = user.getLockTime();
-            LocalDateTime unlockTime = lockTime.plusMinutes(30); // 锁定30分钟
+            LocalDateTime unlockTime = lockTime.plusMinutes(LOCK_MINUTES);
             
             if (LocalDateTime.now().isBefore(unlockTime)) {
                 throw CustomException.unauthorized("账户已被锁定，请30分钟后重试");
             } else {
                 // 解锁账户
                 userMapper.unlockUser(user.getId());
-                redisUtil.clearLoginFailRecord(username);
+                tokenStore.clearLoginFailRecord(username);
             }
         }
     }
@@ -172,16 +221,23 @@ public class AuthService {
             return;
         }
         
-        int failCount = redisUtil.getLoginFailCount(username) + 1;
-        redisUtil.recordLoginFailure(username, failCount, 30); // Redis中记录30分钟
+        // 原子地累加失败次数（记录30分钟）
+        TokenStore.LoginFailure failure = tokenStore.incrementLoginFailure(username, LOCK_MINUTES, MAX_LOGIN_FAILURES);
+        if (failure == null) {
+            return;
+        }
         
         // 更新数据库中的失败次数
-        userMapper.updateLoginFailCount(user.getId(), failCount);
+        userMapper.updateLoginFailCount(user.getId(), failure.getCount());
         
         // 如果失败次数达到5次，锁定账户
-        if (failCount >= 5) {
+        if (failure.isLocked()) {
             userMapper.lockUser(user.getId());
-            log.warn("用户账户已被锁定: {}", username);
+            // 锁定后已签发的令牌同时失效，并发失败时只吊销一次
+            if (failure.isJustLocked()) {
+                jwtService.revokeAllSessions(username);
+                log.warn("用户账户已被锁定: {}", username);
+            }
         }
     }
 }
\ No newline at end of file
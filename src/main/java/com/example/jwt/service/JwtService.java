@@ -2,15 +2,37 @@ package com.example.jwt.service;
 
 import com.example.jwt.dto.RefreshTokenRequest;
 import com.example.jwt.dto.LoginResponse;
+import com.example.jwt.dto.TokenIntrospection;
+import com.example.jwt.entity.Permission;
+import com.example.jwt.entity.Role;
+import com.example.jwt.entity.User;
 import com.example.jwt.exception.CustomException;
+import com.example.jwt.security.PermissionCatalog;
+import com.example.jwt.security.RevocationBloomFilter;
+import com.example.jwt.security.RevocationEpochs;
+import com.example.jwt.security.TokenStore;
+import com.example.jwt.security.UserDetailsImpl;
+import com.example.jwt.security.ValidatedToken;
+import com.example.jwt.security.VerifiedTokenCache;
 import com.example.jwt.util.JwtUtil;
-import com.example.jwt.util.RedisUtil;
+import io.jsonwebtoken.ExpiredJwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * JWT服务类
  * 
@@ -25,13 +47,31 @@ public class JwtService {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private TokenStore tokenStore;
 
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private PermissionCatalog permissionCatalog;
+
+    @Autowired
+    private RevocationBloomFilter revocationFilter;
+
+    @Autowired
+    private RevocationEpochs revocationEpochs;
+
+    @Autowired
+    @Qualifier("introspectionExecutor")
+    private Executor introspectionExecutor;
+
     /**
      * 生成登录响应
+     * <p>
+     * 登录成功后调用，同时清除该用户的登录失败记录。
      * 
      * @param userDetails 用户详情
      * @param userId 用户ID
@@ -44,9 +84,9 @@ public class JwtService {
         // 生成刷新令牌
         String refreshToken = jwtUtil.generateRefreshToken(userDetails);
         
-        // 存储刷新令牌到Redis
+        // 存储刷新令牌并清除登录失败记录
         long refreshTokenExpiration = System.currentTimeMillis() + jwtUtil.getRefreshTokenExpiration();
-        redisUtil.storeRefreshToken(userDetails.getUsername(), refreshToken, refreshTokenExpiration);
+        tokenStore.completeLogin(userDetails.getUsername(), refreshToken, refreshTokenExpiration);
         
         // 构建用户信息
         LoginResponse.UserInfo userInfo = LoginResponse.UserInfo.builder()
@@ -72,33 +112,31 @@ public class JwtService {
     public LoginResponse refreshAccessToken(RefreshTokenRequest request) {
         String refreshToken = request.getRefreshToken();
         
-        // 验证刷新令牌格式
-        if (!jwtUtil.validateTokenFormat(refreshToken)) {
+        // 解析并验证刷新令牌（格式、签名、过期时间），过期由解析时抛出的异常区分
+        ValidatedToken validatedToken;
+        try {
+            validatedToken = jwtUtil.parseToken(refreshToken);
+        } catch (ExpiredJwtException e) {
+            throw CustomException.unauthorized("刷新令牌已过期");
+        } catch (Exception e) {
             throw CustomException.unauthorized("刷新令牌格式无效");
         }
         
         // 检查令牌类型
-        String tokenType = jwtUtil.getTokenType(refreshToken);
-        if (!"refresh".equals(tokenType)) {
+        if (!validatedToken.isRefreshToken()) {
             throw CustomException.unauthorized("令牌类型错误");
         }
         
-        // 检查令牌是否过期
-        if (jwtUtil.isTokenExpired(refreshToken)) {
-            throw CustomException.unauthorized("刷新令牌已过期");
-        }
-        
-        // 检查令牌是否在黑名单中
-        if (redisUtil.isTokenBlacklisted(refreshToken)) {
+        // 检查用户的所有会话是否已被吊销
+        if (revocationEpochs.isRevoked(validatedToken)) {
             throw CustomException.unauthorized("刷新令牌已失效");
         }
         
         // 获取用户名
-        String username = jwtUtil.getUsernameFromToken(refreshToken);
+        String username = validatedToken.getSubject();
         
-        // 验证Redis中存储的刷新令牌
-        String storedRefreshToken = redisUtil.getRefreshToken(username);
-        if (storedRefreshToken == null || !storedRefreshToken.equals(refreshToken)) {
+        // 检查黑名单并验证存储的刷新令牌
+        if (!tokenStore.isRefreshTokenValid(validatedToken.getRevocationId(), username, refreshToken)) {
             throw CustomException.unauthorized("刷新令牌无效");
         }
         
@@ -106,12 +144,15 @@ public class JwtService {
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
         
         // 验证令牌
-        if (!jwtUtil.validateToken(refreshToken, userDetails)) {
+        if (!username.equals(userDetails.getUsername())) {
             throw CustomException.unauthorized("刷新令牌验证失败");
         }
         
-        // 获取用户ID
-        Long userId = jwtUtil.getUserIdFromToken(refreshToken);
+        // 获取用户ID（刷新令牌不携带userId时从用户详情中获取）
+        Long userId = validatedToken.getUserId();
+        if (userId == null && userDetails instanceof UserDetailsImpl) {
+            userId = ((UserDetailsImpl) userDetails).getUser().getId();
+        }
         
         // 生成新的访问令牌
         String newAccessToken = jwtUtil.generateAccessTokenWithUserId(userDetails, userId);
@@ -136,31 +177,46 @@ public class JwtService {
      * @param refreshToken 刷新令牌
      */
     public void logout(String accessToken, String refreshToken) {
+        ValidatedToken validatedAccessToken = accessToken != null ? parseTokenQuietly(accessToken) : null;
+        logout(validatedAccessToken, refreshToken);
+    }
+
+    /**
+     * 登出处理
+     * 
+     * @param accessToken 已验证的访问令牌，可为空
+     * @param refreshToken 刷新令牌
+     */
+    public void logout(ValidatedToken accessToken, String refreshToken) {
         try {
+            ValidatedToken validatedRefreshToken = refreshToken != null ? parseTokenQuietly(refreshToken) : null;
+            
             // 获取用户名
             String username = null;
-            if (accessToken != null && jwtUtil.validateTokenFormat(accessToken)) {
-                username = jwtUtil.getUsernameFromToken(accessToken);
-            } else if (refreshToken != null && jwtUtil.validateTokenFormat(refreshToken)) {
-                username = jwtUtil.getUsernameFromToken(refreshToken);
+            if (accessToken != null) {
+                username = accessToken.getSubject();
+            } else if (validatedRefreshToken != null) {
+                username = validatedRefreshToken.getSubject();
             }
             
-            // 将访问令牌加入黑名单
-            if (accessToken != null && jwtUtil.validateTokenFormat(accessToken)) {
-                long accessTokenExpiration = System.currentTimeMillis() + jwtUtil.getAccessTokenExpiration();
-                redisUtil.addTokenToBlacklist(accessToken, accessTokenExpiration);
+            if (accessToken != null) {
+                verifiedTokenCache.invalidate(accessToken.getToken());
             }
             
-            // 将刷新令牌加入黑名单
-            if (refreshToken != null && jwtUtil.validateTokenFormat(refreshToken)) {
-                long refreshTokenExpiration = System.currentTimeMillis() + jwtUtil.getRefreshTokenExpiration();
-                redisUtil.addTokenToBlacklist(refreshToken, refreshTokenExpiration);
-            }
+            String accessTokenId = accessToken != null ? accessToken.getRevocationId() : null;
+            String refreshTokenId = validatedRefreshToken != null ? validatedRefreshToken.getRevocationId() : null;
             
-            // 删除Redis中存储的刷新令牌
-            if (username != null) {
-                redisUtil.removeRefreshToken(username);
-            }
+            // 先加入本节点的吊销过滤器，不等待发布订阅回声，避免本节点在回声到达前或通知丢失时跳过黑名单检查
+            revocationFilter.add(accessTokenId);
+            revocationFilter.add(refreshTokenId);
+            
+            // 将访问令牌和刷新令牌加入黑名单，并删除存储的刷新令牌
+            tokenStore.revokeSession(
+                    accessTokenId,
+                    accessToken != null ? accessToken.getExpiration() : 0L,
+                    refreshTokenId,
+                    validatedRefreshToken != null ? validatedRefreshToken.getExpiration() : 0L,
+                    username);
             
             log.info("用户登出成功: {}", username);
         } catch (Exception e) {
@@ -176,32 +232,244 @@ public class JwtService {
      * @return 是否有效
      */
     public boolean validateAccessToken(String token) {
+        return resolveAccessToken(token) != null;
+    }
+
+    /**
+     * 解析并验证访问令牌
+     * <p>
+     * 整个验证过程只解析一次令牌，验证通过后返回的对象供后续流程复用。
+     * 
+     * @param token 访问令牌
+     * @return 已验证的访问令牌，验证失败返回null
+     */
+    public ValidatedToken resolveAccessToken(String token) {
         try {
-            // 验证令牌格式
-            if (!jwtUtil.validateTokenFormat(token)) {
-                return false;
+            // 近期已验证过的令牌跳过签名校验，吊销检查仍然执行（黑名单经布隆过滤器，通常不访问Redis）
+            ValidatedToken cachedToken = verifiedTokenCache.get(token);
+            if (cachedToken != null) {
+                if (revocationEpochs.isRevoked(cachedToken) || revocationFilter.isRevoked(cachedToken.getRevocationId())) {
+                    verifiedTokenCache.invalidate(token);
+                    return null;
+                }
+                return cachedToken;
             }
             
-            // 检查令牌类型
-            String tokenType = jwtUtil.getTokenType(token);
-            if (!"access".equals(tokenType)) {
-                return false;
+            // 验证令牌格式、签名、类型和过期时间
+            ValidatedToken validatedToken = parseAccessTokenQuietly(token);
+            if (validatedToken == null) {
+                return null;
             }
             
-            // 检查令牌是否过期
-            if (jwtUtil.isTokenExpired(token)) {
-                return false;
+            // 检查用户的所有会话是否已被吊销
+            if (revocationEpochs.isRevoked(validatedToken)) {
+                return null;
             }
             
             // 检查令牌是否在黑名单中
-            if (redisUtil.isTokenBlacklisted(token)) {
-                return false;
+            if (revocationFilter.isRevoked(validatedToken.getRevocationId())) {
+                return null;
             }
             
-            return true;
+            verifiedTokenCache.put(validatedToken);
+            return validatedToken;
         } catch (Exception e) {
             log.error("验证访问令牌异常: {}", e.getMessage());
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * 吊销用户的所有会话
+     * <p>
+     * 写入用户级吊销纪元，此前签发的访问令牌和刷新令牌全部失效，并删除存储的刷新令牌。
+     * 
+     * @param username 用户名
+     */
+    public void revokeAllSessions(String username) {
+        revocationEpochs.revokeAll(username);
+        tokenStore.removeRefreshToken(username);
+    }
+
+    /**
+     * 批量解析并验证访问令牌
+     * <p>
+     * 与 {@link #resolveAccessToken(String)} 语义一致：签名校验在有界线程池中并行执行，
+     * 黑名单检查批量完成（Redis存储为每个分片一次管道往返）。
+     * 
+     * @param tokens 访问令牌列表
+     * @return 与输入顺序一致的结果，无效令牌对应位置为null
+     */
+    public List<ValidatedToken> resolveAccessTokens(List<String> tokens) {
+        int size = tokens.size();
+        ValidatedToken[] resolved = new ValidatedToken[size];
+        boolean[] cached = new boolean[size];
+        
+        // 并行验证签名，缓存命中的令牌直接使用
+        List<CompletableFuture<Void>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String token = tokens.get(i);
+            if (token == null) {
+                continue;
+            }
+            ValidatedToken cachedToken = verifiedTokenCache.get(token);
+            if (cachedToken != null) {
+                resolved[i] = cachedToken;
+                cached[i] = true;
+                continue;
+            }
+            final int index = i;
+            futures.add(CompletableFuture.runAsync(
+                    () -> resolved[index] = parseAccessTokenQuietly(token), introspectionExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        
+        // 检查用户级吊销
+        for (int i = 0; i < size; i++) {
+            if (resolved[i] != null && revocationEpochs.isRevoked(resolved[i])) {
+                resolved[i] = null;
+            }
+        }
+        
+        // 批量检查黑名单（缓存命中的令牌同样检查）
+        List<Integer> pending = new ArrayList<>();
+        List<String> pendingIds = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (resolved[i] != null) {
+                pending.add(i);
+                pendingIds.add(resolved[i].getRevocationId());
+            }
+        }
+        List<Boolean> blacklisted = revocationFilter.areRevoked(pendingIds);
+        for (int j = 0; j < pending.size(); j++) {
+            int index = pending.get(j);
+            if (blacklisted.get(j)) {
+                if (cached[index]) {
+                    verifiedTokenCache.invalidate(resolved[index].getToken());
+                }
+                resolved[index] = null;
+            } else if (!cached[index]) {
+                verifiedTokenCache.put(resolved[index]);
+            }
+        }
+        return Arrays.asList(resolved);
+    }
+
+    /**
+     * 批量校验令牌，返回每个令牌的状态和权限
+     * 
+     * @param tokens 访问令牌列表
+     * @return 与输入顺序一致的校验结果
+     */
+    public List<TokenIntrospection> introspect(List<String> tokens) {
+        List<ValidatedToken> resolved = resolveAccessTokens(tokens);
+        Map<String, List<String>> authoritiesBySubject = new HashMap<>();
+        List<TokenIntrospection> results = new ArrayList<>(resolved.size());
+        for (ValidatedToken validatedToken : resolved) {
+            if (validatedToken == null) {
+                results.add(TokenIntrospection.inactive());
+                continue;
+            }
+            
+            // 同一批次中相同用户只加载一次
+            List<String> authorities = authoritiesBySubject.get(validatedToken.getSubject());
+            if (authorities == null) {
+                authorities = loadAuthorities(validatedToken);
+                if (authorities == null) {
+                    results.add(TokenIntrospection.inactive());
+                    continue;
+                }
+                authoritiesBySubject.put(validatedToken.getSubject(), authorities);
+            }
+            
+            results.add(TokenIntrospection.builder()
+                    .active(true)
+                    .sub(validatedToken.getSubject())
+                    .userId(validatedToken.getUserId())
+                    .exp(validatedToken.getExpiration() / 1000)
+                    .authorities(authorities)
+                    .build());
+        }
+        return results;
+    }
+
+    /**
+     * 加载令牌对应用户的权限，用户不存在时返回null
+     */
+    private List<String> loadAuthorities(ValidatedToken validatedToken) {
+        UserDetails userDetails = buildUserDetailsFromClaims(validatedToken);
+        if (userDetails == null) {
+            try {
+                userDetails = userDetailsService.loadUserByUsername(validatedToken.getSubject());
+            } catch (UsernameNotFoundException e) {
+                return null;
+            }
+        }
+        List<String> authorities = new ArrayList<>();
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            authorities.add(authority.getAuthority());
+        }
+        return authorities;
+    }
+
+    /**
+     * 根据令牌claims构建用户详情（无状态认证模式）
+     * <p>
+     * 不查询数据库和Redis，用户信息只包含ID和用户名；角色和权限的时效性由访问令牌有效期保证。
+     * 
+     * @param validatedToken 已验证的访问令牌
+     * @return 用户详情；未启用无状态模式、令牌不含权限claims或权限目录版本不一致时返回null
+     */
+    public UserDetailsImpl buildUserDetailsFromClaims(ValidatedToken validatedToken) {
+        if (!jwtUtil.isStatelessAuthEnabled() || !validatedToken.hasAuthorityClaims()) {
+            return null;
+        }
+        List<Permission> permissions = permissionCatalog.decode(
+                validatedToken.getPermissions(), validatedToken.getPermissionVersion());
+        if (permissions == null) {
+            return null;
+        }
+        
+        List<Role> roles = new ArrayList<>();
+        for (String roleName : validatedToken.getRoles().split(",")) {
+            if (!roleName.isEmpty()) {
+                Role role = new Role();
+                role.setRoleName(roleName);
+                roles.add(role);
+            }
+        }
+        
+        User user = new User();
+        user.setId(validatedToken.getUserId());
+        user.setUsername(validatedToken.getSubject());
+        return UserDetailsImpl.fromClaims(user, roles, permissions);
+    }
+
+    /**
+     * 解析访问令牌，格式、签名、类型或过期时间不符合时返回null
+     * 
+     * @param token 访问令牌
+     * @return 已验证的访问令牌
+     */
+    private ValidatedToken parseAccessTokenQuietly(String token) {
+        ValidatedToken validatedToken = parseTokenQuietly(token);
+        if (validatedToken == null || !validatedToken.isAccessToken() || validatedToken.isExpired()) {
+            return null;
+        }
+        return validatedToken;
+    }
+
+    /**
+     * 解析令牌，解析失败时返回null
+     * 
+     * @param token 令牌
+     * @return 已验证的令牌
+     */
+    private ValidatedToken parseTokenQuietly(String token) {
+        try {
+            return jwtUtil.parseToken(token);
+        } catch (Exception e) {
+            return null;
         }
     }
 
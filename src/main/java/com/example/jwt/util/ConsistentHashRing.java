@@ -0,0 +1,96 @@
+package com.example.jwt.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一致性哈希环
+ * <p>
+ * 每个节点按名称在环上放置 virtualNodes 个虚拟节点，键映射到顺时针方向的第一个虚拟节点。
+ * 节点位置只取决于节点名称，与配置顺序无关；增加第N个节点时只有约 1/N 的键迁移到新节点。
+ * 环在构造后不可变，查找为无锁二分查找。
+ *
+ * @param <T> 节点类型
+ * @author example
+ * @since 2024-01-01
+ */
+public final class ConsistentHashRing<T> {
+
+    private final long[] points;
+
+    private final Object[] owners;
+
+    private final List<T> nodes;
+
+    /**
+     * @param nodes 节点名称 -> 节点
+     * @param virtualNodes 每个节点的虚拟节点数
+     */
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("一致性哈希环至少需要一个节点");
+        }
+        int replicas = Math.max(virtualNodes, 1);
+        long[][] entries = new long[nodes.size() * replicas][];
+        List<T> nodeList = new ArrayList<>(nodes.values());
+        int n = 0;
+        int nodeIndex = 0;
+        for (String name : nodes.keySet()) {
+            for (int i = 0; i < replicas; i++) {
+                entries[n++] = new long[]{hash(name + "#" + i), nodeIndex};
+            }
+            nodeIndex++;
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[entries.length];
+        this.owners = new Object[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = nodeList.get((int) entries[i][1]);
+        }
+        this.nodes = Collections.unmodifiableList(nodeList);
+    }
+
+    /**
+     * 键所属的节点
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return (T) owners[index];
+    }
+
+    /**
+     * 全部节点
+     */
+    public List<T> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * FNV-1a 64位哈希（按UTF-8字节），再经 MurmurHash3 的 fmix64 混合，使相近的键均匀分布在环上
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.jwt.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * 摘要工具类
+ * 
+ * @author example
+ * @since 2024-01-01
+ */
+public final class DigestUtil {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private DigestUtil() {
+    }
+
+    /**
+     * 计算SHA-256摘要
+     * 
+     * @param value 字符串
+     * @return 32字节摘要
+     */
+    public static byte[] sha256(String value) {
+        return SHA256.get().digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 计算SHA-256摘要并以Base64url（无填充）编码
+     * 
+     * @param value 字符串
+     * @return 43个字符的摘要
+     */
+    public static String sha256Base64Url(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(value));
+    }
+}
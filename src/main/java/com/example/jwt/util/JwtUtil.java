@@ -1,17 +1,24 @@
 package com.example.jwt.util;
 
+import com.example.jwt.entity.Role;
+import com.example.jwt.security.JwtKeyRing;
+import com.example.jwt.security.PermissionCatalog;
+import com.example.jwt.security.TokenVerifier;
+import com.example.jwt.security.UserDetailsImpl;
+import com.example.jwt.security.ValidatedToken;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.StringJoiner;
 import java.util.function.Function;
 
 /**
@@ -24,8 +31,25 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    /**
+     * 毫秒精度的签发时间，iat 只有秒精度，用户级吊销需要区分吊销同一秒内前后签发的令牌
+     */
+    private static final String ISSUED_AT_MILLIS = "iatMs";
+
+    private static final int TOKEN_ID_BYTES = 12;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private static final Base64.Encoder TOKEN_ID_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    /**
+     * 可选的令牌验证引擎（jwt.verifier），未配置时直接使用 jjwt
+     */
+    @Autowired(required = false)
+    private TokenVerifier tokenVerifier;
 
     @Value("${jwt.access-token-expiration}")
     private Long accessTokenExpiration;
@@ -34,12 +58,13 @@ public class JwtUtil {
     private Long refreshTokenExpiration;
 
     /**
-     * 获取签名密钥
+     * 无状态认证模式：访问令牌携带角色和权限位图
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
+    @Value("${jwt.stateless-auth.enabled:false}")
+    private boolean statelessAuthEnabled;
+
+    @Autowired
+    private PermissionCatalog permissionCatalog;
 
     /**
      * 从token中获取用户名
@@ -68,9 +93,7 @@ public class JwtUtil {
      */
     private Claims getAllClaimsFromToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
+            return keyRing.getParser()
                     .parseClaimsJws(token)
                     .getBody();
         } catch (ExpiredJwtException e) {
@@ -91,6 +114,41 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * 解析并验证token
+     * <p>
+     * 只做一次签名校验，并把后续流程需要的claims一次性取出。
+     * 配置了验证引擎时优先使用引擎，引擎无法处理的令牌回退到 jjwt。
+     * 签名错误、格式错误或已过期时抛出 {@link JwtException}。
+     *
+     * @param token token
+     * @return 已验证的token
+     */
+    public ValidatedToken parseToken(String token) {
+        if (tokenVerifier != null) {
+            ValidatedToken validatedToken = tokenVerifier.verify(token);
+            if (validatedToken != null) {
+                return validatedToken;
+            }
+        }
+        Claims claims = getAllClaimsFromToken(token);
+        Date issuedAt = claims.getIssuedAt();
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS, Long.class);
+        Date expiration = claims.getExpiration();
+        return ValidatedToken.builder()
+                .token(token)
+                .subject(claims.getSubject())
+                .userId(claims.get("userId", Long.class))
+                .type(claims.get("type", String.class))
+                .jti(claims.getId())
+                .issuedAt(issuedAtMillis != null ? issuedAtMillis : issuedAt != null ? issuedAt.getTime() : 0L)
+                .expiration(expiration != null ? expiration.getTime() : 0L)
+                .roles(claims.get("roles", String.class))
+                .permissions(claims.get("perms", String.class))
+                .permissionVersion(claims.get("pv", String.class))
+                .build();
+    }
+
     /**
      * 检查token是否过期
      */
@@ -127,16 +185,29 @@ public class JwtUtil {
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
+        JwtKeyRing.SigningKey signingKey = keyRing.getPrimaryKey();
 
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid())
                 .setClaims(claims)
+                .claim(ISSUED_AT_MILLIS, now.getTime())
+                .setId(generateTokenId())
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey.getKey(), signingKey.getAlgorithm())
                 .compact();
     }
 
+    /**
+     * 生成令牌ID：96位随机数，Base64url编码为16个字符
+     */
+    private static String generateTokenId() {
+        byte[] bytes = new byte[TOKEN_ID_BYTES];
+        SECURE_RANDOM.nextBytes(bytes);
+        return TOKEN_ID_ENCODER.encodeToString(bytes);
+    }
+
     /**
      * 验证token
      */
@@ -207,6 +278,33 @@ public class JwtUtil {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "access");
         claims.put("userId", userId);
+        if (statelessAuthEnabled && userDetails instanceof UserDetailsImpl) {
+            putAuthorityClaims(claims, (UserDetailsImpl) userDetails);
+        }
         return createToken(claims, userDetails.getUsername(), accessTokenExpiration);
     }
+
+    /**
+     * 写入无状态认证所需的角色和权限claims
+     * <p>
+     * roles 为逗号分隔的角色名，perms 为按权限目录编码的位图，pv 为目录版本号。
+     */
+    private void putAuthorityClaims(Map<String, Object> claims, UserDetailsImpl userDetails) {
+        StringJoiner roles = new StringJoiner(",");
+        if (userDetails.getRoles() != null) {
+            for (Role role : userDetails.getRoles()) {
+                roles.add(role.getRoleName());
+            }
+        }
+        claims.put("roles", roles.toString());
+        claims.put("perms", permissionCatalog.encode(userDetails.getPermissions()));
+        claims.put("pv", permissionCatalog.getVersion());
+    }
+
+    /**
+     * 是否启用无状态认证模式
+     */
+    public boolean isStatelessAuthEnabled() {
+        return statelessAuthEnabled;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.example.jwt.util;
+
+import com.example.jwt.security.TokenStore;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地令牌存储
+ * <p>
+ * Redis熔断期间 RedisUtil 的降级存储，只保存本节点在熔断期间写入的数据，
+ * 查询结果为"未知"时由调用方按降级策略处理。Redis恢复后由 {@link #replay(Replayer)} 逐条回放，
+ * 只有成功写入Redis的条目才删除；回放期间再次熔断时新写入的条目和未回放的条目都保留到下一次恢复。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Component
+public class LocalTokenStore {
+
+    /**
+     * 吊销标识 -> 过期时间点（毫秒）
+     */
+    private final Map<String, Long> blacklist = new ConcurrentHashMap<>();
+
+    /**
+     * 用户名 -> 刷新token，token为空表示熔断期间已删除
+     */
+    private final Map<String, Expiring<String>> refreshTokens = new ConcurrentHashMap<>();
+
+    /**
+     * 用户名 -> 吊销纪元，过期时间点为Redis中的保留期限
+     */
+    private final Map<String, Expiring<Long>> revocationEpochs = new ConcurrentHashMap<>();
+
+    /**
+     * 用户名 -> 登录失败次数
+     */
+    private final Map<String, Expiring<Integer>> loginFailures = new ConcurrentHashMap<>();
+
+    public void addToBlacklist(String tokenId, long expireTime) {
+        blacklist.put(tokenId, expireTime);
+    }
+
+    /**
+     * @return 本地黑名单命中时为true，否则为null（未知）
+     */
+    public Boolean isBlacklisted(String tokenId) {
+        Long expireTime = blacklist.get(tokenId);
+        if (expireTime == null) {
+            return null;
+        }
+        if (expireTime <= System.currentTimeMillis()) {
+            blacklist.remove(tokenId);
+            return null;
+        }
+        return Boolean.TRUE;
+    }
+
+    public void storeRefreshToken(String username, String refreshToken, long expireTime) {
+        refreshTokens.put(username, new Expiring<>(refreshToken, expireTime));
+    }
+
+    public void removeRefreshToken(String username) {
+        refreshTokens.put(username, new Expiring<>(null, Long.MAX_VALUE));
+    }
+
+    /**
+     * @return 本地记录的刷新token；熔断期间已删除时返回空字符串；无记录时返回null（未知）
+     */
+    public String getRefreshToken(String username) {
+        Expiring<String> entry = refreshTokens.get(username);
+        if (entry == null || entry.isExpired()) {
+            return null;
+        }
+        return entry.value != null ? entry.value : "";
+    }
+
+    /**
+     * @param expireTime 纪元在Redis中的过期时间点（毫秒），回放时使用
+     */
+    public void setRevocationEpoch(String username, long epoch, long expireTime) {
+        revocationEpochs.merge(username, new Expiring<>(epoch, expireTime),
+                (old, updated) -> old.value >= updated.value ? old : updated);
+    }
+
+    public long getRevocationEpoch(String username) {
+        Expiring<Long> entry = revocationEpochs.get(username);
+        return entry != null ? entry.value : 0L;
+    }
+
+    /**
+     * 累加本节点的登录失败次数
+     */
+    public TokenStore.LoginFailure incrementLoginFailure(String username, long ttl, int maxFailures) {
+        long expireTime = System.currentTimeMillis() + ttl;
+        Expiring<Integer> entry = loginFailures.compute(username, (key, old) ->
+                new Expiring<>(old == null || old.isExpired() ? 1 : old.value + 1, expireTime));
+        int count = entry.value;
+        return new TokenStore.LoginFailure(count, count >= maxFailures, count == maxFailures);
+    }
+
+    public int getLoginFailCount(String username) {
+        Expiring<Integer> entry = loginFailures.get(username);
+        return entry == null || entry.isExpired() ? 0 : entry.value;
+    }
+
+    public void clearLoginFailRecord(String username) {
+        loginFailures.remove(username);
+    }
+
+    /**
+     * 把本地数据逐条写回Redis
+     * <p>
+     * 每个条目写入成功后按原值删除（{@code remove(key, value)}），回放期间被更新的条目保留新值等待下一次回放；
+     * 写入失败时异常直接抛出，该条目及其后未回放的条目全部保留。已过期的条目直接删除。
+     * 登录失败次数只在熔断期间本地计数，不回放，全部回放成功后丢弃。
+     *
+     * @param replayer Redis写入
+     * @return 回放的条目数
+     */
+    public int replay(Replayer replayer) {
+        int replayed = 0;
+        for (Map.Entry<String, Long> entry : blacklist.entrySet()) {
+            if (entry.getValue() > System.currentTimeMillis()) {
+                replayer.blacklist(entry.getKey(), entry.getValue());
+                replayed++;
+            }
+            blacklist.remove(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Expiring<Long>> entry : revocationEpochs.entrySet()) {
+            Expiring<Long> epoch = entry.getValue();
+            if (!epoch.isExpired()) {
+                replayer.revocationEpoch(entry.getKey(), epoch.value, epoch.expireTime);
+                replayed++;
+            }
+            revocationEpochs.remove(entry.getKey(), epoch);
+        }
+        for (Map.Entry<String, Expiring<String>> entry : refreshTokens.entrySet()) {
+            Expiring<String> token = entry.getValue();
+            if (!token.isExpired()) {
+                replayer.refreshToken(entry.getKey(), token.value, token.expireTime);
+                replayed++;
+            }
+            refreshTokens.remove(entry.getKey(), token);
+        }
+        for (Map.Entry<String, Expiring<Integer>> entry : loginFailures.entrySet()) {
+            loginFailures.remove(entry.getKey(), entry.getValue());
+        }
+        return replayed;
+    }
+
+    /**
+     * 本地条目的Redis写入，失败时抛出异常
+     */
+    public interface Replayer {
+
+        /**
+         * @param expireTime 令牌过期时间点（毫秒）
+         */
+        void blacklist(String tokenId, long expireTime);
+
+        /**
+         * @param expireTime 保留期限的过期时间点（毫秒）
+         */
+        void revocationEpoch(String username, long epoch, long expireTime);
+
+        /**
+         * @param refreshToken 刷新token，为null表示熔断期间已删除
+         * @param expireTime   刷新token过期时间点（毫秒）
+         */
+        void refreshToken(String username, String refreshToken, long expireTime);
+    }
+
+    private static final class Expiring<T> {
+
+        private final T value;
+
+        private final long expireTime;
+
+        Expiring(T value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+
+        boolean isExpired() {
+            return expireTime <= System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.jwt.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Redis熔断器
+ * <p>
+ * 连续 failure-threshold 次调用失败或超过 slow-call-threshold 时熔断，熔断期间调用方直接走本地降级逻辑；
+ * open-duration 之后放行一次探测调用，成功则恢复并通知监听器（用于回放降级期间的写入），失败则继续熔断。
+ * 单次调用的超时由 spring.redis.timeout 控制。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class RedisCircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        /**
+         * 正常
+         */
+        CLOSED,
+        /**
+         * 熔断
+         */
+        OPEN,
+        /**
+         * 探测中
+         */
+        HALF_OPEN
+    }
+
+    @Value("${jwt.redis-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.redis-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${jwt.redis-breaker.slow-call-threshold:200}")
+    private long slowCallThreshold;
+
+    @Value("${jwt.redis-breaker.open-duration:5000}")
+    private long openDuration;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    private volatile long openedAt;
+
+    private long slowCallThresholdNanos;
+
+    private Counter openCounter;
+
+    @PostConstruct
+    public void init() {
+        slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThreshold);
+        openCounter = Counter.builder("redis.breaker.opened")
+                .description("Redis熔断次数")
+                .register(meterRegistry);
+        Gauge.builder("redis.breaker.state", state, s -> s.get().ordinal())
+                .description("Redis熔断器状态：0正常，1熔断，2探测中")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 是否允许本次调用访问Redis
+     */
+    public boolean allowRequest() {
+        if (!enabled) {
+            return true;
+        }
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.currentTimeMillis() - openedAt >= openDuration
+                && probing.compareAndSet(false, true)) {
+            state.set(State.HALF_OPEN);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次成功调用，耗时超过阈值的调用按失败处理
+     *
+     * @param elapsedNanos 调用耗时（纳秒）
+     */
+    public void onSuccess(long elapsedNanos) {
+        if (!enabled) {
+            return;
+        }
+        if (elapsedNanos > slowCallThresholdNanos) {
+            onFailure();
+            return;
+        }
+        consecutiveFailures.set(0);
+        if (state.get() == State.HALF_OPEN && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            probing.set(false);
+            log.info("Redis已恢复，熔断器关闭");
+            recoveryListeners.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * 记录一次失败调用
+     */
+    public void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        if (state.get() == State.HALF_OPEN) {
+            open();
+            probing.set(false);
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            openedAt = System.currentTimeMillis();
+            openCounter.increment();
+            log.warn("Redis连续{}次调用失败或超时，熔断{}ms", failureThreshold, openDuration);
+        }
+    }
+
+    /**
+     * 注册恢复监听器，熔断器从探测状态关闭时调用
+     *
+     * @param listener 监听器
+     */
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    /**
+     * 当前状态
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        state.set(State.OPEN);
+        openCounter.increment();
+        log.warn("Redis探测调用失败，继续熔断{}ms", openDuration);
+    }
+}
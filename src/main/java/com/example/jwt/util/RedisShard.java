@@ -0,0 +1,43 @@
+package com.example.jwt.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 令牌存储的一个Redis分片
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Getter
+@AllArgsConstructor
+public class RedisShard {
+
+    /**
+     * 分片名称（host:port/database），决定分片在哈希环上的位置
+     */
+    private final String name;
+
+    /**
+     * 字符串模板
+     */
+    private final StringRedisTemplate stringTemplate;
+
+    /**
+     * 数值模板
+     */
+    private final RedisTemplate<String, Long> longTemplate;
+
+    /**
+     * 分片独占的连接工厂，使用默认连接时为null
+     */
+    private final LettuceConnectionFactory connectionFactory;
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
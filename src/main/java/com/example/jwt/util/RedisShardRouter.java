@@ -0,0 +1,182 @@
+package com.example.jwt.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 令牌存储的分片路由
+ * <p>
+ * 刷新token、登录失败次数和吊销纪元按用户名路由，黑名单按吊销标识路由，
+ * 同一用户的登录写入总在同一分片内，可以合并为一次管道往返。
+ * <p>
+ * 增减分片或首次启用分片时约 1/N 的键换了所属分片。迁移窗口内配置变更前的分片列表（previousShards），
+ * 读取在当前分片未命中时再读原分片（见 {@link #previousForUser} / {@link #previousForToken}），
+ * 已写入的黑名单和吊销纪元不会因为换分片而丢失；窗口持续到原分片上的条目全部过期（刷新token有效期）。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+@Slf4j
+public class RedisShardRouter implements DisposableBean {
+
+    private final ConsistentHashRing<RedisShard> ring;
+
+    /**
+     * 变更前的哈希环，不在迁移窗口时为null
+     */
+    private final ConsistentHashRing<RedisShard> previousRing;
+
+    /**
+     * 当前分片和只在变更前存在的分片
+     */
+    private final List<RedisShard> allShards;
+
+    /**
+     * @param shards 分片列表
+     * @param virtualNodes 每个分片的虚拟节点数
+     */
+    public RedisShardRouter(List<RedisShard> shards, int virtualNodes) {
+        this(shards, Collections.emptyList(), virtualNodes);
+    }
+
+    /**
+     * @param shards 分片列表
+     * @param previousShards 变更前的分片列表，为空表示不在迁移窗口；与当前同名的分片应传入同一实例
+     * @param virtualNodes 每个分片的虚拟节点数
+     */
+    public RedisShardRouter(List<RedisShard> shards, List<RedisShard> previousShards, int virtualNodes) {
+        Map<String, RedisShard> nodes = nodesByName(shards);
+        this.ring = new ConsistentHashRing<>(nodes, virtualNodes);
+        List<RedisShard> all = new ArrayList<>(nodes.values());
+        if (previousShards.isEmpty()) {
+            this.previousRing = null;
+            log.info("令牌存储Redis分片: {}", nodes.keySet());
+        } else {
+            Map<String, RedisShard> previousNodes = nodesByName(previousShards);
+            this.previousRing = new ConsistentHashRing<>(previousNodes, virtualNodes);
+            for (RedisShard shard : previousNodes.values()) {
+                if (!nodes.containsKey(shard.getName())) {
+                    all.add(shard);
+                }
+            }
+            log.warn("令牌存储Redis分片: {}，迁移窗口中，未命中时回读原分片: {}", nodes.keySet(), previousNodes.keySet());
+        }
+        this.allShards = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * 按用户名路由（refresh_token、login_fail、revoke_epoch）
+     */
+    public RedisShard forUser(String username) {
+        return ring.get(username);
+    }
+
+    /**
+     * 按吊销标识路由（黑名单）
+     */
+    public RedisShard forToken(String tokenId) {
+        return ring.get(tokenId);
+    }
+
+    /**
+     * 迁移窗口内用户数据在变更前所属的分片
+     *
+     * @return 与当前分片不同时返回原分片，否则返回null
+     */
+    public RedisShard previousForUser(String username) {
+        return previous(username);
+    }
+
+    /**
+     * 迁移窗口内黑名单条目在变更前所属的分片
+     *
+     * @return 与当前分片不同时返回原分片，否则返回null
+     */
+    public RedisShard previousForToken(String tokenId) {
+        return previous(tokenId);
+    }
+
+    /**
+     * 是否处于迁移窗口
+     */
+    public boolean isMigrating() {
+        return previousRing != null;
+    }
+
+    /**
+     * 按分片对吊销标识分组
+     *
+     * @param tokenIds 吊销标识列表
+     * @return 分片 -> 该分片上的吊销标识在输入列表中的下标
+     */
+    public Map<RedisShard, List<Integer>> groupByToken(List<String> tokenIds) {
+        Map<RedisShard, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < tokenIds.size(); i++) {
+            groups.computeIfAbsent(forToken(tokenIds.get(i)), shard -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    /**
+     * 全部分片，迁移窗口内包括只在变更前存在的分片
+     */
+    public List<RedisShard> getShards() {
+        return allShards;
+    }
+
+    /**
+     * 关闭各分片独占的连接工厂，默认连接由Spring管理；单个分片关闭失败不影响其余分片
+     */
+    @Override
+    public void destroy() {
+        destroy(allShards);
+    }
+
+    /**
+     * 关闭分片独占的连接工厂，同一实例只关闭一次
+     *
+     * @param shards 分片列表
+     */
+    public static void destroy(Collection<RedisShard> shards) {
+        Set<LettuceConnectionFactory> destroyed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (RedisShard shard : shards) {
+            LettuceConnectionFactory connectionFactory = shard.getConnectionFactory();
+            if (connectionFactory == null || !destroyed.add(connectionFactory)) {
+                continue;
+            }
+            try {
+                connectionFactory.destroy();
+            } catch (RuntimeException e) {
+                log.warn("关闭Redis分片连接失败: {}", shard.getName(), e);
+            }
+        }
+    }
+
+    private RedisShard previous(String key) {
+        if (previousRing == null) {
+            return null;
+        }
+        RedisShard previous = previousRing.get(key);
+        return previous != ring.get(key) ? previous : null;
+    }
+
+    private static Map<String, RedisShard> nodesByName(List<RedisShard> shards) {
+        Map<String, RedisShard> nodes = new LinkedHashMap<>();
+        for (RedisShard shard : shards) {
+            if (nodes.put(shard.getName(), shard) != null) {
+                throw new IllegalArgumentException("Redis分片重复: " + shard.getName());
+            }
+        }
+        return nodes;
+    }
+}
@@ -1,14 +1,47 @@
 package com.example.jwt.util;
 
+import com.example.jwt.security.TokenStore;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Redis工具类
+ * <p>
+ * 令牌相关的数据经 RedisShardRouter 分布到各分片，吊销通知始终在默认连接上发布。
+ * 所有操作经过 RedisCircuitBreaker：Redis超时或不可用达到阈值后熔断，熔断期间不再访问Redis。
+ * 令牌相关的写入失败时记入 LocalTokenStore，Redis恢复后从本地存储逐条回放，写入成功的条目才从本地删除；
+ * 黑名单和刷新token的读取在本地无记录时按 fallback-policy 处理：
+ * fail-open 视为未吊销/有效（签名、过期时间和吊销纪元仍会校验），fail-closed 视为已吊销/无效。
  * 
  * @author example
  * @since 2024-01-01
@@ -17,9 +50,99 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class RedisUtil {
 
+    /**
+     * 令牌吊销通知频道，消息内容为吊销标识
+     */
+    public static final String REVOCATION_CHANNEL = "jwt:revocations";
+
+    /**
+     * 用户吊销纪元通知频道，消息格式为 epoch:username
+     */
+    public static final String REVOCATION_EPOCH_CHANNEL = "jwt:revocation-epochs";
+
+    /**
+     * 用户详情缓存失效通知频道，消息内容为用户ID，* 表示全部
+     */
+    public static final String USER_DETAILS_CHANNEL = "jwt:user-details";
+
+    /**
+     * 角色权限变更通知频道，消息内容为新的角色权限快照版本号
+     */
+    public static final String RBAC_CHANNEL = "jwt:rbac";
+
+    /**
+     * 签名密钥变更通知频道，消息内容为密钥环状态的版本号
+     */
+    public static final String KEY_RING_CHANNEL = "jwt:key-ring";
+
+    private static final String BLACKLIST_PREFIX = "blacklist:jti:";
+
+    /**
+     * 升级前以完整令牌为键的黑名单，由 {@link #migrateLegacyBlacklist()} 迁移到 BLACKLIST_PREFIX
+     */
+    private static final String LEGACY_BLACKLIST_PREFIX = "blacklist:token:";
+
+    private static final String REVOCATION_EPOCH_PREFIX = "revoke_epoch:";
+
+    private static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
+
+    private static final String LOGIN_FAIL_PREFIX = "login_fail:";
+
+    private static final String BLACKLIST_MARKER = "1";
+
+    /**
+     * 密钥环状态（哈希，字段 version、state），在默认连接上读写
+     */
+    private static final String KEY_RING_KEY = "jwt:key-ring";
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Long>> LOGIN_FAILURE_SCRIPT = (RedisScript) RedisScript.of(
+            new ClassPathResource("scripts/login_failure.lua"), List.class);
+
+    private static final RedisScript<Long> KEY_RING_UPDATE_SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/key_ring_update.lua"), Long.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 默认连接的字符串模板，用于发布订阅（订阅方监听默认连接）
+     */
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 令牌存储分片，各分片的字符串模板按原始UTF-8字节存储值，数值模板按十进制字符串存储
+     */
+    @Autowired
+    private RedisShardRouter shardRouter;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private LocalTokenStore localStore;
+
+    /**
+     * Redis不可用且本地无记录时的处理策略：fail-open 或 fail-closed
+     */
+    @Value("${jwt.redis-breaker.fallback-policy:fail-open}")
+    private String fallbackPolicy;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, OpMeters> opMeters = new ConcurrentHashMap<>();
+
+    private boolean failClosed;
+
+    @PostConstruct
+    public void init() {
+        failClosed = "fail-closed".equalsIgnoreCase(fallbackPolicy);
+        circuitBreaker.addRecoveryListener(() -> CompletableFuture.runAsync(this::replay));
+        log.info("Redis降级策略: {}", failClosed ? "fail-closed" : "fail-open");
+    }
+
     /**
      * 存储数据
      * 
@@ -28,13 +151,10 @@ public class RedisUtil {
      * @return 是否成功
      */
     public boolean set(String key, Object value) {
-        try {
+        return call(Op.SET, key, () -> {
             redisTemplate.opsForValue().set(key, value);
             return true;
-        } catch (Exception e) {
-            log.error("Redis存储数据失败，key: {}, error: {}", key, e.getMessage());
-            return false;
-        }
+        }, () -> false);
     }
 
     /**
@@ -47,13 +167,10 @@ public class RedisUtil {
      * @return 是否成功
      */
     public boolean set(String key, Object value, long timeout, TimeUnit unit) {
-        try {
+        return call(Op.SET, key, () -> {
             redisTemplate.opsForValue().set(key, value, timeout, unit);
             return true;
-        } catch (Exception e) {
-            log.error("Redis存储数据失败，key: {}, error: {}", key, e.getMessage());
-            return false;
-        }
+        }, () -> false);
     }
 
     /**
@@ -63,12 +180,7 @@ public class RedisUtil {
      * @return 值
      */
     public Object get(String key) {
-        try {
-            return redisTemplate.opsForValue().get(key);
-        } catch (Exception e) {
-            log.error("Redis获取数据失败，key: {}, error: {}", key, e.getMessage());
-            return null;
-        }
+        return call(Op.GET, key, () -> redisTemplate.opsForValue().get(key), () -> null);
     }
 
     /**
@@ -78,12 +190,7 @@ public class RedisUtil {
      * @return 是否成功
      */
     public boolean delete(String key) {
-        try {
-            return Boolean.TRUE.equals(redisTemplate.delete(key));
-        } catch (Exception e) {
-            log.error("Redis删除数据失败，key: {}, error: {}", key, e.getMessage());
-            return false;
-        }
+        return call(Op.DELETE, key, () -> Boolean.TRUE.equals(redisTemplate.delete(key)), () -> false);
     }
 
     /**
@@ -93,12 +200,7 @@ public class RedisUtil {
      * @return 是否存在
      */
     public boolean hasKey(String key) {
-        try {
-            return Boolean.TRUE.equals(redisTemplate.hasKey(key));
-        } catch (Exception e) {
-            log.error("Redis判断键是否存在失败，key: {}, error: {}", key, e.getMessage());
-            return false;
-        }
+        return call(Op.HAS_KEY, key, () -> Boolean.TRUE.equals(redisTemplate.hasKey(key)), () -> false);
     }
 
     /**
@@ -110,12 +212,7 @@ public class RedisUtil {
      * @return 是否成功
      */
     public boolean expire(String key, long timeout, TimeUnit unit) {
-        try {
-            return Boolean.TRUE.equals(redisTemplate.expire(key, timeout, unit));
-        } catch (Exception e) {
-            log.error("Redis设置过期时间失败，key: {}, error: {}", key, e.getMessage());
-            return false;
-        }
+        return call(Op.EXPIRE, key, () -> Boolean.TRUE.equals(redisTemplate.expire(key, timeout, unit)), () -> false);
     }
 
     /**
@@ -125,38 +222,259 @@ public class RedisUtil {
      * @return 过期时间（秒）
      */
     public long getExpire(String key) {
-        try {
+        return call(Op.TTL, key, () -> {
             Long expire = redisTemplate.getExpire(key);
-            return expire != null ? expire : -1;
-        } catch (Exception e) {
-            log.error("Redis获取过期时间失败，key: {}, error: {}", key, e.getMessage());
-            return -1;
+            return expire != null ? expire : -1L;
+        }, () -> -1L);
+    }
+
+    /**
+     * 将token加入黑名单并发布吊销通知
+     * <p>
+     * 以令牌的吊销标识（jti 或旧令牌的摘要）为键，不存储完整令牌。
+     * 
+     * @param tokenId 吊销标识，见 ValidatedToken#getRevocationId
+     * @param expireTime 令牌过期时间点（毫秒），黑名单条目随令牌一起过期
+     */
+    public void addTokenToBlacklist(String tokenId, long expireTime) {
+        if (expireTime <= System.currentTimeMillis()) {
+            return;
         }
+        write(Op.BLACKLIST_SET, tokenId, () -> redisReplayer.blacklist(tokenId, expireTime),
+                () -> localStore.addToBlacklist(tokenId, expireTime));
     }
 
     /**
-     * 将token加入黑名单
+     * 设置用户的吊销纪元并发布通知
      * 
-     * @param token token
-     * @param expireTime 过期时间（毫秒）
+     * @param username 用户名
+     * @param epoch 吊销时间点（毫秒）
+     * @param expireTime 保留时长（毫秒）
      */
-    public void addTokenToBlacklist(String token, long expireTime) {
-        String key = "blacklist:token:" + token;
-        long ttl = expireTime - System.currentTimeMillis();
-        if (ttl > 0) {
-            set(key, "blacklisted", ttl, TimeUnit.MILLISECONDS);
+    public void setRevocationEpoch(String username, long epoch, long expireTime) {
+        long retainUntil = System.currentTimeMillis() + expireTime;
+        write(Op.EPOCH_SET, username, () -> redisReplayer.revocationEpoch(username, epoch, retainUntil),
+                () -> localStore.setRevocationEpoch(username, epoch, retainUntil));
+    }
+
+    /**
+     * 获取用户的吊销纪元
+     * 
+     * @param username 用户名
+     * @return 吊销时间点（毫秒），未吊销返回0；Redis不可用时返回本节点记录的值
+     */
+    public long getRevocationEpoch(String username) {
+        return call(Op.EPOCH_GET, username, () -> {
+            Long epoch = shardRouter.forUser(username).getLongTemplate().opsForValue().get(REVOCATION_EPOCH_PREFIX + username);
+            RedisShard previous = shardRouter.previousForUser(username);
+            if (epoch == null && previous != null) {
+                epoch = previous.getLongTemplate().opsForValue().get(REVOCATION_EPOCH_PREFIX + username);
+            }
+            return epoch != null ? epoch : 0L;
+        }, () -> localStore.getRevocationEpoch(username));
+    }
+
+    /**
+     * 遍历黑名单中的吊销标识
+     * <p>
+     * 依次在每个分片（迁移窗口内包括原分片）上使用 SCAN 分批遍历，不阻塞Redis；熔断期间或失败时抛出异常，由调用方决定如何处理。
+     * 遍历耗时与条目数相关，不计入慢调用统计。
+     * 
+     * @param consumer 吊销标识消费者
+     */
+    public void scanBlacklist(Consumer<String> consumer) {
+        if (isDegraded()) {
+            throw new IllegalStateException("Redis熔断中，跳过黑名单遍历");
+        }
+        OpMeters meters = meters(Op.BLACKLIST_SCAN, null);
+        long start = System.nanoTime();
+        try {
+            for (RedisShard shard : shardRouter.getShards()) {
+                shard.getStringTemplate().execute((RedisCallback<Void>) connection -> {
+                    ScanOptions options = ScanOptions.scanOptions().match(BLACKLIST_PREFIX + "*").count(1000).build();
+                    try (Cursor<byte[]> cursor = connection.scan(options)) {
+                        while (cursor.hasNext()) {
+                            String key = new String(cursor.next(), StandardCharsets.UTF_8);
+                            consumer.accept(key.substring(BLACKLIST_PREFIX.length()));
+                        }
+                    }
+                    return null;
+                });
+            }
+            meters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            (isTimeout(e) ? meters.timeouts : meters.errors).increment();
+            circuitBreaker.onFailure();
+            throw e;
         }
     }
 
+    /**
+     * 把升级前写入的旧格式黑名单条目迁移为新格式
+     * <p>
+     * 旧条目以完整令牌为键（{@code blacklist:token:<token>}），这些令牌不带jti，吊销标识为令牌的SHA-256摘要。
+     * 在默认连接上 SCAN 旧键，按剩余有效期写入新键（所在分片）并发布吊销通知，写入成功后删除旧键。
+     * 可重复执行；滚动升级期间旧节点仍会写入旧键，需要定期执行直到所有节点升级完成。
+     * 
+     * @return 迁移的条目数；熔断期间跳过并返回0
+     */
+    public int migrateLegacyBlacklist() {
+        if (isDegraded()) {
+            return 0;
+        }
+        OpMeters meters = meters(Op.BLACKLIST_MIGRATE, null);
+        long start = System.nanoTime();
+        try {
+            List<String> legacyKeys = new ArrayList<>();
+            stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+                ScanOptions options = ScanOptions.scanOptions().match(LEGACY_BLACKLIST_PREFIX + "*").count(1000).build();
+                try (Cursor<byte[]> cursor = connection.scan(options)) {
+                    while (cursor.hasNext()) {
+                        legacyKeys.add(new String(cursor.next(), StandardCharsets.UTF_8));
+                    }
+                }
+                return null;
+            });
+            int migrated = 0;
+            for (String key : legacyKeys) {
+                Long ttl = stringRedisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                if (ttl != null && ttl > 0) {
+                    String token = key.substring(LEGACY_BLACKLIST_PREFIX.length());
+                    redisReplayer.blacklist(DigestUtil.sha256Base64Url(token), System.currentTimeMillis() + ttl);
+                    migrated++;
+                }
+                stringRedisTemplate.delete(key);
+            }
+            meters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return migrated;
+        } catch (RuntimeException e) {
+            (isTimeout(e) ? meters.timeouts : meters.errors).increment();
+            circuitBreaker.onFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * 发布消息
+     * <p>
+     * 消息体为UTF-8字符串，不经过值序列化器。熔断期间丢弃。
+     * 
+     * @param channel 频道
+     * @param message 消息
+     */
+    public void publish(String channel, String message) {
+        call(Op.PUBLISH, channel, () -> {
+            stringRedisTemplate.convertAndSend(channel, message);
+            return null;
+        }, () -> null);
+    }
+
+    /**
+     * 读取密钥环状态
+     *
+     * @return 状态JSON，不存在或Redis不可用时返回null
+     */
+    public String getKeyRing() {
+        return call(Op.KEY_RING_GET, KEY_RING_KEY,
+                () -> (String) stringRedisTemplate.<String, String>opsForHash().get(KEY_RING_KEY, "state"),
+                () -> null);
+    }
+
+    /**
+     * 按版本号比较并写入密钥环状态
+     *
+     * @param expectedVersion 写入方已加载的版本号
+     * @param state 新状态JSON
+     * @return 写入后的版本号；其他节点已先修改时返回-1；Redis不可用时返回null
+     */
+    public Long updateKeyRing(long expectedVersion, String state) {
+        return call(Op.KEY_RING_UPDATE, KEY_RING_KEY,
+                () -> stringRedisTemplate.execute(KEY_RING_UPDATE_SCRIPT, Collections.singletonList(KEY_RING_KEY),
+                        String.valueOf(expectedVersion), state),
+                () -> null);
+    }
+
     /**
      * 检查token是否在黑名单中
      * 
-     * @param token token
+     * @param tokenId 吊销标识
      * @return 是否在黑名单中
      */
-    public boolean isTokenBlacklisted(String token) {
-        String key = "blacklist:token:" + token;
-        return hasKey(key);
+    public boolean isTokenBlacklisted(String tokenId) {
+        if (Boolean.TRUE.equals(localStore.isBlacklisted(tokenId))) {
+            return true;
+        }
+        return call(Op.BLACKLIST_HAS_KEY, tokenId, () -> {
+            if (Boolean.TRUE.equals(shardRouter.forToken(tokenId).getStringTemplate().hasKey(BLACKLIST_PREFIX + tokenId))) {
+                return true;
+            }
+            RedisShard previous = shardRouter.previousForToken(tokenId);
+            return previous != null && Boolean.TRUE.equals(previous.getStringTemplate().hasKey(BLACKLIST_PREFIX + tokenId));
+        }, () -> failClosed);
+    }
+
+    /**
+     * 批量检查token是否在黑名单中
+     * <p>
+     * 按分片分组，每个分片的查询在一次管道往返中完成。
+     * 
+     * @param tokenIds 吊销标识列表
+     * @return 与输入顺序一致的检查结果
+     */
+    public List<Boolean> areTokensBlacklisted(List<String> tokenIds) {
+        if (tokenIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Boolean> blacklisted = call(Op.BLACKLIST_HAS_KEYS, "数量: " + tokenIds.size(), () -> {
+            List<Boolean> found = new ArrayList<>(Collections.nCopies(tokenIds.size(), Boolean.FALSE));
+            shardRouter.groupByToken(tokenIds).forEach((shard, indexes) -> {
+                List<Object> results = shard.getStringTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                    for (int index : indexes) {
+                        connection.exists(bytes(BLACKLIST_PREFIX + tokenIds.get(index)));
+                    }
+                    return null;
+                });
+                for (int i = 0; i < indexes.size(); i++) {
+                    found.set(indexes.get(i), Boolean.TRUE.equals(results.get(i)));
+                }
+            });
+            if (shardRouter.isMigrating()) {
+                checkPreviousShards(tokenIds, found);
+            }
+            return found;
+        }, () -> null);
+        List<Boolean> merged = new ArrayList<>(tokenIds.size());
+        for (int i = 0; i < tokenIds.size(); i++) {
+            boolean local = Boolean.TRUE.equals(localStore.isBlacklisted(tokenIds.get(i)));
+            merged.add(local || (blacklisted != null ? blacklisted.get(i) : failClosed));
+        }
+        return merged;
+    }
+
+    /**
+     * 迁移窗口内，当前分片未命中的吊销标识按原分片分组再查一次
+     */
+    private void checkPreviousShards(List<String> tokenIds, List<Boolean> found) {
+        Map<RedisShard, List<Integer>> missed = new LinkedHashMap<>();
+        for (int i = 0; i < tokenIds.size(); i++) {
+            RedisShard previous = found.get(i) ? null : shardRouter.previousForToken(tokenIds.get(i));
+            if (previous != null) {
+                missed.computeIfAbsent(previous, shard -> new ArrayList<>()).add(i);
+            }
+        }
+        missed.forEach((shard, indexes) -> {
+            List<Object> results = shard.getStringTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                for (int index : indexes) {
+                    connection.exists(bytes(BLACKLIST_PREFIX + tokenIds.get(index)));
+                }
+                return null;
+            });
+            for (int i = 0; i < indexes.size(); i++) {
+                if (Boolean.TRUE.equals(results.get(i))) {
+                    found.set(indexes.get(i), Boolean.TRUE);
+                }
+            }
+        });
     }
 
     /**
@@ -167,11 +485,164 @@ public class RedisUtil {
      * @param expireTime 过期时间（毫秒）
      */
     public void storeRefreshToken(String username, String refreshToken, long expireTime) {
-        String key = "refresh_token:" + username;
-        long ttl = expireTime - System.currentTimeMillis();
-        if (ttl > 0) {
-            set(key, refreshToken, ttl, TimeUnit.MILLISECONDS);
+        if (expireTime <= System.currentTimeMillis()) {
+            return;
+        }
+        write(Op.REFRESH_SET, username, () -> redisReplayer.refreshToken(username, refreshToken, expireTime),
+                () -> localStore.storeRefreshToken(username, refreshToken, expireTime));
+    }
+
+    /**
+     * 登录成功：清除登录失败记录并存储刷新token（一次管道往返）
+     * 
+     * @param username 用户名
+     * @param refreshToken 刷新token
+     * @param expireTime 刷新token过期时间点（毫秒）
+     */
+    public void completeLogin(String username, String refreshToken, long expireTime) {
+        write(Op.LOGIN, username, () -> {
+            long ttl = expireTime - System.currentTimeMillis();
+            shardRouter.forUser(username).getStringTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                connection.del(bytes(LOGIN_FAIL_PREFIX + username));
+                if (ttl > 0) {
+                    connection.pSetEx(bytes(REFRESH_TOKEN_PREFIX + username), ttl, bytes(refreshToken));
+                }
+                return null;
+            });
+        }, () -> {
+            localStore.clearLoginFailRecord(username);
+            localStore.storeRefreshToken(username, refreshToken, expireTime);
+        });
+    }
+
+    /**
+     * 刷新前检查：黑名单状态和存储的刷新token
+     * <p>
+     * 两个键在同一分片时合并为一次管道往返，否则依次查询。
+     * <p>
+     * Redis不可用时以本节点记录的刷新token为准，本地无记录时按 fallback-policy 处理。
+     * 
+     * @param tokenId 刷新token的吊销标识
+     * @param username 用户名
+     * @param refreshToken 待检查的刷新token
+     * @return 刷新token未被吊销且与存储的一致时返回true
+     */
+    public boolean isRefreshTokenValid(String tokenId, String username, String refreshToken) {
+        if (Boolean.TRUE.equals(localStore.isBlacklisted(tokenId))) {
+            return false;
         }
+        RedisShard blacklistShard = shardRouter.forToken(tokenId);
+        RedisShard refreshShard = shardRouter.forUser(username);
+        return call(Op.REFRESH_CHECK, username, () -> {
+            String stored;
+            if (blacklistShard == refreshShard) {
+                List<Object> results = refreshShard.getStringTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                    connection.exists(bytes(BLACKLIST_PREFIX + tokenId));
+                    connection.get(bytes(REFRESH_TOKEN_PREFIX + username));
+                    return null;
+                });
+                if (Boolean.TRUE.equals(results.get(0))) {
+                    return false;
+                }
+                stored = (String) results.get(1);
+            } else {
+                if (Boolean.TRUE.equals(blacklistShard.getStringTemplate().hasKey(BLACKLIST_PREFIX + tokenId))) {
+                    return false;
+                }
+                stored = refreshShard.getStringTemplate().opsForValue().get(REFRESH_TOKEN_PREFIX + username);
+            }
+            if (shardRouter.isMigrating()) {
+                RedisShard previousBlacklist = shardRouter.previousForToken(tokenId);
+                if (previousBlacklist != null
+                        && Boolean.TRUE.equals(previousBlacklist.getStringTemplate().hasKey(BLACKLIST_PREFIX + tokenId))) {
+                    return false;
+                }
+                RedisShard previousRefresh = shardRouter.previousForUser(username);
+                if (stored == null && previousRefresh != null) {
+                    stored = previousRefresh.getStringTemplate().opsForValue().get(REFRESH_TOKEN_PREFIX + username);
+                }
+            }
+            return stored != null && refreshToken.equals(unquote(stored));
+        }, () -> {
+            String stored = localStore.getRefreshToken(username);
+            return stored != null ? refreshToken.equals(stored) : !failClosed;
+        });
+    }
+
+    /**
+     * 登出：将访问token和刷新token加入黑名单、发布吊销通知并删除存储的刷新token
+     * <p>
+     * 命令按所在连接分组，每个连接一次管道往返；未分片时全部合并为一次往返。
+     * 
+     * @param accessTokenId 访问token的吊销标识，可为空
+     * @param accessTokenExpireTime 访问token过期时间点（毫秒）
+     * @param refreshTokenId 刷新token的吊销标识，可为空
+     * @param refreshTokenExpireTime 刷新token过期时间点（毫秒）
+     * @param username 用户名，可为空
+     */
+    public void revokeSession(String accessTokenId, long accessTokenExpireTime,
+                              String refreshTokenId, long refreshTokenExpireTime, String username) {
+        write(Op.LOGOUT, username, () -> {
+            long now = System.currentTimeMillis();
+            Map<StringRedisTemplate, List<Consumer<RedisConnection>>> batches = new LinkedHashMap<>();
+            blacklistInBatch(batches, accessTokenId, accessTokenExpireTime - now);
+            blacklistInBatch(batches, refreshTokenId, refreshTokenExpireTime - now);
+            if (username != null) {
+                batch(batches, shardRouter.forUser(username).getStringTemplate(),
+                        connection -> connection.del(bytes(REFRESH_TOKEN_PREFIX + username)));
+                RedisShard previous = shardRouter.previousForUser(username);
+                if (previous != null) {
+                    // 迁移窗口内原分片上的刷新token也要删除，否则回读会取到登出前的值
+                    batch(batches, previous.getStringTemplate(),
+                            connection -> connection.del(bytes(REFRESH_TOKEN_PREFIX + username)));
+                }
+            }
+            batches.forEach((template, commands) -> template.executePipelined((RedisCallback<Object>) connection -> {
+                commands.forEach(command -> command.accept(connection));
+                return null;
+            }));
+        }, () -> {
+            if (accessTokenId != null) {
+                localStore.addToBlacklist(accessTokenId, accessTokenExpireTime);
+            }
+            if (refreshTokenId != null) {
+                localStore.addToBlacklist(refreshTokenId, refreshTokenExpireTime);
+            }
+            if (username != null) {
+                localStore.removeRefreshToken(username);
+            }
+        });
+    }
+
+    /**
+     * 黑名单写入加入所在分片的批次，吊销通知加入默认连接的批次
+     */
+    private void blacklistInBatch(Map<StringRedisTemplate, List<Consumer<RedisConnection>>> batches, String tokenId, long ttl) {
+        if (tokenId != null && ttl > 0) {
+            batch(batches, shardRouter.forToken(tokenId).getStringTemplate(),
+                    connection -> connection.pSetEx(bytes(BLACKLIST_PREFIX + tokenId), ttl, bytes(BLACKLIST_MARKER)));
+            batch(batches, stringRedisTemplate,
+                    connection -> connection.publish(bytes(REVOCATION_CHANNEL), bytes(tokenId)));
+        }
+    }
+
+    private static void batch(Map<StringRedisTemplate, List<Consumer<RedisConnection>>> batches,
+                              StringRedisTemplate template, Consumer<RedisConnection> command) {
+        batches.computeIfAbsent(template, key -> new ArrayList<>()).add(command);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 兼容升级前以JSON字符串形式存储的值（带双引号），这类值在一个刷新令牌有效期后全部过期
+     */
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
     }
 
     /**
@@ -181,9 +652,17 @@ public class RedisUtil {
      * @return 刷新token
      */
     public String getRefreshToken(String username) {
-        String key = "refresh_token:" + username;
-        Object token = get(key);
-        return token != null ? token.toString() : null;
+        return call(Op.REFRESH_GET, username, () -> {
+            String token = shardRouter.forUser(username).getStringTemplate().opsForValue().get(REFRESH_TOKEN_PREFIX + username);
+            RedisShard previous = shardRouter.previousForUser(username);
+            if (token == null && previous != null) {
+                token = previous.getStringTemplate().opsForValue().get(REFRESH_TOKEN_PREFIX + username);
+            }
+            return token != null ? unquote(token) : null;
+        }, () -> {
+            String token = localStore.getRefreshToken(username);
+            return token == null || token.isEmpty() ? null : token;
+        });
     }
 
     /**
@@ -192,20 +671,32 @@ public class RedisUtil {
      * @param username 用户名
      */
     public void removeRefreshToken(String username) {
-        String key = "refresh_token:" + username;
-        delete(key);
+        write(Op.REFRESH_DELETE, username, () -> redisReplayer.refreshToken(username, null, 0L),
+                () -> localStore.removeRefreshToken(username));
     }
 
     /**
-     * 记录登录失败次数
+     * 原子地记录一次登录失败
+     * <p>
+     * 计数、续期和锁定判断在一个Lua脚本中完成，多节点并发失败时不会丢失计数，只需一次往返。
+     * Redis不可用时只在本节点计数，不回放。
      * 
      * @param username 用户名
-     * @param failCount 失败次数
-     * @param lockTime 锁定时间（分钟）
+     * @param lockTime 计数有效期（分钟）
+     * @param maxFailures 锁定阈值
+     * @return 失败计数和锁定状态，脚本返回格式错误时返回null
      */
-    public void recordLoginFailure(String username, int failCount, int lockTime) {
-        String key = "login_fail:" + username;
-        set(key, failCount, lockTime, TimeUnit.MINUTES);
+    public TokenStore.LoginFailure incrementLoginFailure(String username, int lockTime, int maxFailures) {
+        long ttl = TimeUnit.MINUTES.toMillis(lockTime);
+        return call(Op.LOGIN_FAIL_INCR, username, () -> {
+            List<Long> result = shardRouter.forUser(username).getStringTemplate().execute(LOGIN_FAILURE_SCRIPT,
+                    Collections.singletonList(LOGIN_FAIL_PREFIX + username),
+                    String.valueOf(ttl), String.valueOf(maxFailures));
+            if (result == null || result.size() < 3) {
+                return null;
+            }
+            return new TokenStore.LoginFailure(result.get(0).intValue(), result.get(1) == 1L, result.get(2) == 1L);
+        }, () -> localStore.incrementLoginFailure(username, ttl, maxFailures));
     }
 
     /**
@@ -215,9 +706,10 @@ public class RedisUtil {
      * @return 失败次数
      */
     public int getLoginFailCount(String username) {
-        String key = "login_fail:" + username;
-        Object count = get(key);
-        return count != null ? Integer.parseInt(count.toString()) : 0;
+        return call(Op.LOGIN_FAIL_GET, username, () -> {
+            Long count = shardRouter.forUser(username).getLongTemplate().opsForValue().get(LOGIN_FAIL_PREFIX + username);
+            return count != null ? count.intValue() : 0;
+        }, () -> localStore.getLoginFailCount(username));
     }
 
     /**
@@ -226,7 +718,246 @@ public class RedisUtil {
      * @param username 用户名
      */
     public void clearLoginFailRecord(String username) {
-        String key = "login_fail:" + username;
-        delete(key);
+        write(Op.LOGIN_FAIL_DELETE, username,
+                () -> shardRouter.forUser(username).getStringTemplate().delete(LOGIN_FAIL_PREFIX + username),
+                () -> localStore.clearLoginFailRecord(username));
+    }
+
+    /**
+     * Redis是否处于熔断降级状态
+     */
+    public boolean isDegraded() {
+        return circuitBreaker.getState() != RedisCircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * 经熔断器访问Redis，熔断或失败时返回降级结果
+     * <p>
+     * 每次调用按操作和键类别记录耗时（redis.commands），失败、超时和熔断拒绝记入 redis.command.errors。
+     * 
+     * @param op 操作
+     * @param target 操作对象（通用操作为键），用于日志
+     * @param action Redis操作，失败时抛出异常
+     * @param fallback 降级结果
+     */
+    private <T> T call(Op op, String target, Supplier<T> action, Supplier<T> fallback) {
+        OpMeters meters = meters(op, target);
+        if (!circuitBreaker.allowRequest()) {
+            meters.rejected.increment();
+            return fallback.get();
+        }
+        long start = System.nanoTime();
+        try {
+            T result = action.get();
+            long elapsed = System.nanoTime() - start;
+            meters.timer.record(elapsed, TimeUnit.NANOSECONDS);
+            circuitBreaker.onSuccess(elapsed);
+            return result;
+        } catch (Exception e) {
+            meters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            (isTimeout(e) ? meters.timeouts : meters.errors).increment();
+            circuitBreaker.onFailure();
+            log.error("Redis{}失败，{}, error: {}", op.description, target, e.getMessage());
+            return fallback.get();
+        }
+    }
+
+    /**
+     * 经熔断器写入Redis，熔断或失败时写入本地存储，Redis恢复后从本地存储回放
+     * 
+     * @param op 操作
+     * @param target 操作对象，用于日志
+     * @param action Redis写入
+     * @param local 本地写入
+     */
+    private void write(Op op, String target, Runnable action, Runnable local) {
+        boolean written = call(op, target, () -> {
+            action.run();
+            return true;
+        }, () -> false);
+        if (!written) {
+            local.run();
+        }
+    }
+
+    /**
+     * 把熔断期间记在本地的写入回放到Redis
+     * <p>
+     * 逐条写入，成功的条目才从本地删除；失败时停止，剩余条目留在本地继续生效，等待下一次恢复。
+     * 同一时刻只有一次回放。
+     */
+    private synchronized void replay() {
+        try {
+            int replayed = localStore.replay(redisReplayer);
+            if (replayed > 0) {
+                log.info("Redis恢复，已回放熔断期间的写入: {}", replayed);
+            }
+        } catch (Exception e) {
+            circuitBreaker.onFailure();
+            log.error("Redis回放写入失败，未回放的条目保留在本地, error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 直接写Redis，不经过熔断器，正常写入和回放共用；过期时间在执行时计算
+     */
+    private final LocalTokenStore.Replayer redisReplayer = new LocalTokenStore.Replayer() {
+
+        @Override
+        public void blacklist(String tokenId, long expireTime) {
+            long ttl = expireTime - System.currentTimeMillis();
+            if (ttl > 0) {
+                shardRouter.forToken(tokenId).getStringTemplate().opsForValue()
+                        .set(BLACKLIST_PREFIX + tokenId, BLACKLIST_MARKER, ttl, TimeUnit.MILLISECONDS);
+                stringRedisTemplate.convertAndSend(REVOCATION_CHANNEL, tokenId);
+            }
+        }
+
+        @Override
+        public void revocationEpoch(String username, long epoch, long expireTime) {
+            long ttl = expireTime - System.currentTimeMillis();
+            if (ttl > 0) {
+                shardRouter.forUser(username).getLongTemplate().opsForValue()
+                        .set(REVOCATION_EPOCH_PREFIX + username, epoch, ttl, TimeUnit.MILLISECONDS);
+                stringRedisTemplate.convertAndSend(REVOCATION_EPOCH_CHANNEL, epoch + ":" + username);
+            }
+        }
+
+        @Override
+        public void refreshToken(String username, String refreshToken, long expireTime) {
+            if (refreshToken == null) {
+                shardRouter.forUser(username).getStringTemplate().delete(REFRESH_TOKEN_PREFIX + username);
+                RedisShard previous = shardRouter.previousForUser(username);
+                if (previous != null) {
+                    previous.getStringTemplate().delete(REFRESH_TOKEN_PREFIX + username);
+                }
+                return;
+            }
+            long ttl = expireTime - System.currentTimeMillis();
+            if (ttl > 0) {
+                shardRouter.forUser(username).getStringTemplate().opsForValue()
+                        .set(REFRESH_TOKEN_PREFIX + username, refreshToken, ttl, TimeUnit.MILLISECONDS);
+            }
+        }
+    };
+
+    private OpMeters meters(Op op, String key) {
+        String family = op.family != null ? op.family : keyFamily(key);
+        String id = op.command + '|' + family;
+        OpMeters meters = opMeters.get(id);
+        return meters != null ? meters : opMeters.computeIfAbsent(id, k -> new OpMeters(meterRegistry, op.command, family));
+    }
+
+    /**
+     * 通用操作按键前缀归类，避免以完整键作为标签
+     */
+    private static String keyFamily(String key) {
+        if (key == null) {
+            return "other";
+        }
+        if (key.startsWith("blacklist:")) {
+            return "blacklist";
+        }
+        if (key.startsWith(REFRESH_TOKEN_PREFIX)) {
+            return "refresh_token";
+        }
+        if (key.startsWith(LOGIN_FAIL_PREFIX)) {
+            return "login_fail";
+        }
+        if (key.startsWith(REVOCATION_EPOCH_PREFIX)) {
+            return "revoke_epoch";
+        }
+        return "other";
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException || cause instanceof RedisCommandTimeoutException
+                    || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Redis操作：指标标签（命令、键类别）和日志描述；键类别为null时按键前缀归类
+     */
+    private enum Op {
+        SET("set", null, "存储数据"),
+        GET("get", null, "获取数据"),
+        DELETE("delete", null, "删除数据"),
+        HAS_KEY("hasKey", null, "判断键是否存在"),
+        EXPIRE("expire", null, "设置过期时间"),
+        TTL("ttl", null, "获取过期时间"),
+        BLACKLIST_SET("set", "blacklist", "写入黑名单"),
+        BLACKLIST_HAS_KEY("hasKey", "blacklist", "检查黑名单"),
+        BLACKLIST_HAS_KEYS("hasKeyBatch", "blacklist", "批量检查黑名单"),
+        BLACKLIST_SCAN("scan", "blacklist", "遍历黑名单"),
+        BLACKLIST_MIGRATE("migrate", "blacklist", "迁移旧格式黑名单"),
+        EPOCH_SET("set", "revoke_epoch", "写入吊销纪元"),
+        EPOCH_GET("get", "revoke_epoch", "读取吊销纪元"),
+        PUBLISH("publish", "channel", "发布消息"),
+        REFRESH_SET("set", "refresh_token", "存储刷新token"),
+        REFRESH_GET("get", "refresh_token", "获取刷新token"),
+        REFRESH_DELETE("delete", "refresh_token", "删除刷新token"),
+        REFRESH_CHECK("refreshCheck", "refresh_token", "检查刷新token"),
+        LOGIN("login", "refresh_token", "登录写入"),
+        LOGOUT("logout", "blacklist", "登出写入"),
+        LOGIN_FAIL_INCR("incr", "login_fail", "记录登录失败次数"),
+        LOGIN_FAIL_GET("get", "login_fail", "获取登录失败次数"),
+        LOGIN_FAIL_DELETE("delete", "login_fail", "清除登录失败记录"),
+        KEY_RING_GET("get", "key_ring", "读取密钥环状态"),
+        KEY_RING_UPDATE("update", "key_ring", "写入密钥环状态");
+
+        private final String command;
+
+        private final String family;
+
+        private final String description;
+
+        Op(String command, String family, String description) {
+            this.command = command;
+            this.family = family;
+            this.description = description;
+        }
+    }
+
+    /**
+     * 一个（命令, 键类别）组合的指标
+     */
+    private static final class OpMeters {
+
+        private final Timer timer;
+
+        private final Counter errors;
+
+        private final Counter timeouts;
+
+        private final Counter rejected;
+
+        OpMeters(MeterRegistry registry, String command, String family) {
+            timer = Timer.builder("redis.commands")
+                    .description("Redis操作耗时")
+                    .tag("command", command)
+                    .tag("family", family)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1).dividedBy(10))
+                    .maximumExpectedValue(Duration.ofSeconds(1))
+                    .register(registry);
+            errors = errorCounter(registry, command, family, "error");
+            timeouts = errorCounter(registry, command, family, "timeout");
+            rejected = errorCounter(registry, command, family, "rejected");
+        }
+
+        private static Counter errorCounter(MeterRegistry registry, String command, String family, String type) {
+            return Counter.builder("redis.command.errors")
+                    .description("Redis操作失败次数，type=timeout 为超时，rejected 为熔断期间未访问Redis")
+                    .tag("command", command)
+                    .tag("family", family)
+                    .tag("type", type)
+                    .register(registry);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+-- 按版本号比较并写入密钥环状态
+-- KEYS[1] 密钥环状态（哈希，字段 version、state）
+-- ARGV[1] 写入方已加载的版本号
+-- ARGV[2] 新状态（JSON，其中的版本号为 ARGV[1] + 1）
+-- 返回写入后的版本号；Redis中的版本号与 ARGV[1] 不一致（其他节点已先修改）时返回-1
+local current = tonumber(redis.call('HGET', KEYS[1], 'version') or '0')
+if current ~= tonumber(ARGV[1]) then
+    return -1
+end
+local version = current + 1
+redis.call('HSET', KEYS[1], 'version', version, 'state', ARGV[2])
+return version
@@ -0,0 +1,17 @@
+-- 记录一次登录失败
+-- KEYS[1] 失败计数键
+-- ARGV[1] 计数有效期（毫秒），每次失败重新计时
+-- ARGV[2] 锁定阈值
+-- 返回 {失败次数, 是否已锁定, 是否本次触发锁定}
+local count = redis.call('INCR', KEYS[1])
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+local threshold = tonumber(ARGV[2])
+local locked = 0
+local justLocked = 0
+if count >= threshold then
+    locked = 1
+end
+if count == threshold then
+    justLocked = 1
+end
+return {count, locked, justLocked}
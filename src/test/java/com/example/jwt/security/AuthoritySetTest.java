@@ -0,0 +1,111 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.Permission;
+import com.example.jwt.entity.Role;
+import com.example.jwt.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 权限位图测试
+ * <p>
+ * 以 Spring Security 默认的 SecurityExpressionRoot（遍历权限列表）为基准，
+ * 位图判断的 hasRole / hasAuthority / hasAnyRole 结果必须与之一致。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class AuthoritySetTest {
+
+    private static final String[] QUERIES = {
+            "ADMIN", "ROLE_ADMIN", "USER", "ROLE_USER", "admin", "ROLE_", "",
+            "user:read", "user:write", "ROLE_user:read", "AUDITOR", "ROLE_AUDITOR",
+            "NEVER_SEEN_" + System.nanoTime(), "ROLE_NEVER_SEEN_" + System.nanoTime(),
+    };
+
+    @Test
+    void bitTestsMatchSpringSecurityExpressionRoot() {
+        List<Role> roles = Arrays.asList(role("ADMIN"), role("USER"));
+        // 权限表中以 ROLE_ 开头的权限名按 Spring 的规则同样满足 hasRole
+        List<Permission> permissions = Arrays.asList(permission("user:read"), permission("ROLE_AUDITOR"));
+
+        assertSameDecisions(principal(roles, permissions));
+        assertSameDecisions(principal(Collections.singletonList(role("USER")), Collections.emptyList()));
+        assertSameDecisions(principal(Collections.emptyList(), Collections.singletonList(permission("user:write"))));
+        assertSameDecisions(principal(Collections.emptyList(), Collections.emptyList()));
+    }
+
+    @Test
+    void nonUserDetailsPrincipalFallsBackToAuthorityList() {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("service", null,
+                AuthorityUtils.createAuthorityList("ROLE_ADMIN", "user:read"));
+
+        assertThat(AuthoritySet.of(authentication)).isNull();
+        assertSameDecisions(authentication);
+    }
+
+    @Test
+    void precompiledRoleIndexesMatchHasAnyRole() {
+        AuthoritySet authoritySet = AuthoritySet.of(Collections.singletonList(role("USER")), Collections.emptyList());
+
+        assertThat(authoritySet.hasAnyRole(AuthoritySet.roleIndexes("ADMIN", "ROLE_USER"))).isTrue();
+        assertThat(authoritySet.hasAnyRole(AuthoritySet.roleIndexes("ADMIN", "AUDITOR"))).isFalse();
+        assertThat(AuthoritySet.EMPTY.hasAnyRole(AuthoritySet.roleIndexes("USER"))).isFalse();
+    }
+
+    @Test
+    void authoritiesKeepRoleThenPermissionOrderWithInternedInstances() {
+        AuthoritySet first = AuthoritySet.of(Collections.singletonList(role("USER")),
+                Collections.singletonList(permission("user:read")));
+        AuthoritySet second = AuthoritySet.of(Collections.singletonList(role("USER")),
+                Collections.singletonList(permission("user:read")));
+
+        assertThat(first.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER", "user:read");
+        assertThat(first.getAuthorities().get(0)).isSameAs(second.getAuthorities().get(0));
+        assertThat(first.getAuthorities().get(1)).isSameAs(second.getAuthorities().get(1));
+    }
+
+    private static void assertSameDecisions(Authentication authentication) {
+        SecurityExpressionRoot expected = new SecurityExpressionRoot(authentication) {
+        };
+        AuthorityExpressionRoot actual = new AuthorityExpressionRoot(authentication, null, null);
+        for (String query : QUERIES) {
+            assertThat(actual.hasRole(query)).as("hasRole(%s)", query).isEqualTo(expected.hasRole(query));
+            assertThat(actual.hasAuthority(query)).as("hasAuthority(%s)", query).isEqualTo(expected.hasAuthority(query));
+            assertThat(actual.hasAnyRole(query, "NOPE")).as("hasAnyRole(%s)", query)
+                    .isEqualTo(expected.hasAnyRole(query, "NOPE"));
+            assertThat(actual.hasAnyAuthority("nope", query)).as("hasAnyAuthority(%s)", query)
+                    .isEqualTo(expected.hasAnyAuthority("nope", query));
+        }
+    }
+
+    private static Authentication principal(List<Role> roles, List<Permission> permissions) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        UserDetailsImpl userDetails = new UserDetailsImpl(user, roles, permissions);
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static Permission permission(String name) {
+        Permission permission = new Permission();
+        permission.setPermissionName(name);
+        return permission;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.jwt.security;
+
+import com.example.jwt.dto.LoginRequest;
+import com.example.jwt.exception.CustomException;
+import com.example.jwt.mapper.UserMapper;
+import com.example.jwt.service.AuthService;
+import com.example.jwt.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 有界密码编码器测试
+ * <p>
+ * 哈希线程池饱和时登录必须返回503和 Retry-After，不能变成401，也不能计入登录失败次数。
+ * 校验密码和防时序攻击哈希的拒绝异常直接穿过 AuthenticationManager，
+ * 加载用户阶段的拒绝异常被包装为 InternalAuthenticationServiceException。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class BoundedPasswordEncoderTest {
+
+    private static final long RETRY_AFTER = 3L;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private CountDownLatch release;
+
+    private AuthenticationManager authenticationManager;
+
+    private TokenStore tokenStore;
+
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        release = new CountDownLatch(1);
+
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(NoOpPasswordEncoder.getInstance(), executor,
+                RETRY_AFTER, new SimpleMeterRegistry());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsService(username -> {
+            if ("carol".equals(username)) {
+                // 加载用户时需要哈希（如迁移旧密码），拒绝发生在 loadUserByUsername 内
+                encoder.encode("secret");
+            }
+            if ("nobody".equals(username)) {
+                throw new UsernameNotFoundException(username);
+            }
+            return User.withUsername(username).password("secret").roles("USER").build();
+        });
+        authenticationManager = new ProviderManager(provider);
+        // 先完成一次认证，防时序攻击的哈希已预先计算，拒绝只发生在后续步骤中
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("alice", "secret"));
+
+        tokenStore = mock(TokenStore.class);
+        authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "authenticationManager", authenticationManager);
+        ReflectionTestUtils.setField(authService, "userMapper", mock(UserMapper.class));
+        ReflectionTestUtils.setField(authService, "jwtService", mock(JwtService.class));
+        ReflectionTestUtils.setField(authService, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(authService, "tokenStore", tokenStore);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void rejectionDuringUserLoadingIsWrappedByAuthenticationManager() throws Exception {
+        saturate();
+
+        assertServiceUnavailable(catchThrowable(() -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken("nobody", "secret"))));
+        Throwable thrown = catchThrowable(() -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken("carol", "secret")));
+
+        assertThat(thrown).isInstanceOf(InternalAuthenticationServiceException.class);
+        assertServiceUnavailable(thrown.getCause());
+    }
+
+    @Test
+    void loginReturnsServiceUnavailableWhenPoolIsSaturated() throws Exception {
+        saturate();
+
+        assertServiceUnavailable(catchThrowable(() -> authService.login(request("nobody"))));
+        assertServiceUnavailable(catchThrowable(() -> authService.login(request("alice"))));
+        assertServiceUnavailable(catchThrowable(() -> authService.login(request("carol"))));
+        verify(tokenStore, never()).incrementLoginFailure(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void unknownUserStillFailsWithUnauthorizedWhenPoolHasCapacity() {
+        Throwable thrown = catchThrowable(() -> authService.login(request("nobody")));
+
+        assertThat(thrown).isInstanceOf(CustomException.class);
+        assertThat(((CustomException) thrown).getCode()).isEqualTo(401);
+        assertThat(((CustomException) thrown).getRetryAfter()).isNull();
+    }
+
+    /**
+     * 占满唯一的哈希线程，队列容量为0，后续任务立即被拒绝
+     */
+    private void saturate() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        executor.submit(() -> {
+            running.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void assertServiceUnavailable(Throwable thrown) {
+        assertThat(thrown).isInstanceOf(CustomException.class);
+        CustomException exception = (CustomException) thrown;
+        assertThat(exception.getCode()).isEqualTo(503);
+        assertThat(exception.getRetryAfter()).isEqualTo(RETRY_AFTER);
+    }
+
+    private static LoginRequest request(String username) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername(username);
+        request.setPassword("secret");
+        return request;
+    }
+}
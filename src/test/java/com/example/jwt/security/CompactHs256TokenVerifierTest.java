@@ -0,0 +1,257 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.JwtUtil;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 紧凑型 HS256 验证引擎测试
+ * <p>
+ * 每个用例同时交给 jjwt 解析：引擎接受的令牌必须与 jjwt 的解析结果一致，引擎拒绝的令牌 jjwt 也必须拒绝，
+ * 其余情况引擎返回null，交由 jjwt 处理。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class CompactHs256TokenVerifierTest {
+
+    private static final String SECRET = "mySecretKey12345678901234567890123456789012345678901234567890";
+
+    private static final String OTHER_SECRET = "rotatedSecretKey1234567890123456789012345678901234567890123456";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private JwtKeyRing keyRing;
+
+    private CompactHs256TokenVerifier verifier;
+
+    private JwtUtil jjwt;
+
+    @BeforeEach
+    void setUp() {
+        OffHeapTokenStore tokenStore = new OffHeapTokenStore();
+        ReflectionTestUtils.setField(tokenStore, "initialCapacity", 1024);
+        ReflectionTestUtils.setField(tokenStore, "meterRegistry", new SimpleMeterRegistry());
+        tokenStore.init();
+
+        keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "secret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "keyId", "k1");
+        ReflectionTestUtils.setField(keyRing, "algorithm", "HS256");
+        ReflectionTestUtils.setField(keyRing, "ecPrivateKey", "");
+        ReflectionTestUtils.setField(keyRing, "ecPublicKey", "");
+        ReflectionTestUtils.setField(keyRing, "retiredKeys", "");
+        ReflectionTestUtils.setField(keyRing, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.setField(keyRing, "tokenStore", tokenStore);
+        keyRing.init();
+
+        verifier = new CompactHs256TokenVerifier();
+        ReflectionTestUtils.setField(verifier, "keyRing", keyRing);
+
+        jjwt = new JwtUtil();
+        ReflectionTestUtils.setField(jjwt, "keyRing", keyRing);
+        ReflectionTestUtils.setField(jjwt, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.setField(jjwt, "refreshTokenExpiration", 604800000L);
+    }
+
+    @Test
+    void acceptsIssuedTokensWithSameClaimsAsJjwt() {
+        UserDetails user = User.withUsername("alice").password("n/a").authorities(Collections.emptyList()).build();
+
+        for (String token : new String[]{jjwt.generateAccessToken(user), jjwt.generateRefreshToken(user)}) {
+            ValidatedToken compact = verifier.verify(token);
+
+            assertThat(compact).isNotNull();
+            assertThat(compact).usingRecursiveComparison().isEqualTo(jjwt.parseToken(token));
+        }
+    }
+
+    @Test
+    void fallsBackOnMalformedTokens() {
+        String valid = sign(header("k1"), claims("\"sub\":\"alice\""), SECRET);
+        String[] malformed = {
+                "",
+                "abc",
+                "a.b",
+                valid + ".extra",
+                "." + valid.substring(valid.indexOf('.')),
+                valid.substring(0, valid.lastIndexOf('.') + 1),
+                valid.replace('.', '!'),
+                "e30.e30.",
+                sign("{\"alg\":\"HS256\",\"kid\":\"k1\"", claims("\"sub\":\"alice\""), SECRET),
+                sign(header("k1"), "{\"sub\":\"alice\",\"exp\":" + exp(), SECRET),
+                sign(header("k1"), "[" + claims("\"sub\":\"alice\"") + "]", SECRET),
+                sign(header("k1"), claims("\"sub\":{\"name\":\"alice\"}"), SECRET),
+                sign(header("k1"), claims("\"userId\":1.5"), SECRET),
+                sign(header("k1"), claims("\"userId\":1e3"), SECRET),
+                sign(header("k1"), claims("\"sub\":\"alice\",\"admin\":true"), SECRET),
+                sign(header("k1"), "{\"sub\":\"alice\"}", SECRET),
+        };
+
+        for (String token : malformed) {
+            assertThat(verifier.verify(token)).as(token).isNull();
+            assertConsistentWithJjwt(token);
+        }
+    }
+
+    @Test
+    void fallsBackOnPaddedSegments() {
+        String valid = sign(header("k1"), claims("\"sub\":\"alice\""), SECRET);
+        String[] parts = valid.split("\\.");
+        String padded = pad(parts[0]) + "." + pad(parts[1]) + "." + pad(parts[2]);
+
+        assertThat(padded).isNotEqualTo(valid);
+        assertThat(verifier.verify(padded)).isNull();
+        assertConsistentWithJjwt(padded);
+    }
+
+    @Test
+    void fallsBackOnDuplicateKeys() {
+        String[] duplicated = {
+                sign("{\"alg\":\"none\",\"alg\":\"HS256\",\"kid\":\"k1\"}", claims("\"sub\":\"alice\""), SECRET),
+                sign("{\"alg\":\"HS256\",\"kid\":\"k2\",\"kid\":\"k1\"}", claims("\"sub\":\"alice\""), SECRET),
+                sign(header("k1"), claims("\"sub\":\"alice\",\"sub\":\"admin\""), SECRET),
+                sign(header("k1"), claims("\"type\":\"refresh\",\"type\":\"access\""), SECRET),
+                sign(header("k1"), "{\"exp\":1,\"sub\":\"alice\",\"exp\":" + exp() + "}", SECRET),
+        };
+
+        for (String token : duplicated) {
+            assertThat(verifier.verify(token)).as(token).isNull();
+            assertConsistentWithJjwt(token);
+        }
+    }
+
+    @Test
+    void fallsBackOnEscapedStrings() {
+        String[] escaped = {
+                sign(header("k1"), claims("\"sub\":\"al\\u0069ce\""), SECRET),
+                sign(header("k1"), claims("\"sub\":\"ali\\\"ce\""), SECRET),
+                sign(header("k1"), claims("\"s\\u0075b\":\"alice\""), SECRET),
+                sign("{\"alg\":\"HS\\u0032\\u0035\\u0036\",\"kid\":\"k1\"}", claims("\"sub\":\"alice\""), SECRET),
+        };
+
+        for (String token : escaped) {
+            assertThat(verifier.verify(token)).as(token).isNull();
+            assertConsistentWithJjwt(token);
+        }
+    }
+
+    @Test
+    void fallsBackOnUnsupportedAlgorithmOrUnknownKid() {
+        String[] unsupported = {
+                sign("{\"alg\":\"HS512\",\"kid\":\"k1\"}", claims("\"sub\":\"alice\""), SECRET),
+                sign("{\"alg\":\"none\",\"kid\":\"k1\"}", claims("\"sub\":\"alice\""), SECRET),
+                sign("{\"kid\":\"k1\"}", claims("\"sub\":\"alice\""), SECRET),
+                sign(header("unknown"), claims("\"sub\":\"alice\""), SECRET),
+        };
+
+        for (String token : unsupported) {
+            assertThat(verifier.verify(token)).as(token).isNull();
+            assertConsistentWithJjwt(token);
+        }
+    }
+
+    @Test
+    void rejectsTokenWhoseKidDoesNotMatchSigningKey() {
+        keyRing.rotate("k2", OTHER_SECRET);
+        String token = sign(header("k2"), claims("\"sub\":\"alice\""), SECRET);
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(SignatureException.class);
+        assertConsistentWithJjwt(token);
+    }
+
+    @Test
+    void rejectsTamperedSignatureAndPayload() {
+        String valid = sign(header("k1"), claims("\"sub\":\"alice\""), SECRET);
+        int signatureStart = valid.lastIndexOf('.') + 1;
+        char flipped = valid.charAt(signatureStart + 5) == 'A' ? 'B' : 'A';
+        String tamperedSignature = valid.substring(0, signatureStart + 5) + flipped + valid.substring(signatureStart + 6);
+        String[] parts = valid.split("\\.");
+        String tamperedPayload = parts[0] + "." + encode(claims("\"sub\":\"admin\"")) + "." + parts[2];
+        String otherSecret = sign(header("k1"), claims("\"sub\":\"alice\""), OTHER_SECRET);
+
+        for (String token : new String[]{tamperedSignature, tamperedPayload, otherSecret}) {
+            assertThatThrownBy(() -> verifier.verify(token)).as(token).isInstanceOf(SignatureException.class);
+            assertConsistentWithJjwt(token);
+        }
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = sign(header("k1"), "{\"sub\":\"alice\",\"exp\":" + (System.currentTimeMillis() / 1000 - 60) + "}", SECRET);
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(ExpiredJwtException.class);
+        assertConsistentWithJjwt(token);
+    }
+
+    /**
+     * 引擎接受时结果与 jjwt 一致，引擎拒绝时 jjwt 同样拒绝
+     */
+    private void assertConsistentWithJjwt(String token) {
+        ValidatedToken compact;
+        try {
+            compact = verifier.verify(token);
+        } catch (ExpiredJwtException e) {
+            assertThatThrownBy(() -> jjwt.parseToken(token)).as(token).isInstanceOf(ExpiredJwtException.class);
+            return;
+        } catch (JwtException e) {
+            assertThatThrownBy(() -> jjwt.parseToken(token)).as(token).isInstanceOf(JwtException.class);
+            return;
+        }
+        if (compact != null) {
+            assertThat(compact).as(token).usingRecursiveComparison().isEqualTo(jjwt.parseToken(token));
+        }
+    }
+
+    private static String header(String kid) {
+        return "{\"alg\":\"HS256\",\"kid\":\"" + kid + "\"}";
+    }
+
+    private static String claims(String fields) {
+        return "{" + fields + ",\"exp\":" + exp() + "}";
+    }
+
+    private static long exp() {
+        return System.currentTimeMillis() / 1000 + 600;
+    }
+
+    private static String sign(String header, String payload, String secret) {
+        String signingInput = encode(header) + "." + encode(payload);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] signature = mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + ENCODER.encodeToString(signature);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String json) {
+        return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String pad(String segment) {
+        StringBuilder padded = new StringBuilder(segment);
+        while (padded.length() % 4 != 0) {
+            padded.append('=');
+        }
+        return padded.toString();
+    }
+}
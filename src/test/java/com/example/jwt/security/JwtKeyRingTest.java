@@ -0,0 +1,153 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 密钥环跨节点共享测试
+ * <p>
+ * 多个节点共用一个模拟的Redis密钥环状态，通知通过直接调用 onMessage 模拟。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class JwtKeyRingTest {
+
+    private static final String SECRET = "mySecretKey12345678901234567890123456789012345678901234567890";
+
+    private static final String ROTATED_SECRET = "rotatedSecretKey1234567890123456789012345678901234567890123456";
+
+    private static final String OTHER_ROTATED_SECRET = "anotherRotatedSecret12345678901234567890123456789012345678901";
+
+    private RedisUtil redisUtil;
+
+    private String sharedState;
+
+    private long sharedVersion;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        when(redisUtil.getKeyRing()).thenAnswer(invocation -> sharedState);
+        when(redisUtil.updateKeyRing(anyLong(), anyString())).thenAnswer(invocation -> {
+            long expected = invocation.getArgument(0);
+            if (expected != sharedVersion) {
+                return -1L;
+            }
+            sharedVersion++;
+            sharedState = invocation.getArgument(1);
+            return sharedVersion;
+        });
+    }
+
+    @Test
+    void rotationReachesOtherNodesWithoutPlaintextSecretInRedis() {
+        JwtKeyRing first = node("");
+        JwtKeyRing second = node("");
+
+        first.rotate("k2", ROTATED_SECRET);
+        second.onMessage(null, null);
+
+        assertThat(sharedState).doesNotContain(ROTATED_SECRET);
+        assertThat(second.getPrimaryKey().getKid()).isEqualTo("k2");
+        assertThat(second.getPrimaryKey().getKey()).isEqualTo(first.getPrimaryKey().getKey());
+        assertThat(second.findKey("k1")).isNotNull();
+        verify(redisUtil).publish(RedisUtil.KEY_RING_CHANNEL, "1");
+    }
+
+    @Test
+    void nodeWithDifferentWrappingKeyCannotUseRotatedSecret() {
+        JwtKeyRing first = node("wrapping-key-a");
+        JwtKeyRing second = node("wrapping-key-b");
+
+        first.rotate("k2", ROTATED_SECRET);
+        second.onMessage(null, null);
+
+        assertThat(second.getPrimaryKey().getKid()).isEqualTo("k1");
+        assertThat(second.findKey("k2")).isNull();
+    }
+
+    @Test
+    void concurrentRotationReloadsAndRetriesOnTopOfTheOtherChange() {
+        JwtKeyRing first = node("");
+        JwtKeyRing second = node("");
+
+        first.rotate("k2", ROTATED_SECRET);
+        // second 尚未收到通知，按旧版本写入会被拒绝，重新加载后在 k2 之上轮换
+        second.rotate("k3", OTHER_ROTATED_SECRET);
+        first.onMessage(null, null);
+
+        assertThat(sharedVersion).isEqualTo(2);
+        assertThat(second.getPrimaryKey().getKid()).isEqualTo("k3");
+        assertThat(first.getPrimaryKey().getKid()).isEqualTo("k3");
+        assertThat(first.findKey("k2")).isNotNull();
+        assertThat(first.findKey("k2").getKey()).isEqualTo(second.findKey("k2").getKey());
+        assertThat(first.getKeyIds()).containsExactlyInAnyOrder("k1", "k2", "k3");
+    }
+
+    @Test
+    void retireRemovesKeyEverywhereAndClearsVerifiedTokenCaches() {
+        VerifiedTokenCache firstCache = mock(VerifiedTokenCache.class);
+        VerifiedTokenCache secondCache = mock(VerifiedTokenCache.class);
+        JwtKeyRing first = node("", firstCache);
+        JwtKeyRing second = node("", secondCache);
+
+        first.rotate("k2", ROTATED_SECRET);
+        second.onMessage(null, null);
+        first.retire("k1");
+        second.onMessage(null, null);
+
+        assertThat(first.findKey("k1")).isNull();
+        assertThat(second.findKey("k1")).isNull();
+        verify(firstCache).invalidateAll();
+        verify(secondCache).invalidateAll();
+    }
+
+    @Test
+    void failedWriteLeavesNodeUnchanged() {
+        JwtKeyRing first = node("");
+        when(redisUtil.updateKeyRing(anyLong(), anyString())).thenReturn(null);
+
+        assertThatThrownBy(() -> first.rotate("k2", ROTATED_SECRET)).isInstanceOf(IllegalStateException.class);
+        assertThat(first.getPrimaryKey().getKid()).isEqualTo("k1");
+        assertThat(first.findKey("k2")).isNull();
+        verify(redisUtil, never()).publish(anyString(), anyString());
+    }
+
+    private JwtKeyRing node(String wrappingKey) {
+        return node(wrappingKey, mock(VerifiedTokenCache.class));
+    }
+
+    private JwtKeyRing node(String wrappingKey, VerifiedTokenCache verifiedTokenCache) {
+        TokenStore tokenStore = mock(TokenStore.class);
+        when(tokenStore.isLocal()).thenReturn(false);
+
+        JwtKeyRing keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "secret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "keyId", "k1");
+        ReflectionTestUtils.setField(keyRing, "algorithm", "HS256");
+        ReflectionTestUtils.setField(keyRing, "ecPrivateKey", "");
+        ReflectionTestUtils.setField(keyRing, "ecPublicKey", "");
+        ReflectionTestUtils.setField(keyRing, "retiredKeys", "");
+        ReflectionTestUtils.setField(keyRing, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.setField(keyRing, "wrappingKey", wrappingKey);
+        ReflectionTestUtils.setField(keyRing, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(keyRing, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(keyRing, "listenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(keyRing, "verifiedTokenCache", verifiedTokenCache);
+        keyRing.init();
+        return keyRing;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.jwt.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 嵌入式堆外令牌存储的哈希表测试
+ * <p>
+ * 用例构造的键高32位为0，全部落在第0段；段容量为16，探测起点为低64位的低4位。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class OffHeapTokenStoreTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private static final long LIVE = NOW + 60_000L;
+
+    @Test
+    void collidingKeysKeepTheirOwnValues() {
+        OffHeapTokenStore.Table table = table();
+        // 探测起点都是3
+        table.putLong(key(1, 3), LIVE, 10);
+        table.putLong(key(2, 19), LIVE, 20);
+        table.putLong(key(3, 35), LIVE, 30);
+
+        assertThat(table.getLong(key(1, 3), NOW, -1)).isEqualTo(10);
+        assertThat(table.getLong(key(2, 19), NOW, -1)).isEqualTo(20);
+        assertThat(table.getLong(key(3, 35), NOW, -1)).isEqualTo(30);
+        assertThat(table.contains(key(4, 51), NOW)).isFalse();
+
+        table.putLong(key(2, 19), LIVE, 21);
+        assertThat(table.getLong(key(2, 19), NOW, -1)).isEqualTo(21);
+        assertThat(table.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removingFromProbeChainKeepsLaterKeysReachable() {
+        OffHeapTokenStore.Table table = table();
+        table.putLong(key(1, 3), LIVE, 10);
+        table.putLong(key(2, 19), LIVE, 20);
+        table.putLong(key(3, 4), LIVE, 30);
+        table.putLong(key(4, 35), LIVE, 40);
+
+        table.remove(key(1, 3));
+
+        assertThat(table.contains(key(1, 3), NOW)).isFalse();
+        assertThat(table.getLong(key(2, 19), NOW, -1)).isEqualTo(20);
+        assertThat(table.getLong(key(3, 4), NOW, -1)).isEqualTo(30);
+        assertThat(table.getLong(key(4, 35), NOW, -1)).isEqualTo(40);
+        assertThat(table.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removingAcrossWrapAroundKeepsLaterKeysReachable() {
+        OffHeapTokenStore.Table table = table();
+        // 探测起点15的三个键占用槽位 15、0、1，探测起点0的键被挤到槽位2，探测起点1的键到槽位3
+        table.putLong(key(1, 15), LIVE, 10);
+        table.putLong(key(2, 31), LIVE, 20);
+        table.putLong(key(3, 47), LIVE, 30);
+        table.putLong(key(4, 16), LIVE, 40);
+        table.putLong(key(5, 17), LIVE, 50);
+
+        table.remove(key(1, 15));
+        assertThat(table.getLong(key(2, 31), NOW, -1)).isEqualTo(20);
+        assertThat(table.getLong(key(3, 47), NOW, -1)).isEqualTo(30);
+        assertThat(table.getLong(key(4, 16), NOW, -1)).isEqualTo(40);
+        assertThat(table.getLong(key(5, 17), NOW, -1)).isEqualTo(50);
+
+        table.remove(key(4, 16));
+        assertThat(table.getLong(key(2, 31), NOW, -1)).isEqualTo(20);
+        assertThat(table.getLong(key(3, 47), NOW, -1)).isEqualTo(30);
+        assertThat(table.getLong(key(5, 17), NOW, -1)).isEqualTo(50);
+        assertThat(table.contains(key(4, 16), NOW)).isFalse();
+        assertThat(table.size()).isEqualTo(3);
+    }
+
+    @Test
+    void expiredEntriesAreRemovedOnReadAndSweep() {
+        OffHeapTokenStore.Table table = table();
+        table.putLong(key(1, 15), NOW, 10);
+        table.putLong(key(2, 31), LIVE, 20);
+        table.putLong(key(3, 47), NOW - 1, 30);
+        table.putLong(key(4, 16), LIVE, 40);
+
+        // 过期时间等于当前时间即视为过期
+        assertThat(table.getLong(key(1, 15), NOW, -1)).isEqualTo(-1);
+        assertThat(table.size()).isEqualTo(3);
+        assertThat(table.getLong(key(2, 31), NOW, -1)).isEqualTo(20);
+
+        assertThat(table.sweep(NOW)).isEqualTo(1);
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.getLong(key(2, 31), NOW, -1)).isEqualTo(20);
+        assertThat(table.getLong(key(4, 16), NOW, -1)).isEqualTo(40);
+
+        assertThat(table.sweep(LIVE)).isEqualTo(2);
+        assertThat(table.size()).isZero();
+    }
+
+    @Test
+    void expiredCounterRestartsFromOne() {
+        OffHeapTokenStore.Table table = table();
+
+        assertThat(table.increment(key(1, 3), NOW, NOW + 10)).isEqualTo(1);
+        assertThat(table.increment(key(1, 3), NOW + 5, NOW + 20)).isEqualTo(2);
+        assertThat(table.increment(key(1, 3), NOW + 20, NOW + 30)).isEqualTo(1);
+    }
+
+    @Test
+    void resizeKeepsAllEntries() {
+        OffHeapTokenStore.Table table = table();
+        long bytes = table.offHeapBytes();
+
+        // 超过 16 * 0.75 个条目后第0段扩容，其中一半键的探测起点相同
+        int count = 40;
+        for (int i = 1; i <= count; i++) {
+            long lo = i % 2 == 0 ? 5 + 16L * i : i;
+            table.putLong(key(i, lo), LIVE, i * 100L);
+        }
+
+        assertThat(table.size()).isEqualTo(count);
+        assertThat(table.offHeapBytes()).isGreaterThan(bytes);
+        for (int i = 1; i <= count; i++) {
+            long lo = i % 2 == 0 ? 5 + 16L * i : i;
+            assertThat(table.getLong(key(i, lo), NOW, -1)).isEqualTo(i * 100L);
+        }
+
+        for (int i = 1; i <= count; i += 3) {
+            long lo = i % 2 == 0 ? 5 + 16L * i : i;
+            table.remove(key(i, lo));
+        }
+        for (int i = 1; i <= count; i++) {
+            long lo = i % 2 == 0 ? 5 + 16L * i : i;
+            assertThat(table.contains(key(i, lo), NOW)).isEqualTo((i - 1) % 3 != 0);
+        }
+    }
+
+    @Test
+    void fixedWidthValuesAreComparedExactly() {
+        OffHeapTokenStore.Table table = new OffHeapTokenStore.Table("test", 32, 16 * 16);
+        byte[] value = new byte[32];
+        value[31] = 7;
+        table.put(key(1, 3), LIVE, value);
+
+        byte[] other = value.clone();
+        other[31] = 8;
+        assertThat(table.matches(key(1, 3), NOW, value)).isTrue();
+        assertThat(table.matches(key(1, 3), NOW, other)).isFalse();
+        assertThat(table.matches(key(1, 3), LIVE, value)).isFalse();
+    }
+
+    /**
+     * 每段16个槽位
+     */
+    private static OffHeapTokenStore.Table table() {
+        return new OffHeapTokenStore.Table("test", Long.BYTES, 16 * 16);
+    }
+
+    /**
+     * 构造键：前8字节为高64位，后8字节为低64位（探测起点）
+     */
+    private static byte[] key(long hi, long lo) {
+        return ByteBuffer.allocate(32).putLong(hi).putLong(lo).array();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.Permission;
+import com.example.jwt.entity.Role;
+import com.example.jwt.entity.RolePermission;
+import com.example.jwt.mapper.PermissionMapper;
+import com.example.jwt.mapper.RoleMapper;
+import com.example.jwt.mapper.RolePermissionMapper;
+import com.example.jwt.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 角色权限快照测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class RbacSnapshotTest {
+
+    private static final List<RolePermission> BEFORE = Collections.singletonList(rolePermission(1L, 10L));
+
+    private static final List<RolePermission> AFTER = Arrays.asList(rolePermission(1L, 10L), rolePermission(1L, 11L));
+
+    private RolePermissionMapper rolePermissionMapper;
+
+    private UserDetailsCache userDetailsCache;
+
+    private TokenStore tokenStore;
+
+    private RedisUtil redisUtil;
+
+    private RbacSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        RoleMapper roleMapper = mock(RoleMapper.class);
+        when(roleMapper.findAllRoles()).thenReturn(Collections.singletonList(role(1L, "USER")));
+        PermissionMapper permissionMapper = mock(PermissionMapper.class);
+        when(permissionMapper.findAllPermissions()).thenReturn(Arrays.asList(
+                permission(10L, "user:read", "/api/users/**", "GET"),
+                permission(11L, "user:write", "/api/users/**", "POST")));
+        rolePermissionMapper = mock(RolePermissionMapper.class);
+        userDetailsCache = mock(UserDetailsCache.class);
+        tokenStore = mock(TokenStore.class);
+        redisUtil = mock(RedisUtil.class);
+
+        snapshot = new RbacSnapshot();
+        ReflectionTestUtils.setField(snapshot, "roleMapper", roleMapper);
+        ReflectionTestUtils.setField(snapshot, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(snapshot, "rolePermissionMapper", rolePermissionMapper);
+        ReflectionTestUtils.setField(snapshot, "userDetailsCache", userDetailsCache);
+        ReflectionTestUtils.setField(snapshot, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(snapshot, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(snapshot, "listenerContainer", mock(RedisMessageListenerContainer.class));
+    }
+
+    @Test
+    void laterReloadIsNotOverwrittenByEarlierSlowReload() throws Exception {
+        CountDownLatch slowReading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(rolePermissionMapper.findAllRolePermissions()).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                // 先开始的加载读到变更前的数据后变慢
+                slowReading.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return BEFORE;
+            }
+            return AFTER;
+        });
+
+        Thread slow = new Thread(snapshot::reload);
+        slow.start();
+        assertThat(slowReading.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread later = new Thread(snapshot::reload);
+        later.start();
+        awaitBlocked(later);
+
+        assertThat(reads).hasValue(1);
+        release.countDown();
+        slow.join(5000);
+        later.join(5000);
+
+        assertThat(reads).hasValue(2);
+        assertThat(permissionNames(snapshot.resolve(Collections.singletonList(1L))))
+                .containsExactly("user:read", "user:write");
+    }
+
+    @Test
+    void refreshInvalidatesUsersAfterSwapAndPublishesVersion() {
+        when(rolePermissionMapper.findAllRolePermissions()).thenReturn(BEFORE, AFTER);
+        snapshot.init();
+        String before = snapshot.getVersion();
+
+        snapshot.refresh();
+
+        assertThat(snapshot.getVersion()).isNotEqualTo(before);
+        assertThat(permissionNames(snapshot.resolve(Collections.singletonList(1L))))
+                .containsExactly("user:read", "user:write");
+        verify(userDetailsCache).invalidate(null);
+        verify(redisUtil).publish(RedisUtil.RBAC_CHANNEL, snapshot.getVersion());
+    }
+
+    @Test
+    void notificationWithCurrentVersionIsIgnored() {
+        when(rolePermissionMapper.findAllRolePermissions()).thenReturn(BEFORE, AFTER);
+        snapshot.init();
+
+        snapshot.onMessage(message(snapshot.getVersion()), null);
+
+        verify(rolePermissionMapper, times(1)).findAllRolePermissions();
+        verify(userDetailsCache, never()).invalidate(null);
+
+        snapshot.onMessage(message("other"), null);
+
+        verify(rolePermissionMapper, times(2)).findAllRolePermissions();
+        verify(userDetailsCache).invalidate(null);
+        verify(redisUtil, never()).publish(anyString(), anyString());
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(thread.getState()).isEqualTo(Thread.State.BLOCKED);
+    }
+
+    private static String[] permissionNames(RbacSnapshot.Authorities authorities) {
+        return authorities.getPermissions().stream().map(Permission::getPermissionName).toArray(String[]::new);
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static Permission permission(Long id, String name, String url, String method) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setPermissionName(name);
+        permission.setUrl(url);
+        permission.setMethod(method);
+        return permission;
+    }
+
+    private static RolePermission rolePermission(Long roleId, Long permissionId) {
+        RolePermission rolePermission = new RolePermission();
+        rolePermission.setRoleId(roleId);
+        rolePermission.setPermissionId(permissionId);
+        return rolePermission;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisUtil.RBAC_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
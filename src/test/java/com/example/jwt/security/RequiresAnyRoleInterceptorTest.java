@@ -0,0 +1,167 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.Role;
+import com.example.jwt.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link RequiresAnyRole} 拦截器测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class RequiresAnyRoleInterceptorTest {
+
+    private RequiresAnyRoleInterceptor interceptor;
+
+    private final SampleController controller = new SampleController();
+
+    private final OpenController openController = new OpenController();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = new LinkedHashMap<>();
+        for (String name : new String[]{"inherited", "adminOnly", "prefixed", "open"}) {
+            handlerMethods.put(RequestMappingInfo.paths("/" + name).build(), handler(name));
+        }
+        RequestMappingInfoHandlerMapping mapping = mock(RequestMappingInfoHandlerMapping.class);
+        when(mapping.getHandlerMethods()).thenReturn(handlerMethods);
+        ApplicationContext context = mock(ApplicationContext.class);
+        when(context.getBeansOfType(RequestMappingInfoHandlerMapping.class))
+                .thenReturn(Collections.singletonMap("requestMappingHandlerMapping", mapping));
+
+        interceptor = new RequiresAnyRoleInterceptor();
+        interceptor.onApplicationEvent(new ContextRefreshedEvent(context));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void compilesEveryHandlerMethodAtStartup() {
+        Map<Method, ?> checkers = checkers();
+
+        assertThat(checkers).hasSize(4);
+        assertThat(checkers.keySet()).extracting(Method::getName)
+                .containsExactlyInAnyOrder("inherited", "adminOnly", "prefixed", "open");
+    }
+
+    @Test
+    void classAnnotationAppliesWhenMethodHasNone() throws Exception {
+        assertThat(allowed("inherited", user("USER"))).isTrue();
+        assertThat(allowed("inherited", user("AUDITOR"))).isFalse();
+    }
+
+    @Test
+    void methodAnnotationOverridesClassAnnotation() throws Exception {
+        assertThat(allowed("adminOnly", user("ADMIN"))).isTrue();
+        assertThat(allowed("adminOnly", user("USER"))).isFalse();
+    }
+
+    @Test
+    void acceptsRolesWithPrefixAndNonUserDetailsPrincipals() throws Exception {
+        assertThat(allowed("prefixed", user("AUDITOR"))).isTrue();
+        assertThat(allowed("prefixed", new UsernamePasswordAuthenticationToken("service", null,
+                AuthorityUtils.createAuthorityList("ROLE_AUDITOR")))).isTrue();
+        assertThat(allowed("prefixed", new UsernamePasswordAuthenticationToken("service", null,
+                AuthorityUtils.createAuthorityList("AUDITOR")))).isFalse();
+    }
+
+    @Test
+    void unannotatedHandlerIsUnrestrictedAndMissingAuthenticationIsDenied() throws Exception {
+        assertThat(allowed("open", null)).isTrue();
+        assertThat(allowed("inherited", null)).isFalse();
+    }
+
+    @Test
+    void handlerOutsideStartupMappingsIsCompiledOnFirstUse() throws Exception {
+        int before = checkers().size();
+
+        assertThat(interceptor.preHandle(null, null,
+                new HandlerMethod(openController, OpenController.class.getMethod("late")))).isTrue();
+        assertThat(checkers()).hasSize(before + 1);
+    }
+
+    private boolean allowed(String methodName, Authentication authentication) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            return interceptor.preHandle(null, null, handler(methodName));
+        } catch (AccessDeniedException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Method, ?> checkers() {
+        return (Map<Method, ?>) ReflectionTestUtils.getField(interceptor, "checkers");
+    }
+
+    private HandlerMethod handler(String methodName) throws NoSuchMethodException {
+        if ("open".equals(methodName)) {
+            return new HandlerMethod(openController, OpenController.class.getMethod(methodName));
+        }
+        return new HandlerMethod(controller, SampleController.class.getMethod(methodName));
+    }
+
+    private static Authentication user(String... roleNames) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        Role[] roles = new Role[roleNames.length];
+        for (int i = 0; i < roleNames.length; i++) {
+            roles[i] = new Role();
+            roles[i].setRoleName(roleNames[i]);
+        }
+        UserDetailsImpl userDetails = new UserDetailsImpl(user, Arrays.asList(roles), Collections.emptyList());
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
+    @RequiresAnyRole({"USER", "ADMIN"})
+    static class SampleController {
+
+        public void inherited() {
+        }
+
+        @RequiresAnyRole("ADMIN")
+        public void adminOnly() {
+        }
+
+        @RequiresAnyRole("ROLE_AUDITOR")
+        public void prefixed() {
+        }
+    }
+
+    static class OpenController {
+
+        public void open() {
+        }
+
+        public void late() {
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 令牌吊销布隆过滤器测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class RevocationBloomFilterTest {
+
+    private static final int EXPECTED_INSERTIONS = 10000;
+
+    private static final double FPP = 0.01;
+
+    private TokenStore tokenStore;
+
+    private List<String> blacklist;
+
+    private RevocationBloomFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tokenStore = mock(TokenStore.class, withSettings().extraInterfaces(BlacklistScanner.class));
+        blacklist = new ArrayList<>();
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            new ArrayList<>(blacklist).forEach(consumer);
+            return null;
+        }).when((BlacklistScanner) tokenStore).scanBlacklist(any());
+        when(tokenStore.isTokenBlacklisted(anyString()))
+                .thenAnswer(invocation -> blacklist.contains(invocation.<String>getArgument(0)));
+        when(tokenStore.areTokensBlacklisted(anyList())).thenAnswer(invocation -> {
+            List<Boolean> found = new ArrayList<>();
+            for (String tokenId : invocation.<List<String>>getArgument(0)) {
+                found.add(blacklist.contains(tokenId));
+            }
+            return found;
+        });
+
+        filter = new RevocationBloomFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "expectedInsertions", EXPECTED_INSERTIONS);
+        ReflectionTestUtils.setField(filter, "fpp", FPP);
+        ReflectionTestUtils.setField(filter, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", mock(VerifiedTokenCache.class));
+        ReflectionTestUtils.setField(filter, "listenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        filter.init();
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        RevocationBloomFilter.BloomFilter bloom = RevocationBloomFilter.BloomFilter.create(EXPECTED_INSERTIONS, FPP);
+        List<String> ids = randomIds(EXPECTED_INSERTIONS);
+
+        ids.forEach(bloom::put);
+
+        for (String id : ids) {
+            assertThat(bloom.mightContain(id)).as(id).isTrue();
+        }
+        assertThat(bloom.insertions()).isEqualTo(EXPECTED_INSERTIONS);
+    }
+
+    @Test
+    void bloomFilterFalsePositiveRateStaysNearFpp() {
+        RevocationBloomFilter.BloomFilter bloom = RevocationBloomFilter.BloomFilter.create(EXPECTED_INSERTIONS, FPP);
+        randomIds(EXPECTED_INSERTIONS).forEach(bloom::put);
+
+        int probes = 100000;
+        int falsePositives = 0;
+        for (String id : randomIds(probes)) {
+            if (bloom.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / probes).isLessThan(FPP * 1.5);
+        assertThat(bloom.expectedFpp()).isBetween(FPP * 0.5, FPP * 1.5);
+    }
+
+    @Test
+    void checksGoToRedisUntilFirstRebuild() {
+        assertThat(filter.isRevoked("unknown")).isFalse();
+
+        verify(tokenStore).isTokenBlacklisted("unknown");
+    }
+
+    @Test
+    void rebuiltFilterSkipsRedisForUnrevokedIds() {
+        blacklist.addAll(Arrays.asList("jti-1", "jti-2"));
+
+        filter.rebuild();
+
+        assertThat(filter.isReady()).isTrue();
+        assertThat(filter.isRevoked("jti-1")).isTrue();
+        assertThat(filter.areRevoked(Arrays.asList("jti-2", "jti-3"))).containsExactly(true, false);
+        assertThat(filter.isRevoked("jti-3")).isFalse();
+        verify(tokenStore, never()).isTokenBlacklisted("jti-3");
+    }
+
+    @Test
+    void idsRevokedDuringRebuildSurviveTheSwap() {
+        blacklist.add("jti-1");
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            new ArrayList<>(blacklist).forEach(consumer);
+            // 扫描结束后、切换过滤器之前收到的吊销通知
+            blacklist.add("jti-during");
+            filter.onMessage(message("jti-during"), null);
+            return null;
+        }).when((BlacklistScanner) tokenStore).scanBlacklist(any());
+
+        filter.rebuild();
+
+        assertThat(filter.isRevoked("jti-during")).isTrue();
+        verify(tokenStore).isTokenBlacklisted("jti-during");
+    }
+
+    @Test
+    void rebuildDropsIdsNoLongerInBlacklist() {
+        blacklist.add("jti-expired");
+        filter.rebuild();
+        blacklist.clear();
+
+        filter.rebuild();
+
+        assertThat(filter.isRevoked("jti-expired")).isFalse();
+        verify(tokenStore, never()).isTokenBlacklisted("jti-expired");
+    }
+
+    @Test
+    void degradedStoreBypassesFilter() {
+        filter.rebuild();
+        when(tokenStore.isDegraded()).thenReturn(true);
+
+        filter.isRevoked("jti-local");
+
+        verify(tokenStore).isTokenBlacklisted("jti-local");
+    }
+
+    private static List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+
+    private static Message message(String body) {
+        return new DefaultMessage(RedisUtil.REVOCATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
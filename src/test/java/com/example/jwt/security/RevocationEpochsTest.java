@@ -0,0 +1,105 @@
+package com.example.jwt.security;
+
+import com.example.jwt.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户级令牌吊销纪元测试
+ * <p>
+ * 纪元和签发时间都按毫秒比较：同一秒内吊销之前签发的令牌失效，之后签发的令牌不受影响。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class RevocationEpochsTest {
+
+    private static final long EPOCH = 1_700_000_000_500L;
+
+    private TokenStore tokenStore;
+
+    private RevocationEpochs epochs;
+
+    @BeforeEach
+    void setUp() {
+        tokenStore = mock(TokenStore.class);
+        when(tokenStore.isLocal()).thenReturn(true);
+
+        epochs = new RevocationEpochs();
+        ReflectionTestUtils.setField(epochs, "localTtl", 30000L);
+        ReflectionTestUtils.setField(epochs, "maximumSize", 100L);
+        ReflectionTestUtils.setField(epochs, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.setField(epochs, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(epochs, "listenerContainer", mock(RedisMessageListenerContainer.class));
+        epochs.init();
+    }
+
+    @Test
+    void comparesIssuedAtAgainstEpochInMilliseconds() {
+        when(tokenStore.getRevocationEpoch("alice")).thenReturn(EPOCH);
+
+        assertThat(epochs.isRevoked(token("alice", EPOCH - 1))).isTrue();
+        assertThat(epochs.isRevoked(token("alice", EPOCH))).isTrue();
+        assertThat(epochs.isRevoked(token("alice", EPOCH + 1))).isFalse();
+    }
+
+    @Test
+    void legacySecondsEpochCoversTheWholeSecond() {
+        when(tokenStore.getRevocationEpoch("alice")).thenReturn(EPOCH / 1000);
+
+        assertThat(epochs.isRevoked(token("alice", EPOCH / 1000 * 1000))).isTrue();
+        assertThat(epochs.isRevoked(token("alice", EPOCH / 1000 * 1000 + 999))).isTrue();
+        assertThat(epochs.isRevoked(token("alice", EPOCH / 1000 * 1000 + 1000))).isFalse();
+    }
+
+    @Test
+    void unrevokedUserAndSubjectlessTokenAreNotRevoked() {
+        assertThat(epochs.isRevoked(token("bob", EPOCH))).isFalse();
+        assertThat(epochs.isRevoked(token(null, EPOCH))).isFalse();
+    }
+
+    @Test
+    void notificationOnlyMovesEpochForward() {
+        when(tokenStore.getRevocationEpoch("alice")).thenReturn(0L);
+        assertThat(epochs.isRevoked(token("alice", EPOCH))).isFalse();
+
+        epochs.onMessage(message(EPOCH + ":alice"), null);
+        epochs.onMessage(message((EPOCH - 10_000) + ":alice"), null);
+
+        assertThat(epochs.isRevoked(token("alice", EPOCH))).isTrue();
+        assertThat(epochs.isRevoked(token("alice", EPOCH + 1))).isFalse();
+    }
+
+    @Test
+    void tokensIssuedAfterRevokeAllStayValid() {
+        long before = System.currentTimeMillis();
+        epochs.revokeAll("alice");
+        long after = System.currentTimeMillis() + 1;
+
+        assertThat(epochs.isRevoked(token("alice", before))).isTrue();
+        assertThat(epochs.isRevoked(token("alice", after))).isFalse();
+    }
+
+    private static ValidatedToken token(String subject, long issuedAt) {
+        return ValidatedToken.builder()
+                .subject(subject)
+                .type("access")
+                .issuedAt(issuedAt)
+                .expiration(issuedAt + 900000L)
+                .build();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisUtil.REVOCATION_EPOCH_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.Permission;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 路由权限索引测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class RouteIndexTest {
+
+    @Test
+    void literalWinsOverSingleWildcardWhichWinsOverMultiWildcard() {
+        RouteIndex index = RouteIndex.compile(Arrays.asList(
+                permission("user:all", "/user/**", null),
+                permission("user:any", "/user/*", null),
+                permission("user:profile", "/user/profile", null)));
+
+        assertThat(index.match("GET", "/user/profile")).containsExactly("user:profile");
+        assertThat(index.match("GET", "/user/123")).containsExactly("user:any");
+        assertThat(index.match("GET", "/user/123/orders")).containsExactly("user:all");
+        assertThat(index.match("GET", "/user/profile/avatar")).containsExactly("user:all");
+        assertThat(index.match("GET", "/order/1")).isNull();
+    }
+
+    @Test
+    void pathVariableMatchesLikeSingleWildcard() {
+        RouteIndex index = RouteIndex.compile(Arrays.asList(
+                permission("order:read", "/order/{id}/items", "GET")));
+
+        assertThat(index.match("GET", "/order/42/items")).containsExactly("order:read");
+        assertThat(index.match("GET", "/order/42")).isNull();
+        assertThat(index.match("GET", "/order/42/items/1")).isNull();
+    }
+
+    @Test
+    void methodFallsBackToAnyMethod() {
+        RouteIndex index = RouteIndex.compile(Arrays.asList(
+                permission("order:create", "/order", "post"),
+                permission("order:read", "/order", "*"),
+                permission("order:list", "/order", "GET")));
+
+        assertThat(index.match("POST", "/order")).containsExactly("order:create");
+        assertThat(index.match("GET", "/order")).containsExactly("order:list");
+        assertThat(index.match("DELETE", "/order")).containsExactly("order:read");
+    }
+
+    @Test
+    void methodMismatchFallsThroughToLessSpecificRoute() {
+        RouteIndex index = RouteIndex.compile(Arrays.asList(
+                permission("doc:write", "/doc/*", "PUT"),
+                permission("doc:read", "/**", "GET")));
+
+        assertThat(index.match("PUT", "/doc/1")).containsExactly("doc:write");
+        assertThat(index.match("GET", "/doc/1")).containsExactly("doc:read");
+        assertThat(index.match("DELETE", "/doc/1")).isNull();
+    }
+
+    @Test
+    void trailingMultiWildcardMatchesZeroOrMoreSegments() {
+        RouteIndex index = RouteIndex.compile(Arrays.asList(
+                permission("admin", "/admin/**", null),
+                permission("report", "/report/**/ignored", null)));
+
+        assertThat(index.match("GET", "/admin")).containsExactly("admin");
+        assertThat(index.match("GET", "/admin/")).containsExactly("admin");
+        assertThat(index.match("GET", "/admin/users/1/roles")).containsExactly("admin");
+        assertThat(index.match("GET", "/administrator")).isNull();
+        // ** 之后的路径段被忽略
+        assertThat(index.match("GET", "/report/2024/q1")).containsExactly("report");
+    }
+
+    @Test
+    void emptySegmentsAreIgnored() {
+        RouteIndex index = RouteIndex.compile(Arrays.asList(
+                permission("user:profile", "/user/profile/", null)));
+
+        assertThat(index.match("GET", "//user//profile/")).containsExactly("user:profile");
+        assertThat(index.match("GET", "user/profile")).containsExactly("user:profile");
+    }
+
+    @Test
+    void permissionsOnSameRouteAreMergedAndBlankUrlsSkipped() {
+        RouteIndex index = RouteIndex.compile(Arrays.asList(
+                permission("user:read", "/user/*", "GET"),
+                permission("user:admin", "/user/*", "GET"),
+                permission("menu", " ", null),
+                permission("button", null, null)));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.match("GET", "/user/1")).containsExactly("user:read", "user:admin");
+    }
+
+    private static Permission permission(String name, String url, String method) {
+        Permission permission = new Permission();
+        permission.setPermissionName(name);
+        permission.setUrl(url);
+        permission.setMethod(method);
+        return permission;
+    }
+}
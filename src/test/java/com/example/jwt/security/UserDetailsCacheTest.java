@@ -0,0 +1,150 @@
+package com.example.jwt.security;
+
+import com.example.jwt.entity.User;
+import com.example.jwt.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户详情缓存测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class UserDetailsCacheTest {
+
+    private UserDetailsCache cache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        TokenStore tokenStore = mock(TokenStore.class);
+        when(tokenStore.isLocal()).thenReturn(true);
+
+        cache = new UserDetailsCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttl", 300000L);
+        ReflectionTestUtils.setField(cache, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(cache, "redisUtil", mock(RedisUtil.class));
+        ReflectionTestUtils.setField(cache, "listenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, UserDetailsImpl> slowLoader = username -> {
+            loading.countDown();
+            await(release);
+            return load(1L, username);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<UserDetailsImpl>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("alice", slowLoader)));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> cache.get("alice", slowLoader)));
+            }
+            release.countDown();
+
+            UserDetailsImpl first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<UserDetailsImpl> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidateByUserIdRemovesOnlyThatUser() {
+        cache.get("alice", username -> load(1L, username));
+        cache.get("bob", username -> load(2L, username));
+
+        cache.invalidate(1L);
+
+        cache.get("alice", username -> load(1L, username));
+        cache.get("bob", username -> load(2L, username));
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void invalidateByUserIdRemovesEveryCachedSpelling() {
+        cache.get("alice", username -> load(1L, username));
+        cache.get("Alice", username -> load(1L, username));
+
+        cache.invalidate(1L);
+
+        cache.get("alice", username -> load(1L, username));
+        cache.get("Alice", username -> load(1L, username));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void invalidationDuringLoadDiscardsLoadedResult() {
+        UserDetailsImpl stale = cache.get("alice", username -> {
+            UserDetailsImpl loaded = load(1L, username);
+            cache.invalidate(1L);
+            return loaded;
+        });
+
+        UserDetailsImpl fresh = cache.get("alice", username -> load(1L, username));
+
+        assertThat(fresh).isNotSameAs(stale);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidateAllClearsEveryUser() {
+        cache.get("alice", username -> load(1L, username));
+        cache.get("bob", username -> load(2L, username));
+
+        cache.invalidate(null);
+        cache.invalidate(2L);
+
+        cache.get("alice", username -> load(1L, username));
+        cache.get("bob", username -> load(2L, username));
+        assertThat(loads).hasValue(4);
+    }
+
+    private UserDetailsImpl load(Long userId, String username) {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username);
+        return new UserDetailsImpl(user, Collections.emptyList(), Collections.emptyList());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.jwt.security;
+
+import com.example.jwt.mapper.UserMapper;
+import com.example.jwt.mapper.UserRoleMapper;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户详情缓存失效拦截器测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class UserDetailsInvalidationInterceptorTest {
+
+    private UserDetailsCache userDetailsCache;
+
+    private RbacSnapshot rbacSnapshot;
+
+    private UserDetailsInvalidationInterceptor interceptor;
+
+    private Executor executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userDetailsCache = mock(UserDetailsCache.class);
+        rbacSnapshot = mock(RbacSnapshot.class);
+        interceptor = new UserDetailsInvalidationInterceptor();
+        ReflectionTestUtils.setField(interceptor, "userDetailsCache", userDetailsCache);
+        ReflectionTestUtils.setField(interceptor, "rbacSnapshot", rbacSnapshot);
+
+        executor = mock(Executor.class);
+        when(executor.update(any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidatesAgainAndPublishesOnlyAfterCommit() throws Throwable {
+        TransactionSynchronizationManager.initSynchronization();
+
+        interceptor.intercept(update(UserMapper.class.getName() + ".lockUser", userIdParam(7L)));
+
+        verify(userDetailsCache).invalidate(7L);
+        verify(userDetailsCache, never()).publishInvalidation(any());
+
+        commit();
+
+        InOrder order = inOrder(userDetailsCache);
+        order.verify(userDetailsCache, times(2)).invalidate(7L);
+        order.verify(userDetailsCache).publishInvalidation(7L);
+    }
+
+    @Test
+    void rolledBackTransactionDoesNotPublish() throws Throwable {
+        TransactionSynchronizationManager.initSynchronization();
+
+        interceptor.intercept(update(UserRoleMapper.class.getName() + ".insert", userIdParam(7L)));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        verify(userDetailsCache).invalidate(7L);
+        verify(userDetailsCache, never()).publishInvalidation(any());
+    }
+
+    @Test
+    void invalidatesImmediatelyWithoutTransaction() throws Throwable {
+        interceptor.intercept(update(UserMapper.class.getName() + ".unlockUser", userIdParam(7L)));
+
+        verify(userDetailsCache, times(2)).invalidate(7L);
+        verify(userDetailsCache).publishInvalidation(7L);
+    }
+
+    @Test
+    void loginFailCountUpdatesDoNotInvalidate() throws Throwable {
+        TransactionSynchronizationManager.initSynchronization();
+
+        interceptor.intercept(update(UserMapper.class.getName() + ".updateLoginFailCount", userIdParam(7L)));
+        interceptor.intercept(update(UserMapper.class.getName() + ".resetLoginFailCount", userIdParam(7L)));
+        commit();
+
+        verify(userDetailsCache, never()).invalidate(anyLong());
+        verify(userDetailsCache, never()).publishInvalidation(any());
+    }
+
+    @Test
+    void unaffectedRowsDoNotInvalidate() throws Throwable {
+        when(executor.update(any(), any())).thenReturn(0);
+
+        interceptor.intercept(update(UserMapper.class.getName() + ".lockUser", userIdParam(7L)));
+
+        verify(userDetailsCache, never()).invalidate(any());
+    }
+
+    private Invocation update(String statementId, Object parameter) throws NoSuchMethodException {
+        MappedStatement mappedStatement = new MappedStatement.Builder(
+                new Configuration(), statementId, configuration -> null, SqlCommandType.UPDATE).build();
+        return new Invocation(executor, Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[]{mappedStatement, parameter});
+    }
+
+    private static Map<String, Object> userIdParam(Long userId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        return params;
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
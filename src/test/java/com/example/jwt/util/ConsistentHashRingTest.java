@@ -0,0 +1,80 @@
+package com.example.jwt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 一致性哈希环测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100000;
+
+    private static final int VIRTUAL_NODES = 160;
+
+    @Test
+    void keysSpreadEvenlyAcrossNodes() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes("a", "b", "c", "d"), VIRTUAL_NODES);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.get("user" + i), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(4);
+        int mean = KEYS / 4;
+        for (int count : counts.values()) {
+            assertThat(count).isBetween(mean * 8 / 10, mean * 12 / 10);
+        }
+    }
+
+    @Test
+    void ownershipDoesNotDependOnConfigurationOrder() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes("a", "b", "c"), VIRTUAL_NODES);
+        ConsistentHashRing<String> reordered = new ConsistentHashRing<>(nodes("c", "a", "b"), VIRTUAL_NODES);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(reordered.get("user" + i)).isEqualTo(ring.get("user" + i));
+        }
+    }
+
+    @Test
+    void addingNodeMovesAboutOneNthOfKeysOnlyToTheNewNode() {
+        ConsistentHashRing<String> before = new ConsistentHashRing<>(nodes("a", "b", "c", "d"), VIRTUAL_NODES);
+        ConsistentHashRing<String> after = new ConsistentHashRing<>(nodes("a", "b", "c", "d", "e"), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "user" + i;
+            if (!after.get(key).equals(before.get(key))) {
+                assertThat(after.get(key)).isEqualTo("e");
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(KEYS / 5 * 8 / 10, KEYS / 5 * 12 / 10);
+    }
+
+    @Test
+    void rejectsEmptyRing() {
+        assertThatThrownBy(() -> new ConsistentHashRing<>(new HashMap<String, String>(), VIRTUAL_NODES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Map<String, String> nodes(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String name : names) {
+            nodes.put(name, name);
+        }
+        return nodes;
+    }
+}
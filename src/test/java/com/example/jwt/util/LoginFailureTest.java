@@ -0,0 +1,151 @@
+package com.example.jwt.util;
+
+import com.example.jwt.security.TokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 登录失败计数测试
+ * <p>
+ * Redis中的计数由 scripts/login_failure.lua 完成，本地降级计数按同样的规则判断：
+ * 次数达到阈值后一直处于锁定状态，只有恰好达到阈值的那一次失败触发锁定（justLocked）。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class LoginFailureTest {
+
+    private static final int LOCK_MINUTES = 30;
+
+    private static final int MAX_FAILURES = 5;
+
+    private RedisUtil redisUtil;
+
+    private StringRedisTemplate stringTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "enabled", true);
+        ReflectionTestUtils.setField(breaker, "failureThreshold", 100);
+        ReflectionTestUtils.setField(breaker, "slowCallThreshold", 10000L);
+        ReflectionTestUtils.setField(breaker, "openDuration", 60000L);
+        ReflectionTestUtils.setField(breaker, "meterRegistry", meterRegistry);
+        breaker.init();
+
+        stringTemplate = mock(StringRedisTemplate.class);
+        RedisShard shard = new RedisShard("default", stringTemplate, mock(RedisTemplate.class), null);
+
+        redisUtil = new RedisUtil();
+        ReflectionTestUtils.setField(redisUtil, "redisTemplate", mock(RedisTemplate.class));
+        ReflectionTestUtils.setField(redisUtil, "stringRedisTemplate", stringTemplate);
+        ReflectionTestUtils.setField(redisUtil, "shardRouter", new RedisShardRouter(Collections.singletonList(shard), 16));
+        ReflectionTestUtils.setField(redisUtil, "circuitBreaker", breaker);
+        ReflectionTestUtils.setField(redisUtil, "localStore", new LocalTokenStore());
+        ReflectionTestUtils.setField(redisUtil, "fallbackPolicy", "fail-open");
+        ReflectionTestUtils.setField(redisUtil, "meterRegistry", meterRegistry);
+        redisUtil.init();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void scriptRunsOnUserKeyAndResultMapsToLoginFailure() {
+        ArgumentCaptor<RedisScript<List<Long>>> script = ArgumentCaptor.forClass(RedisScript.class);
+        when(stringTemplate.execute(script.capture(), eq(Collections.singletonList("login_fail:alice")),
+                eq(String.valueOf(TimeUnit.MINUTES.toMillis(LOCK_MINUTES))), eq(String.valueOf(MAX_FAILURES))))
+                .thenReturn(Arrays.asList(5L, 1L, 1L), Arrays.asList(6L, 1L, 0L), Arrays.asList(1L, 0L, 0L));
+
+        assertFailure(redisUtil.incrementLoginFailure("alice", LOCK_MINUTES, MAX_FAILURES), 5, true, true);
+        assertFailure(redisUtil.incrementLoginFailure("alice", LOCK_MINUTES, MAX_FAILURES), 6, true, false);
+        assertFailure(redisUtil.incrementLoginFailure("alice", LOCK_MINUTES, MAX_FAILURES), 1, false, false);
+        assertThat(script.getValue().getScriptAsString()).contains("INCR", "PEXPIRE");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void malformedScriptResultIsIgnored() {
+        when(stringTemplate.execute(any(RedisScript.class), any(List.class), any(), any()))
+                .thenReturn(Collections.singletonList(1L));
+
+        assertThat(redisUtil.incrementLoginFailure("alice", LOCK_MINUTES, MAX_FAILURES)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsLocallyWithSameThresholdRulesWhenRedisFails() {
+        when(stringTemplate.execute(any(RedisScript.class), any(List.class), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        for (int i = 1; i < MAX_FAILURES; i++) {
+            assertFailure(redisUtil.incrementLoginFailure("alice", LOCK_MINUTES, MAX_FAILURES), i, false, false);
+        }
+        assertFailure(redisUtil.incrementLoginFailure("alice", LOCK_MINUTES, MAX_FAILURES), MAX_FAILURES, true, true);
+        assertFailure(redisUtil.incrementLoginFailure("alice", LOCK_MINUTES, MAX_FAILURES), MAX_FAILURES + 1, true, false);
+        verify(stringTemplate, times(MAX_FAILURES + 1)).execute(any(RedisScript.class), any(List.class), any(), any());
+    }
+
+    @Test
+    void concurrentLocalFailuresTriggerLockExactlyOnce() throws Exception {
+        LocalTokenStore localStore = new LocalTokenStore();
+        int attempts = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TokenStore.LoginFailure>> results = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return localStore.incrementLoginFailure("alice", TimeUnit.MINUTES.toMillis(LOCK_MINUTES), MAX_FAILURES);
+                }));
+            }
+            start.countDown();
+
+            int justLocked = 0;
+            int locked = 0;
+            for (Future<TokenStore.LoginFailure> result : results) {
+                TokenStore.LoginFailure failure = result.get(5, TimeUnit.SECONDS);
+                justLocked += failure.isJustLocked() ? 1 : 0;
+                locked += failure.isLocked() ? 1 : 0;
+            }
+            assertThat(justLocked).isEqualTo(1);
+            assertThat(locked).isEqualTo(attempts - MAX_FAILURES + 1);
+            assertThat(localStore.getLoginFailCount("alice")).isEqualTo(attempts);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertFailure(TokenStore.LoginFailure failure, int count, boolean locked, boolean justLocked) {
+        assertThat(failure).isNotNull();
+        assertThat(failure.getCount()).isEqualTo(count);
+        assertThat(failure.isLocked()).isEqualTo(locked);
+        assertThat(failure.isJustLocked()).isEqualTo(justLocked);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.jwt.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Redis熔断器测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class RedisCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private RedisCircuitBreaker breaker;
+
+    private final AtomicInteger recoveries = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        breaker = new RedisCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "enabled", true);
+        ReflectionTestUtils.setField(breaker, "failureThreshold", 3);
+        ReflectionTestUtils.setField(breaker, "slowCallThreshold", 200L);
+        ReflectionTestUtils.setField(breaker, "openDuration", 60000L);
+        ReflectionTestUtils.setField(breaker, "meterRegistry", new SimpleMeterRegistry());
+        breaker.init();
+        breaker.addRecoveryListener(recoveries::incrementAndGet);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess(FAST);
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void slowCallsCountAsFailures() {
+        long slow = TimeUnit.MILLISECONDS.toNanos(500);
+        for (int i = 0; i < 3; i++) {
+            breaker.onSuccess(slow);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void admitsOneProbeAfterOpenDurationAndClosesOnSuccess() {
+        open();
+        elapseOpenDuration();
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+
+        breaker.onSuccess(FAST);
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(recoveries).hasValue(1);
+    }
+
+    @Test
+    void failedProbeReopensForAnotherOpenDuration() {
+        open();
+        elapseOpenDuration();
+
+        assertThat(breaker.allowRequest()).isTrue();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+        assertThat(recoveries).hasValue(0);
+
+        elapseOpenDuration();
+
+        assertThat(breaker.allowRequest()).isTrue();
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(recoveries).hasValue(1);
+    }
+
+    @Test
+    void disabledBreakerNeverOpens() {
+        ReflectionTestUtils.setField(breaker, "enabled", false);
+
+        open();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+    }
+
+    private void elapseOpenDuration() {
+        ReflectionTestUtils.setField(breaker, "openedAt", System.currentTimeMillis() - 60000L);
+    }
+}
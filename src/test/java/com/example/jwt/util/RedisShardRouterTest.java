@@ -0,0 +1,107 @@
+package com.example.jwt.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 令牌存储分片路由测试
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class RedisShardRouterTest {
+
+    private static final int VIRTUAL_NODES = 160;
+
+    @Test
+    void migratedKeysReadThroughTheirPreviousOwner() {
+        RedisShard a = shard("a");
+        RedisShard b = shard("b");
+        RedisShard c = shard("c");
+        RedisShardRouter before = new RedisShardRouter(Arrays.asList(a, b), VIRTUAL_NODES);
+        RedisShardRouter router = new RedisShardRouter(Arrays.asList(a, b, c), Arrays.asList(a, b), VIRTUAL_NODES);
+
+        assertThat(router.isMigrating()).isTrue();
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            String username = "user" + i;
+            RedisShard owner = before.forUser(username);
+            if (router.forUser(username) == owner) {
+                assertThat(router.previousForUser(username)).isNull();
+            } else {
+                assertThat(router.forUser(username)).isSameAs(c);
+                assertThat(router.previousForUser(username)).isSameAs(owner);
+                assertThat(router.previousForToken(username)).isSameAs(owner);
+                moved++;
+            }
+        }
+        assertThat(moved).isPositive();
+    }
+
+    @Test
+    void removedShardStaysReadableDuringMigration() {
+        RedisShard a = shard("a");
+        RedisShard b = shard("b");
+        RedisShard c = shard("c");
+        RedisShardRouter before = new RedisShardRouter(Arrays.asList(a, b, c), VIRTUAL_NODES);
+        RedisShardRouter router = new RedisShardRouter(Arrays.asList(a, b), Arrays.asList(a, b, c), VIRTUAL_NODES);
+
+        assertThat(router.getShards()).containsExactly(a, b, c);
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            String tokenId = "jti" + i;
+            assertThat(router.forToken(tokenId)).isNotSameAs(c);
+            if (before.forToken(tokenId) == c) {
+                assertThat(router.previousForToken(tokenId)).isSameAs(c);
+                moved++;
+            }
+        }
+        assertThat(moved).isPositive();
+    }
+
+    @Test
+    void withoutPreviousShardsThereIsNoFallback() {
+        RedisShardRouter router = new RedisShardRouter(Arrays.asList(shard("a"), shard("b")), VIRTUAL_NODES);
+
+        assertThat(router.isMigrating()).isFalse();
+        assertThat(router.previousForUser("alice")).isNull();
+    }
+
+    @Test
+    void destroyClosesEveryOwnedConnectionOnceEvenIfOneFails() {
+        RedisShard a = shard("a");
+        RedisShard b = shard("b");
+        RedisShard shared = new RedisShard("default", null, null, null);
+        doThrow(new IllegalStateException("closed")).when(a.getConnectionFactory()).destroy();
+        RedisShardRouter router = new RedisShardRouter(Arrays.asList(a, b, shared), Arrays.asList(a, shared),
+                VIRTUAL_NODES);
+
+        router.destroy();
+
+        verify(a.getConnectionFactory(), times(1)).destroy();
+        verify(b.getConnectionFactory(), times(1)).destroy();
+    }
+
+    @Test
+    void staticDestroySkipsDuplicateFactories() {
+        RedisShard a = shard("a");
+
+        RedisShardRouter.destroy(Arrays.asList(a, a));
+        RedisShardRouter.destroy(Collections.emptyList());
+
+        verify(a.getConnectionFactory(), times(1)).destroy();
+    }
+
+    private static RedisShard shard(String name) {
+        return new RedisShard(name, null, null, mock(LettuceConnectionFactory.class));
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.jwt.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Redis熔断降级测试
+ * <p>
+ * 熔断期间的黑名单和吊销纪元写入保存在本地存储并继续生效，探测调用成功后回放到Redis。
+ *
+ * @author example
+ * @since 2024-01-01
+ */
+class RedisUtilDegradationTest {
+
+    private static final long TOKEN_TTL = 60000L;
+
+    private RedisUtil redisUtil;
+
+    private RedisCircuitBreaker breaker;
+
+    private LocalTokenStore localStore;
+
+    private StringRedisTemplate stringTemplate;
+
+    private ValueOperations<String, String> stringValues;
+
+    private ValueOperations<String, Long> longValues;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        breaker = new RedisCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "enabled", true);
+        ReflectionTestUtils.setField(breaker, "failureThreshold", 2);
+        ReflectionTestUtils.setField(breaker, "slowCallThreshold", 10000L);
+        ReflectionTestUtils.setField(breaker, "openDuration", 60000L);
+        ReflectionTestUtils.setField(breaker, "meterRegistry", meterRegistry);
+        breaker.init();
+
+        stringTemplate = mock(StringRedisTemplate.class);
+        stringValues = mock(ValueOperations.class);
+        when(stringTemplate.opsForValue()).thenReturn(stringValues);
+        RedisTemplate<String, Long> longTemplate = mock(RedisTemplate.class);
+        longValues = mock(ValueOperations.class);
+        when(longTemplate.opsForValue()).thenReturn(longValues);
+        RedisShard shard = new RedisShard("default", stringTemplate, longTemplate, null);
+
+        localStore = new LocalTokenStore();
+        redisUtil = new RedisUtil();
+        ReflectionTestUtils.setField(redisUtil, "redisTemplate", mock(RedisTemplate.class));
+        ReflectionTestUtils.setField(redisUtil, "stringRedisTemplate", stringTemplate);
+        ReflectionTestUtils.setField(redisUtil, "shardRouter", new RedisShardRouter(Collections.singletonList(shard), 16));
+        ReflectionTestUtils.setField(redisUtil, "circuitBreaker", breaker);
+        ReflectionTestUtils.setField(redisUtil, "localStore", localStore);
+        ReflectionTestUtils.setField(redisUtil, "fallbackPolicy", "fail-open");
+        ReflectionTestUtils.setField(redisUtil, "meterRegistry", meterRegistry);
+        redisUtil.init();
+    }
+
+    @Test
+    void writesAreBufferedLocallyAndStayEffectiveWhileOpen() {
+        long expireTime = System.currentTimeMillis() + TOKEN_TTL;
+        failRedisWrites();
+
+        redisUtil.addTokenToBlacklist("jti-1", expireTime);
+        redisUtil.addTokenToBlacklist("jti-2", expireTime);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        clearInvocations(stringTemplate, stringValues, longValues);
+
+        redisUtil.addTokenToBlacklist("jti-3", expireTime);
+        redisUtil.setRevocationEpoch("alice", 1234L, TOKEN_TTL);
+
+        assertThat(redisUtil.isDegraded()).isTrue();
+        assertThat(redisUtil.isTokenBlacklisted("jti-1")).isTrue();
+        assertThat(redisUtil.isTokenBlacklisted("jti-3")).isTrue();
+        assertThat(redisUtil.areTokensBlacklisted(Arrays.asList("jti-2", "jti-4")))
+                .containsExactly(true, false);
+        assertThat(redisUtil.getRevocationEpoch("alice")).isEqualTo(1234L);
+        verify(stringValues, never()).set(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        verify(longValues, never()).set(anyString(), anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        verify(stringTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    void successfulProbeReplaysBufferedWritesAndClearsLocalStore() {
+        long expireTime = System.currentTimeMillis() + TOKEN_TTL;
+        failRedisWrites();
+        redisUtil.addTokenToBlacklist("jti-1", expireTime);
+        redisUtil.addTokenToBlacklist("jti-2", expireTime);
+        redisUtil.setRevocationEpoch("alice", 1234L, TOKEN_TTL);
+        clearInvocations(stringTemplate, stringValues, longValues);
+
+        doNothing().when(stringValues).set(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        elapseOpenDuration();
+        assertThat(redisUtil.isTokenBlacklisted("jti-other")).isFalse();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        verify(stringValues, timeout(5000)).set(eq("blacklist:jti:jti-1"), eq("1"), anyLong(), eq(TimeUnit.MILLISECONDS));
+        verify(stringValues, timeout(5000)).set(eq("blacklist:jti:jti-2"), eq("1"), anyLong(), eq(TimeUnit.MILLISECONDS));
+        verify(longValues, timeout(5000)).set(eq("revoke_epoch:alice"), eq(1234L), anyLong(), eq(TimeUnit.MILLISECONDS));
+        verify(stringTemplate, timeout(5000)).convertAndSend(RedisUtil.REVOCATION_CHANNEL, "jti-1");
+        verify(stringTemplate, timeout(5000)).convertAndSend(RedisUtil.REVOCATION_EPOCH_CHANNEL, "1234:alice");
+        awaitLocalStoreDrained("jti-1", "jti-2");
+    }
+
+    @Test
+    void failedReplayKeepsEntriesLocalForNextRecovery() {
+        long expireTime = System.currentTimeMillis() + TOKEN_TTL;
+        failRedisWrites();
+        redisUtil.addTokenToBlacklist("jti-1", expireTime);
+        redisUtil.addTokenToBlacklist("jti-2", expireTime);
+
+        elapseOpenDuration();
+        redisUtil.isTokenBlacklisted("jti-other");
+
+        verify(stringValues, timeout(5000).times(3)).set(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        assertThat(localStore.isBlacklisted("jti-1")).isTrue();
+        assertThat(localStore.isBlacklisted("jti-2")).isTrue();
+    }
+
+    private void failRedisWrites() {
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(stringValues).set(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    private void elapseOpenDuration() {
+        ReflectionTestUtils.setField(breaker, "openedAt", System.currentTimeMillis() - 60000L);
+    }
+
+    private void awaitLocalStoreDrained(String... tokenIds) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!drained(tokenIds) && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        for (String tokenId : tokenIds) {
+            assertThat(localStore.isBlacklisted(tokenId)).as(tokenId).isNull();
+        }
+        assertThat(localStore.getRevocationEpoch("alice")).isZero();
+    }
+
+    private boolean drained(String... tokenIds) {
+        for (String tokenId : tokenIds) {
+            if (localStore.isBlacklisted(tokenId) != null) {
+                return false;
+            }
+        }
+        return localStore.getRevocationEpoch("alice") == 0L;
+    }
+}